@@ -1,7 +1,5 @@
 package com.github.se_bastiaan.beam;
 
-import android.support.annotation.NonNull;
-
 public class SubtitleData {
 
     private final String url;
@@ -18,21 +16,21 @@ public class SubtitleData {
         private String label;
         private String language;
 
-        public Builder(@NonNull String url) {
+        public Builder(String url) {
             this.url = url;
         }
 
-        public Builder setMimeType(@NonNull String mimeType) {
+        public Builder setMimeType(String mimeType) {
             this.mimeType = mimeType;
             return this;
         }
 
-        public Builder setLabel(@NonNull String label) {
+        public Builder setLabel(String label) {
             this.label = label;
             return this;
         }
 
-        public Builder setLanguage(@NonNull String language) {
+        public Builder setLanguage(String language) {
             this.language = language;
             return this;
         }
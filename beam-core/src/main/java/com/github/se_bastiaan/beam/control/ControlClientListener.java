@@ -12,4 +12,11 @@ public interface ControlClientListener {
 
     void onPlayBackChanged(ControlClient client, boolean isPlaying, long position, long duration);
 
+    /**
+     * The device answered a command, status polls are not reported
+     * @param device {@link BeamDevice} the command was sent to
+     * @param latency Time from sending the command until its own response arrived in ms
+     */
+    void onCommandCompleted(ControlClient client, BeamDevice device, long latency);
+
 }
@@ -0,0 +1,94 @@
+package com.github.se_bastiaan.beam.control.airplay;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP Digest Authentication for password protected AirPlay devices
+ */
+public class DigestAuthentication {
+
+    /**
+     * Parse the parameters of a WWW-Authenticate header
+     * @param authString {@link java.lang.String}
+     * @return {@link java.util.Map}
+     */
+    public static Map<String, String> getAuthParams(String authString) {
+        Map<String, String> params = new HashMap<>();
+        int firstSpace = authString.indexOf(' ');
+        String rest = authString.substring(firstSpace + 1).replaceAll("\r\n", " ");
+        String[] lines = rest.split("\", ");
+        for (int i = 0; i < lines.length; i++) {
+            int split = lines[i].indexOf("=\"");
+            String key = lines[i].substring(0, split);
+            String value = lines[i].substring(split + 2);
+            if (value.charAt(value.length() - 1) == '"') {
+                value = value.substring(0, value.length() - 1);
+            }
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    /**
+     * Make Authorization header for HTTP request
+     * @param params {@link java.util.Map}
+     * @param username {@link java.lang.String}
+     * @param password {@link java.lang.String}
+     * @param method {@link java.lang.String}
+     * @param uri {@link java.lang.String}
+     * @return {@link java.lang.String}
+     */
+    public static String makeAuthorizationHeader(Map params, String username, String password, String method, String uri) {
+        String realm = (String) params.get("realm");
+        String nonce = (String) params.get("nonce");
+        String ha1 = md5Digest(username + ":" + realm + ":" + password);
+        String ha2 = md5Digest(method + ":" + uri);
+        String response = md5Digest(ha1 + ":" + nonce + ":" + ha2);
+        return "Digest username=\"" + username + "\", "
+                + "realm=\"" + realm + "\", "
+                + "nonce=\"" + nonce + "\", "
+                + "uri=\"" + uri + "\", "
+                + "response=\"" + response + "\"";
+    }
+
+    /**
+     * Generate MD5 for Digest Authentication
+     * @param input {@link java.lang.String}
+     * @return {@link java.lang.String}
+     */
+    public static String md5Digest(String input) {
+        byte[] source;
+        try {
+            source = input.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            source = input.getBytes();
+        }
+
+        String result = null;
+        char hexDigits[] = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            md.update(source);
+
+            byte temp[] = md.digest();
+            char str[] = new char[16 * 2];
+            int k = 0;
+            for (int i = 0; i < 16; i++) {
+                byte byte0 = temp[i];
+                str[k++] = hexDigits[byte0 >>> 4 & 0xf];
+                str[k++] = hexDigits[byte0 & 0xf];
+            }
+
+            result = new String(str);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return result;
+    }
+
+}
@@ -1,6 +1,6 @@
 package com.github.se_bastiaan.beam.control.airplay;
 
-import android.util.Xml;
+import com.github.se_bastiaan.beam.util.XmlUtil;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
@@ -30,7 +30,7 @@ public class PropertyListParser {
     public static final String TAG_PLIST = "plist";
 
     public static Map<String, Object> parse(String text) throws XmlPullParserException, IOException {
-        XmlPullParser parser = Xml.newPullParser();
+        XmlPullParser parser = XmlUtil.newPullParser();
         parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
         Reader stream = new StringReader(text);
         parser.setInput(stream);
@@ -40,7 +40,7 @@ public class PropertyListParser {
 
     public static Map<String, Object> parse(InputStream in) throws XmlPullParserException, IOException {
         try {
-            XmlPullParser parser = Xml.newPullParser();
+            XmlPullParser parser = XmlUtil.newPullParser();
             parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
             parser.setInput(in, null);
             parser.nextTag();
@@ -0,0 +1,229 @@
+package com.github.se_bastiaan.beam.control.dlna;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * SOAP envelope of one action, compiled once into byte templates with a slot for every argument. The envelopes are
+ * byte for byte the same as {@link DLNAMessageBuilder#getMessageXml(String, String, String, java.util.Map)} builds,
+ * without creating and serializing a DOM document for every command and poll
+ */
+public final class DLNAEnvelopeTemplate {
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    private static final String ENVELOPE_START = "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\" s:encodingStyle=\"http://schemas.xmlsoap.org/soap/encoding/\"><s:Body>";
+    private static final String ENVELOPE_END = "</s:Body></s:Envelope>";
+
+    private final String serviceURN;
+    private final String method;
+    private final String[] arguments;
+
+    private final ByteString prefix;
+    private final ByteString suffix;
+    private final ByteString[] openTags;
+    private final ByteString[] closeTags;
+    private final ByteString[] emptyTags;
+
+    private DLNAEnvelopeTemplate(String serviceURN, String method, String[] arguments) {
+        this.serviceURN = serviceURN;
+        this.method = method;
+        this.arguments = arguments;
+
+        Buffer buffer = new Buffer()
+                .writeUtf8(XML_DECLARATION)
+                .writeUtf8(ENVELOPE_START)
+                .writeUtf8("<u:").writeUtf8(method)
+                .writeUtf8(" xmlns:u=\"");
+        writeEscaped(buffer, serviceURN, true);
+        if (arguments.length == 0) {
+            // The DOM serializer closes an action without arguments right away
+            prefix = buffer.writeUtf8("\"/>").writeUtf8(ENVELOPE_END).readByteString();
+            suffix = ByteString.EMPTY;
+        } else {
+            prefix = buffer.writeUtf8("\">").readByteString();
+            suffix = buffer.writeUtf8("</u:").writeUtf8(method).writeUtf8(">").writeUtf8(ENVELOPE_END).readByteString();
+        }
+
+        openTags = new ByteString[arguments.length];
+        closeTags = new ByteString[arguments.length];
+        emptyTags = new ByteString[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            openTags[i] = ByteString.encodeUtf8("<" + arguments[i] + ">");
+            closeTags[i] = ByteString.encodeUtf8("</" + arguments[i] + ">");
+            emptyTags[i] = ByteString.encodeUtf8("<" + arguments[i] + "/>");
+        }
+    }
+
+    /**
+     * Compile the envelope of an action
+     * @param serviceURN URN of the service the action belongs to, not empty
+     * @param method Name of the action
+     * @param arguments Names of the arguments in order, InstanceID included
+     * @return {@link DLNAEnvelopeTemplate}
+     * @throws IllegalArgumentException when a name is not a plain ASCII XML name or the URN is not valid XML text
+     */
+    public static DLNAEnvelopeTemplate compile(String serviceURN, String method, String... arguments) {
+        if (serviceURN == null || serviceURN.isEmpty()) {
+            throw new IllegalArgumentException("Service URN is required");
+        }
+        if (!isName(method, false)) {
+            throw new IllegalArgumentException("Invalid action name: " + method);
+        }
+        for (String argument : arguments) {
+            if (!isName(argument, true)) {
+                throw new IllegalArgumentException("Invalid argument name: " + argument);
+            }
+        }
+        return new DLNAEnvelopeTemplate(serviceURN, method, arguments.clone());
+    }
+
+    public String getServiceURN() {
+        return serviceURN;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Write the envelope straight into a sink
+     * @param sink {@link BufferedSink}
+     * @param values Values of the arguments in order, null or empty values are written as empty elements
+     * @throws IllegalArgumentException when the number of values does not match or a value is not valid XML text,
+     * part of the envelope may have been written already
+     */
+    public void writeTo(BufferedSink sink, String... values) throws IOException {
+        if (values.length != arguments.length) {
+            throw new IllegalArgumentException(method + " takes " + arguments.length + " arguments, got "
+                    + values.length);
+        }
+
+        Buffer buffer = sink.buffer();
+        buffer.write(prefix);
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i];
+            if (value == null || value.isEmpty()) {
+                buffer.write(emptyTags[i]);
+            } else {
+                buffer.write(openTags[i]);
+                writeEscaped(buffer, value, false);
+                buffer.write(closeTags[i]);
+            }
+            sink.emitCompleteSegments();
+        }
+        buffer.write(suffix);
+        sink.emitCompleteSegments();
+    }
+
+    /**
+     * Build the envelope
+     * @param values Values of the arguments in order
+     * @return {@link ByteString}, the UTF-8 encoded envelope
+     * @throws IllegalArgumentException when the number of values does not match or a value is not valid XML text
+     */
+    public ByteString encode(String... values) {
+        Buffer buffer = new Buffer();
+        try {
+            writeTo(buffer, values);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return buffer.readByteString();
+    }
+
+    /**
+     * Build the envelope as the body of a request
+     * @param contentType {@link MediaType} of the body
+     * @param values Values of the arguments in order
+     * @return {@link RequestBody}
+     * @throws IllegalArgumentException when the number of values does not match or a value is not valid XML text
+     */
+    public RequestBody toRequestBody(MediaType contentType, String... values) {
+        return RequestBody.create(contentType, encode(values));
+    }
+
+    /**
+     * Escape text and attribute values the way the platform DOM serializer does. Characters XML 1.0 does not allow are
+     * rejected, the serializer writes them as references that renderers fail to parse
+     */
+    static void writeEscaped(Buffer buffer, String value, boolean attribute) {
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            int reference = -1;
+
+            if (c == '&') {
+                replacement = "&amp;";
+            } else if (c == '<') {
+                replacement = "&lt;";
+            } else if (c == '>') {
+                replacement = "&gt;";
+            } else if (c == '"' && attribute) {
+                replacement = "&quot;";
+            } else if (c < 0x20) {
+                if (c != '\t' && c != '\n' && c != '\r') {
+                    throw new IllegalArgumentException("Invalid XML character " + (int) c + " in " + value);
+                }
+                if (!attribute && c != '\r') {
+                    continue;
+                }
+                replacement = null;
+                reference = c;
+            } else if (c >= 0x7F && c <= 0x9F && !attribute) {
+                replacement = null;
+                reference = c;
+            } else if (Character.isSurrogate(c)) {
+                boolean paired = Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1));
+                if (!paired) {
+                    throw new IllegalArgumentException("Unpaired surrogate in " + value);
+                }
+                replacement = null;
+                reference = Character.toCodePoint(c, value.charAt(i + 1));
+            } else if (c == 0xFFFE || c == 0xFFFF) {
+                throw new IllegalArgumentException("Invalid XML character " + (int) c + " in " + value);
+            } else {
+                continue;
+            }
+
+            buffer.writeUtf8(value, start, i);
+            if (replacement != null) {
+                buffer.writeUtf8(replacement);
+            } else {
+                buffer.writeUtf8("&#").writeDecimalLong(reference).writeByte(';');
+            }
+            if (reference > 0xFFFF) {
+                i++;
+            }
+            start = i + 1;
+        }
+        buffer.writeUtf8(value, start, length);
+    }
+
+    /**
+     * Names are limited to ASCII, the DOM accepts a few more that are never used in actions. Action names are prefixed
+     * and can not contain a colon
+     */
+    private static boolean isName(String name, boolean allowColon) {
+        if (name == null || name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || (c == ':' && allowColon)
+                    || (i > 0 && ((c >= '0' && c <= '9') || c == '-' || c == '.'));
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.github.se_bastiaan.beam.control.dlna;
+
+import com.github.se_bastiaan.beam.SubtitleData;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+/**
+ * Builds the SOAP envelopes and DIDL-Lite metadata sent to DLNA renderers
+ */
+public class DLNAMessageBuilder {
+
+    private static final String DEFAULT_SUBTITLE_MIMETYPE = "text/srt";
+    private static final String DEFAULT_SUBTITLE_TYPE = "srt";
+
+    /**
+     * Build the SOAP envelope of an action
+     * @param serviceURN URN of the service the action belongs to
+     * @param method Name of the action
+     * @param instanceId InstanceID argument, or null to leave it out
+     * @param params Other arguments in order, may be null
+     * @return {@link String}, null when the envelope could not be built
+     */
+    public static String getMessageXml(String serviceURN, String method, String instanceId, Map<String, String> params) {
+        try {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            DocumentBuilder db = dbf.newDocumentBuilder();
+            Document doc = db.newDocument();
+            doc.setXmlStandalone(true);
+            doc.setXmlVersion("1.0");
+
+            Element root = doc.createElement("s:Envelope");
+            Element bodyElement = doc.createElement("s:Body");
+            Element methodElement = doc.createElementNS(serviceURN, "u:" + method);
+            Element instanceElement = doc.createElement("InstanceID");
+
+            root.setAttribute("s:encodingStyle", "http://schemas.xmlsoap.org/soap/encoding/");
+            root.setAttribute("xmlns:s", "http://schemas.xmlsoap.org/soap/envelope/");
+
+            doc.appendChild(root);
+            root.appendChild(bodyElement);
+            bodyElement.appendChild(methodElement);
+            if (instanceId != null) {
+                instanceElement.setTextContent(instanceId);
+                methodElement.appendChild(instanceElement);
+            }
+
+            if (params != null) {
+                for (Map.Entry<String, String> entry : params.entrySet()) {
+                    String key = entry.getKey();
+                    String value = entry.getValue();
+                    Element element = doc.createElement(key);
+                    element.setTextContent(value);
+                    methodElement.appendChild(element);
+                }
+            }
+            return xmlToString(doc, true);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Build the DIDL-Lite metadata of a video
+     * @param mediaURL URL of the video
+     * @param subtitle {@link SubtitleData}, may be null
+     * @param mime Mime type of the video
+     * @param title Title of the video
+     * @param iconUrl URL of the album art, may be null
+     * @return {@link String}, null when the metadata could not be built
+     */
+    public static String getMetadata(String mediaURL, SubtitleData subtitle, String mime, String title, String iconUrl) {
+        try {
+            String objectClass = "object.item.videoItem";
+
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            DocumentBuilder db = dbf.newDocumentBuilder();
+            Document doc = db.newDocument();
+
+            Element didlRoot = doc.createElement("DIDL-Lite");
+            Element itemElement = doc.createElement("item");
+            Element titleElement = doc.createElement("dc:title");
+            Element resElement = doc.createElement("res");
+            Element albumArtElement = doc.createElement("upnp:albumArtURI");
+            Element classElement = doc.createElement("upnp:class");
+
+            didlRoot.appendChild(itemElement);
+            itemElement.appendChild(titleElement);
+            itemElement.appendChild(resElement);
+            if (iconUrl != null) {
+                itemElement.appendChild(albumArtElement);
+            }
+            itemElement.appendChild(classElement);
+
+            didlRoot.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns", "urn:schemas-upnp-org:metadata-1-0/DIDL-Lite/");
+            didlRoot.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:upnp", "urn:schemas-upnp-org:metadata-1-0/upnp/");
+            didlRoot.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:dc", "http://purl.org/dc/elements/1.1/");
+            didlRoot.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:sec", "http://www.sec.co.kr/");
+
+            titleElement.setTextContent(title);
+            resElement.setTextContent(encodeURL(mediaURL));
+            albumArtElement.setTextContent(encodeURL(iconUrl));
+            classElement.setTextContent(objectClass);
+
+            itemElement.setAttribute("id", "1000");
+            itemElement.setAttribute("parentID", "0");
+            itemElement.setAttribute("restricted", "0");
+
+            resElement.setAttribute("protocolInfo", "http-get:*:" + mime + ":DLNA.ORG_OP=01");
+
+            if (subtitle != null) {
+                String mimeType = (subtitle.getMimeType() == null) ? DEFAULT_SUBTITLE_TYPE : subtitle.getMimeType();
+                String type;
+                String[] typeParts =  mimeType.split("/");
+                if (typeParts.length == 2) {
+                    type = typeParts[1];
+                } else {
+                    mimeType = DEFAULT_SUBTITLE_MIMETYPE;
+                    type = DEFAULT_SUBTITLE_TYPE;
+                }
+
+                resElement.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:pv", "http://www.pv.com/pvns/");
+                resElement.setAttribute("pv:subtitleFileUri", subtitle.getUrl());
+                resElement.setAttribute("pv:subtitleFileType", type);
+
+                Element smiResElement = doc.createElement("res");
+                smiResElement.setAttribute("protocolInfo", "http-get:*:smi/caption");
+                smiResElement.setTextContent(subtitle.getUrl());
+                itemElement.appendChild(smiResElement);
+
+                Element srtResElement = doc.createElement("res");
+                srtResElement.setAttribute("protocolInfo", "http-get:*:"+mimeType+":");
+                srtResElement.setTextContent(subtitle.getUrl());
+                itemElement.appendChild(srtResElement);
+
+                Element captionInfoExElement = doc.createElement("sec:CaptionInfoEx");
+                captionInfoExElement.setAttribute("sec:type", type);
+                captionInfoExElement.setTextContent(subtitle.getUrl());
+                itemElement.appendChild(captionInfoExElement);
+
+                Element captionInfoElement = doc.createElement("sec:CaptionInfo");
+                captionInfoElement.setAttribute("sec:type", type);
+                captionInfoElement.setTextContent(subtitle.getUrl());
+                itemElement.appendChild(captionInfoElement);
+            }
+
+            doc.appendChild(didlRoot);
+            return xmlToString(doc, false);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Percent-encode a URL that is not encoded yet
+     * @param mediaURL {@link String}, may be null
+     * @return {@link String}, empty when the URL is null or empty
+     */
+    public static String encodeURL(String mediaURL) throws MalformedURLException, URISyntaxException, UnsupportedEncodingException {
+        if (mediaURL == null || mediaURL.isEmpty()) {
+            return "";
+        }
+        String decodedURL = URLDecoder.decode(mediaURL, "UTF-8");
+        if (decodedURL.equals(mediaURL)) {
+            URL url = new URL(mediaURL);
+            URI uri = new URI(url.getProtocol(), url.getUserInfo(), url.getHost(), url.getPort(), url.getPath(), url.getQuery(), url.getRef());
+            return uri.toASCIIString();
+        }
+        return mediaURL;
+    }
+
+    private static String xmlToString(Node source, boolean xmlDeclaration) throws TransformerException {
+        DOMSource domSource = new DOMSource(source);
+        StringWriter writer = new StringWriter();
+        StreamResult result = new StreamResult(writer);
+        TransformerFactory tf = TransformerFactory.newInstance();
+        Transformer transformer = tf.newTransformer();
+        if (!xmlDeclaration) {
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        }
+        transformer.transform(domSource, result);
+        return writer.toString();
+    }
+
+}
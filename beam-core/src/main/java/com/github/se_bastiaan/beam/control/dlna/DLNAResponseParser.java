@@ -0,0 +1,81 @@
+package com.github.se_bastiaan.beam.control.dlna;
+
+import com.github.se_bastiaan.beam.logger.Logger;
+import com.github.se_bastiaan.beam.util.XmlUtil;
+
+import org.xmlpull.v1.XmlPullParser;
+
+import java.io.StringReader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Reads values from the SOAP responses of DLNA renderers
+ */
+public class DLNAResponseParser {
+
+    private static final String TAG = DLNAResponseParser.class.getCanonicalName();
+
+    /**
+     * Find the text of the first element with a name
+     * @param response Response body, may be XML encoded
+     * @param key Name of the element
+     * @return {@link String}, empty when the element was not found
+     */
+    public static String parseData(String response, String key) {
+        if (isXmlEncoded(response)) {
+            response = XmlUtil.unescape(response);
+        }
+        try {
+            XmlPullParser parser = XmlUtil.newPullParser();
+            parser.setInput(new StringReader(response));
+            int event;
+            boolean isFound = false;
+            do {
+                event = parser.next();
+                if (event == XmlPullParser.START_TAG) {
+                    String tag = parser.getName();
+                    if (key.equals(tag)) {
+                        isFound = true;
+                    }
+                } else if (event == XmlPullParser.TEXT && isFound) {
+                    return parser.getText();
+                }
+            } while (event != XmlPullParser.END_DOCUMENT);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return "";
+    }
+
+    /**
+     * Convert a duration like TrackDuration or RelTime
+     * @param strTime Time in H+:MM:SS format
+     * @return Time in ms, 0 when it could not be parsed
+     */
+    public static long convertStrTimeFormatToLong(String strTime) {
+        long time = 0;
+        SimpleDateFormat df = new SimpleDateFormat("HH:mm:ss", Locale.ENGLISH);
+        try {
+            Date d = df.parse(strTime);
+            Date d2 = df.parse("00:00:00");
+            time = d.getTime() - d2.getTime();
+        } catch (ParseException e) {
+            Logger.w(TAG, "Invalid Time Format: " + strTime, e);
+        } catch (NullPointerException e) {
+            Logger.w(TAG, "Null time argument", e);
+        }
+
+        return time;
+    }
+
+    private static boolean isXmlEncoded(final String xml) {
+        if (xml == null || xml.length() < 4) {
+            return false;
+        }
+        return xml.trim().substring(0, 4).equals("&lt;");
+    }
+
+}
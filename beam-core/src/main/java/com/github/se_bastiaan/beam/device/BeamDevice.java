@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.device;
+
+import java.util.Locale;
+
+public abstract class BeamDevice {
+    protected String id;
+    protected String name;
+    protected String model;
+    protected Long lastDetection;
+    protected boolean connected = false;
+    protected boolean verified = true;
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setLastDetection(Long lastDetection) {
+        this.lastDetection = lastDetection;
+    }
+
+    public Long getLastDetection() {
+        return lastDetection;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+
+    /**
+     * @return false when the device was restored from a previous session and has not been discovered again yet
+     */
+    public boolean isVerified() {
+        return verified;
+    }
+
+    public void setVerified(boolean verified) {
+        this.verified = verified;
+    }
+
+    /**
+     * @return Address of the device on the local network or null when it is unknown, used to recognise a device that
+     * is discovered by more than one protocol
+     */
+    public String getHostAddress() {
+        return null;
+    }
+
+    /**
+     * @return MAC address in lower case without separators or null when it is unknown
+     */
+    public String getHardwareAddress() {
+        return null;
+    }
+
+    /**
+     * @return true when the device pushes playback status, false when the control client has to poll it
+     */
+    public boolean hasStatusEvents() {
+        return false;
+    }
+
+    /**
+     * Normalise a MAC address, e.g. from a TXT record
+     * @param address MAC address with or without separators
+     * @return Lower case MAC address without separators or null when it is not a MAC address
+     */
+    public static String normaliseHardwareAddress(String address) {
+        if (address == null) {
+            return null;
+        }
+
+        String normalised = address.replace(":", "").replace("-", "").toLowerCase(Locale.ENGLISH);
+        if (normalised.length() != 12) {
+            return null;
+        }
+        for (int i = 0; i < normalised.length(); i++) {
+            if (Character.digit(normalised.charAt(i), 16) == -1) {
+                return null;
+            }
+        }
+        return normalised;
+    }
+
+    /**
+     * @return Values that listeners show or connect with, an update that does not change them is not delivered
+     */
+    public String getSignature() {
+        return name + '\n' + model + '\n' + verified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(o instanceof BeamDevice) {
+            BeamDevice device = (BeamDevice) o;
+            return device.id.equals(this.id);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+}
\ No newline at end of file
@@ -62,4 +62,25 @@ public class DLNADevice extends BeamDevice {
         return port;
     }
 
+    @Override
+    public String getHostAddress() {
+        return ipAddress;
+    }
+
+    /**
+     * Many renderers end their UDN with the MAC address of the device, e.g. uuid:...-0000-0000-8c71f8aa1b2c
+     */
+    @Override
+    public String getHardwareAddress() {
+        if (id == null) {
+            return null;
+        }
+        return normaliseHardwareAddress(id.substring(id.lastIndexOf('-') + 1));
+    }
+
+    @Override
+    public String getSignature() {
+        return super.getSignature() + '\n' + ipAddress + ':' + port;
+    }
+
 }
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.device;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One physical device that was discovered by more than one protocol, e.g. a TV that is a DLNA renderer, a Google Cast
+ * receiver and an AirPlay receiver at the same time.
+ * <p/>
+ * The device remembers the latency of commands per protocol, {@link #getPreferredMembers()} puts the fastest protocol
+ * first so the control manager connects through it. A protocol that was never used is tried before the measured ones,
+ * otherwise the first protocol that was measured would win forever. The latencies are kept per member device id in a
+ * map that can outlive the unified device, see {@link com.github.se_bastiaan.beam.discovery.DeviceUnifier}.
+ */
+public class UnifiedDevice extends BeamDevice {
+
+    private static final String ID_PREFIX = "unified:";
+    private static final double LATENCY_WEIGHT = 0.3;
+
+    private final CopyOnWriteArrayList<BeamDevice> members = new CopyOnWriteArrayList<>();
+    private final Map<String, Double> latencies;
+
+    public UnifiedDevice(BeamDevice device) {
+        this(device, new ConcurrentHashMap<String, Double>());
+    }
+
+    /**
+     * @param device First member
+     * @param latencies Thread safe map of the average command latency by member device id, shared between devices
+     */
+    public UnifiedDevice(BeamDevice device, Map<String, Double> latencies) {
+        this.id = ID_PREFIX + device.getId();
+        this.members.add(device);
+        this.latencies = latencies;
+    }
+
+    /**
+     * @return Devices of every protocol the device was discovered by, in order of discovery
+     */
+    public List<BeamDevice> getMembers() {
+        return new ArrayList<>(members);
+    }
+
+    /**
+     * @param protocol {@link BeamDevice} class of the protocol
+     * @return Device of the protocol or null when the device was not discovered by it
+     */
+    public BeamDevice getMember(Class<? extends BeamDevice> protocol) {
+        for (BeamDevice member : members) {
+            if (member.getClass() == protocol) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Add a device, it replaces the device of the same protocol
+     * @param device {@link BeamDevice}
+     */
+    public void putMember(BeamDevice device) {
+        for (int i = 0; i < members.size(); i++) {
+            BeamDevice member = members.get(i);
+            if (member.equals(device) || member.getClass() == device.getClass()) {
+                members.set(i, device);
+                return;
+            }
+        }
+        members.add(device);
+    }
+
+    /**
+     * @param device {@link BeamDevice}
+     * @return true when the device was a member
+     */
+    public boolean removeMember(BeamDevice device) {
+        return members.remove(device);
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    /**
+     * Remember how long a command took over a protocol, older measurements weigh less
+     * @param protocol {@link BeamDevice} class of the protocol
+     * @param latency Time until the device reported the result of the command in ms
+     */
+    public void recordLatency(Class<? extends BeamDevice> protocol, long latency) {
+        BeamDevice member = getMember(protocol);
+        if (member == null) {
+            return;
+        }
+
+        Double average = latencies.get(member.getId());
+        latencies.put(member.getId(), average == null ? latency : average + LATENCY_WEIGHT * (latency - average));
+    }
+
+    /**
+     * @param protocol {@link BeamDevice} class of the protocol
+     * @return Average latency of commands in ms or -1 when no command was sent over the protocol
+     */
+    public double getLatency(Class<? extends BeamDevice> protocol) {
+        BeamDevice member = getMember(protocol);
+        Double average = member != null ? latencies.get(member.getId()) : null;
+        return average == null ? -1 : average;
+    }
+
+    /**
+     * @return Members ordered by the lowest command latency, protocols without a measurement first. Protocols that push
+     * their status go first when the latency is not known or equal
+     */
+    public List<BeamDevice> getPreferredMembers() {
+        List<BeamDevice> preferred = getMembers();
+        Collections.sort(preferred, new Comparator<BeamDevice>() {
+            @Override
+            public int compare(BeamDevice a, BeamDevice b) {
+                double latencyA = getLatency(a.getClass());
+                double latencyB = getLatency(b.getClass());
+                if (latencyA != latencyB) {
+                    if (latencyA == -1) {
+                        return -1;
+                    }
+                    if (latencyB == -1) {
+                        return 1;
+                    }
+                    return latencyA < latencyB ? -1 : 1;
+                }
+                if (a.hasStatusEvents() != b.hasStatusEvents()) {
+                    return a.hasStatusEvents() ? -1 : 1;
+                }
+                return 0;
+            }
+        });
+        return preferred;
+    }
+
+    @Override
+    public String getName() {
+        BeamDevice first = first();
+        return first != null ? first.getName() : name;
+    }
+
+    @Override
+    public void setName(String name) {
+        BeamDevice first = first();
+        if (first != null) {
+            first.setName(name);
+        }
+    }
+
+    @Override
+    public String getModel() {
+        BeamDevice first = first();
+        return first != null ? first.getModel() : model;
+    }
+
+    @Override
+    public Long getLastDetection() {
+        Long lastDetection = null;
+        for (BeamDevice member : members) {
+            Long memberDetection = member.getLastDetection();
+            if (memberDetection != null && (lastDetection == null || memberDetection > lastDetection)) {
+                lastDetection = memberDetection;
+            }
+        }
+        return lastDetection;
+    }
+
+    @Override
+    public boolean isVerified() {
+        for (BeamDevice member : members) {
+            if (member.isVerified()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String getHostAddress() {
+        for (BeamDevice member : members) {
+            if (member.getHostAddress() != null) {
+                return member.getHostAddress();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getHardwareAddress() {
+        for (BeamDevice member : members) {
+            if (member.getHardwareAddress() != null) {
+                return member.getHardwareAddress();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasStatusEvents() {
+        for (BeamDevice member : members) {
+            if (member.hasStatusEvents()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String getSignature() {
+        StringBuilder signature = new StringBuilder(super.getSignature());
+        for (BeamDevice member : members) {
+            signature.append('\n').append(member.getSignature());
+        }
+        return signature.toString();
+    }
+
+    private BeamDevice first() {
+        for (BeamDevice member : members) {
+            return member;
+        }
+        return null;
+    }
+
+}
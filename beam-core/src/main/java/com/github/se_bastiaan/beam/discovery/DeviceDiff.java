@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.device.BeamDevice;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Changes to the set of discovered devices over one batch window
+ */
+public class DeviceDiff {
+
+    private final List<BeamDevice> added;
+    private final List<BeamDevice> changed;
+    private final List<BeamDevice> removed;
+
+    DeviceDiff(List<BeamDevice> added, List<BeamDevice> changed, List<BeamDevice> removed) {
+        this.added = Collections.unmodifiableList(added);
+        this.changed = Collections.unmodifiableList(changed);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * @return Devices that were not known to the listeners before
+     */
+    public List<BeamDevice> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return Known devices of which the {@link BeamDevice#getSignature()} changed
+     */
+    public List<BeamDevice> getChanged() {
+        return changed;
+    }
+
+    public List<BeamDevice> getRemoved() {
+        return removed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+}
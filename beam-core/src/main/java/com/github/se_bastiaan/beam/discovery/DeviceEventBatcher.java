@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.device.BeamDevice;
+import com.github.se_bastiaan.beam.util.BeamScheduler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects device changes over a short window and turns them into a single {@link DeviceDiff}.
+ * <p/>
+ * Only the last change of a device within a window counts: a device that is added and removed again is never
+ * delivered, and an update that leaves {@link BeamDevice#getSignature()} the same as what was delivered before is
+ * dropped. The diff is delivered on a {@link BeamScheduler} thread.
+ * <p/>
+ * Deliveries never overlap: a batch is drained and handed to the callback while holding the delivery lock, so a slow
+ * callback delays the next batch instead of racing it. {@link #deliver(Runnable)} runs other deliveries in that order.
+ */
+class DeviceEventBatcher {
+
+    static final long BATCH_WINDOW = 250;
+
+    private final long window;
+    private final Callback callback;
+
+    private final Map<String, Change> pending = new LinkedHashMap<>();
+    private final Map<String, Published> published = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    private final Object deliveryLock = new Object();
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    DeviceEventBatcher(Callback callback) {
+        this(BATCH_WINDOW, callback);
+    }
+
+    DeviceEventBatcher(long window, Callback callback) {
+        this.window = window;
+        this.callback = callback;
+    }
+
+    /**
+     * The device was found or updated
+     * @param device {@link BeamDevice}
+     */
+    synchronized void put(BeamDevice device) {
+        pending.put(device.getId(), new Change(device, false));
+        scheduleFlush();
+    }
+
+    /**
+     * The device is gone
+     * @param device {@link BeamDevice}
+     */
+    synchronized void remove(BeamDevice device) {
+        pending.put(device.getId(), new Change(device, true));
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            BeamScheduler.getInstance().schedule(flushRunnable, window, BeamScheduler.PRIORITY_HIGH);
+        }
+    }
+
+    /**
+     * Deliver the pending changes now
+     */
+    void flush() {
+        synchronized (deliveryLock) {
+            DeviceDiff diff = drain();
+            if (!diff.isEmpty()) {
+                callback.onBatch(diff);
+            }
+        }
+    }
+
+    /**
+     * Run a delivery that is not a batch, e.g. replacing all devices, in order with the batches
+     * @param delivery Runs on the calling thread once no batch is being delivered
+     */
+    void deliver(Runnable delivery) {
+        synchronized (deliveryLock) {
+            delivery.run();
+        }
+    }
+
+    private synchronized DeviceDiff drain() {
+        flushScheduled = false;
+
+        List<BeamDevice> added = new ArrayList<>();
+        List<BeamDevice> changed = new ArrayList<>();
+        List<BeamDevice> removed = new ArrayList<>();
+
+        for (Map.Entry<String, Change> entry : pending.entrySet()) {
+            String id = entry.getKey();
+            Change change = entry.getValue();
+            Published previous = published.get(id);
+
+            if (change.removed) {
+                if (previous != null) {
+                    published.remove(id);
+                    removed.add(previous.device);
+                }
+                continue;
+            }
+
+            String signature = change.device.getSignature();
+            if (previous == null) {
+                added.add(change.device);
+            } else if (previous.device != change.device || !previous.signature.equals(signature)) {
+                changed.add(change.device);
+            } else {
+                continue;
+            }
+            published.put(id, new Published(change.device, signature));
+        }
+
+        pending.clear();
+
+        return new DeviceDiff(added, changed, removed);
+    }
+
+    /**
+     * @return Devices as they were last delivered
+     */
+    synchronized List<BeamDevice> getPublished() {
+        List<BeamDevice> devices = new ArrayList<>(published.size());
+        for (Published entry : published.values()) {
+            devices.add(entry.device);
+        }
+        return devices;
+    }
+
+    interface Callback {
+        void onBatch(DeviceDiff diff);
+    }
+
+    private static class Change {
+        final BeamDevice device;
+        final boolean removed;
+
+        Change(BeamDevice device, boolean removed) {
+            this.device = device;
+            this.removed = removed;
+        }
+    }
+
+    private static class Published {
+        final BeamDevice device;
+        final String signature;
+
+        Published(BeamDevice device, String signature) {
+            this.device = device;
+            this.signature = signature;
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.device.BeamDevice;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of devices as it was after a batch of changes.
+ * <p/>
+ * A new snapshot with a higher version is published for every batch, readers keep the version they last handled and
+ * compare it with {@link #getVersion()}. The devices can be iterated by index without allocating anything. The
+ * {@link BeamDevice} objects themselves are shared with discovery, only the set of devices is fixed.
+ */
+public final class DeviceSnapshot {
+
+    public static final DeviceSnapshot EMPTY = new DeviceSnapshot(0, Collections.<BeamDevice>emptyList());
+
+    private final long version;
+    private final BeamDevice[] devices;
+    private final Map<String, BeamDevice> devicesById;
+
+    DeviceSnapshot(long version, Collection<? extends BeamDevice> devices) {
+        this.version = version;
+        this.devices = devices.toArray(new BeamDevice[devices.size()]);
+
+        Map<String, BeamDevice> devicesById = new HashMap<>(this.devices.length * 2);
+        for (BeamDevice device : this.devices) {
+            devicesById.put(device.getId(), device);
+        }
+        this.devicesById = Collections.unmodifiableMap(devicesById);
+    }
+
+    /**
+     * @return Version of the snapshot, it increases with every published snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param version Version of the snapshot the reader last handled
+     * @return true when this snapshot is newer
+     */
+    public boolean isNewerThan(long version) {
+        return this.version > version;
+    }
+
+    public int size() {
+        return devices.length;
+    }
+
+    public boolean isEmpty() {
+        return devices.length == 0;
+    }
+
+    /**
+     * @param index Index of the device, from 0 to {@link #size()}
+     * @return {@link BeamDevice}
+     */
+    public BeamDevice get(int index) {
+        return devices[index];
+    }
+
+    /**
+     * @param id {@link BeamDevice#getId()}
+     * @return {@link BeamDevice} or null when it is not in the snapshot
+     */
+    public BeamDevice getDevice(String id) {
+        return devicesById.get(id);
+    }
+
+    /**
+     * @return Unmodifiable map of the devices by id
+     */
+    public Map<String, BeamDevice> asMap() {
+        return devicesById;
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.device.BeamDevice;
+import com.github.se_bastiaan.beam.device.UnifiedDevice;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Merges the devices of different protocols that belong to the same physical device into one {@link UnifiedDevice}.
+ * <p/>
+ * Devices are the same when their hardware addresses match, e.g. the deviceid of an AirPlay receiver and the end of
+ * the UDN of a DLNA renderer, or when they have the same host address. Only devices of different protocols are
+ * merged, two devices of one protocol are always different devices.
+ * <p/>
+ * The command latencies of the {@link UnifiedDevice}s are kept by member device id, {@link #clear()} keeps them so a
+ * device is controlled through its fastest protocol again when it is found in a later session.
+ */
+public class DeviceUnifier {
+
+    private final Map<String, UnifiedDevice> unifiedDevices = new HashMap<>();
+    private final Map<String, UnifiedDevice> byMember = new HashMap<>();
+    private final ConcurrentHashMap<String, Double> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * Translate a batch of changes to the devices of every protocol into changes to the unified devices
+     * @param diff {@link DeviceDiff} of protocol devices
+     * @return {@link DeviceDiff} of {@link UnifiedDevice}s
+     */
+    public synchronized DeviceDiff apply(DeviceDiff diff) {
+        Set<BeamDevice> added = new LinkedHashSet<>();
+        Set<BeamDevice> changed = new LinkedHashSet<>();
+        List<BeamDevice> removed = new ArrayList<>();
+
+        for (BeamDevice device : diff.getRemoved()) {
+            UnifiedDevice unifiedDevice = byMember.remove(device.getId());
+            if (unifiedDevice == null || !unifiedDevice.removeMember(device)) {
+                continue;
+            }
+
+            if (unifiedDevice.isEmpty()) {
+                unifiedDevices.remove(unifiedDevice.getId());
+                if (!added.remove(unifiedDevice)) {
+                    removed.add(unifiedDevice);
+                }
+                changed.remove(unifiedDevice);
+            } else if (!added.contains(unifiedDevice)) {
+                changed.add(unifiedDevice);
+            }
+        }
+
+        List<BeamDevice> updated = new ArrayList<>(diff.getAdded());
+        updated.addAll(diff.getChanged());
+        for (BeamDevice device : updated) {
+            UnifiedDevice unifiedDevice = byMember.get(device.getId());
+            if (unifiedDevice == null) {
+                unifiedDevice = find(device);
+            }
+
+            if (unifiedDevice == null) {
+                unifiedDevice = new UnifiedDevice(device, latencies);
+                unifiedDevices.put(unifiedDevice.getId(), unifiedDevice);
+                added.add(unifiedDevice);
+            } else {
+                unifiedDevice.putMember(device);
+                if (!added.contains(unifiedDevice)) {
+                    changed.add(unifiedDevice);
+                }
+            }
+            byMember.put(device.getId(), unifiedDevice);
+        }
+
+        return new DeviceDiff(new ArrayList<>(added), new ArrayList<>(changed), removed);
+    }
+
+    /**
+     * @return Every unified device
+     */
+    public synchronized List<UnifiedDevice> getDevices() {
+        return new ArrayList<>(unifiedDevices.values());
+    }
+
+    /**
+     * @param device {@link BeamDevice} of any protocol
+     * @return {@link UnifiedDevice} the device belongs to or null when it is unknown
+     */
+    public synchronized UnifiedDevice getUnifiedDevice(BeamDevice device) {
+        return byMember.get(device.getId());
+    }
+
+    /**
+     * Forget the unified devices, the command latencies of their members are kept
+     */
+    public synchronized void clear() {
+        unifiedDevices.clear();
+        byMember.clear();
+    }
+
+    private UnifiedDevice find(BeamDevice device) {
+        String hardwareAddress = device.getHardwareAddress();
+        String hostAddress = device.getHostAddress();
+        if (hardwareAddress == null && hostAddress == null) {
+            return null;
+        }
+
+        UnifiedDevice byHost = null;
+        for (UnifiedDevice unifiedDevice : unifiedDevices.values()) {
+            if (unifiedDevice.getMember(device.getClass()) != null) {
+                continue;
+            }
+
+            for (BeamDevice member : unifiedDevice.getMembers()) {
+                if (hardwareAddress != null && hardwareAddress.equals(member.getHardwareAddress())) {
+                    return unifiedDevice;
+                }
+                if (byHost == null && hostAddress != null && hostAddress.equals(member.getHostAddress())) {
+                    byHost = unifiedDevice;
+                }
+            }
+        }
+        return byHost;
+    }
+
+}
@@ -16,6 +16,8 @@
 
 package com.github.se_bastiaan.beam.discovery;
 
+import java.util.List;
+
 public interface DiscoveryClient {
     int RESCAN_INTERVAL = 10000;
     int RESCAN_ATTEMPTS = 6;
@@ -41,15 +43,39 @@ public interface DiscoveryClient {
      */
     void rescan();
 
+    /**
+     * Sends a single discovery query without changing the search schedule, e.g. in the search windows of
+     * {@link DiscoveryPowerMode#LOW_POWER}. Clients that keep querying by themselves do nothing.
+     */
+    void searchOnce();
+
     /**
      * Resets the DiscoveryProvider.
      */
     void reset();
 
+    /**
+     * Checks the devices found before after reconnecting to the same network. Every known device is checked with a
+     * unicast request, the ones that do not respond are reported as removed. Does not start the client, that is left
+     * to {@link #start()}.
+     */
+    void revalidate();
+
     /** Adds a DiscoveryProviderListener, which should be the DiscoveryManager */
     void addListener(DiscoveryClientListener listener);
 
     /** Removes a DiscoveryProviderListener. */
     void removeListener(DiscoveryClientListener listener);
 
+    /**
+     * Only report devices that match at least one of the filters, applies to devices found from now on
+     * @param filters {@link DiscoveryFilter}s, empty to report every device
+     */
+    void setFilters(List<DiscoveryFilter> filters);
+
+    /**
+     * @param mode {@link DiscoveryPowerMode}, in {@link DiscoveryPowerMode#PASSIVE} no searches are sent
+     */
+    void setPowerMode(DiscoveryPowerMode mode);
+
 }
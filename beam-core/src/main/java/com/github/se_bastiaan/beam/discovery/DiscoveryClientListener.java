@@ -18,6 +18,9 @@ package com.github.se_bastiaan.beam.discovery;
 
 import com.github.se_bastiaan.beam.device.BeamDevice;
 
+/**
+ * Callbacks of a {@link DiscoveryClient}, they can be called on any thread
+ */
 public interface DiscoveryClientListener {
 
     void onDeviceAdded(DiscoveryClient client, BeamDevice device);
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.util.BeamScheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Starts a {@link DiscoveryClient} on a {@link BeamScheduler} worker. Opening sockets and joining multicast groups
+ * takes a while, clients are started side by side and never on the main thread.
+ * <p/>
+ * The startup is a {@link java.util.concurrent.Future} that completes with the client once {@link DiscoveryClient#start()}
+ * returned, or with the exception it threw. It can only be cancelled before it runs, a client that is already starting
+ * is left to finish so {@link Callback#onReady(DiscoveryClientStartup, Throwable)} is still called for it.
+ */
+public class DiscoveryClientStartup extends FutureTask<DiscoveryClient> {
+
+    private final DiscoveryClient client;
+    private final Callback callback;
+    // Taken by whichever comes first, running the startup or cancelling it
+    private final AtomicBoolean claimed;
+    private final long createdTime = System.nanoTime();
+    private volatile long readyTime = -1;
+
+    DiscoveryClientStartup(DiscoveryClient client, Callback callback) {
+        this(client, callback, new AtomicBoolean(false));
+    }
+
+    private DiscoveryClientStartup(final DiscoveryClient client, Callback callback, final AtomicBoolean claimed) {
+        super(new Callable<DiscoveryClient>() {
+            @Override
+            public DiscoveryClient call() throws Exception {
+                if (!claimed.compareAndSet(false, true)) {
+                    throw new CancellationException();
+                }
+                client.start();
+                return client;
+            }
+        });
+        this.client = client;
+        this.callback = callback;
+        this.claimed = claimed;
+    }
+
+    /**
+     * Start every client on its own worker
+     * @param clients {@link DiscoveryClient}s
+     * @param callback {@link Callback} called when a client is ready, can be null
+     * @return {@link DiscoveryClientStartup} of every client, in the same order
+     */
+    public static List<DiscoveryClientStartup> startAll(Collection<DiscoveryClient> clients, Callback callback) {
+        List<DiscoveryClientStartup> startups = new ArrayList<>(clients.size());
+        for (DiscoveryClient client : clients) {
+            DiscoveryClientStartup startup = new DiscoveryClientStartup(client, callback);
+            startups.add(startup);
+            BeamScheduler.getInstance().execute(startup, BeamScheduler.PRIORITY_HIGH);
+        }
+        return startups;
+    }
+
+    public DiscoveryClient getClient() {
+        return client;
+    }
+
+    /**
+     * @return Time in ms from scheduling the startup until the client was started, -1 while it is still starting
+     */
+    public double getStartupTime() {
+        long ready = readyTime;
+        return ready == -1 ? -1 : TimeUnit.NANOSECONDS.toMicros(ready - createdTime) / 1000d;
+    }
+
+    /**
+     * @return false when the startup already runs or finished, the client is then started anyway
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return claimed.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    protected void done() {
+        readyTime = System.nanoTime();
+        if (callback == null || isCancelled()) {
+            return;
+        }
+
+        Throwable error = null;
+        try {
+            get();
+        } catch (Exception e) {
+            error = e.getCause() != null ? e.getCause() : e;
+        }
+
+        if (error instanceof CancellationException) {
+            // Cancelled right as it was about to run, the client was not started
+            return;
+        }
+        callback.onReady(this, error);
+    }
+
+    public interface Callback {
+
+        /**
+         * @param startup {@link DiscoveryClientStartup} that finished
+         * @param error Exception thrown by {@link DiscoveryClient#start()} or null when the client started
+         */
+        void onReady(DiscoveryClientStartup startup, Throwable error);
+
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The last {@link DiscoveryClientStartup} of every client class during a discovery session.
+ * <p/>
+ * Clients are only started between {@link #open()} and {@link #close()}. Closing cancels the startups that did not
+ * run yet, a startup that is already running stops its client once start() returned. A start that races with the end
+ * of the session, e.g. a reconnect while discovery is stopped, can not leave a client running.
+ */
+public class DiscoveryClientStartups {
+
+    private final ConcurrentHashMap<Class<? extends DiscoveryClient>, DiscoveryClientStartup> startups = new ConcurrentHashMap<>();
+    private final DiscoveryClientStartup.Callback callback;
+    private volatile boolean open = false;
+
+    /**
+     * @param callback {@link DiscoveryClientStartup.Callback} called when a client is ready, can be null
+     */
+    public DiscoveryClientStartups(DiscoveryClientStartup.Callback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Begin a session, clients can be started until {@link #close()}
+     */
+    public synchronized void open() {
+        open = true;
+    }
+
+    /**
+     * End the session. Startups that did not run yet are cancelled, running ones stop their client when they are done.
+     * The caller still stops the clients that were started before.
+     */
+    public synchronized void close() {
+        open = false;
+        cancel();
+    }
+
+    /**
+     * Start every client on its own worker, see {@link DiscoveryClientStartup#startAll(Collection, DiscoveryClientStartup.Callback)}
+     * @param clients {@link DiscoveryClient}s
+     * @return false when the session is closed, no client was started
+     */
+    public synchronized boolean startAll(Collection<DiscoveryClient> clients) {
+        if (!open) {
+            return false;
+        }
+
+        for (DiscoveryClientStartup startup : DiscoveryClientStartup.startAll(clients, sessionCallback)) {
+            startups.put(startup.getClient().getClass(), startup);
+        }
+        return true;
+    }
+
+    /**
+     * Cancel the startups that did not run yet, e.g. before the clients are stopped or reset
+     */
+    public void cancel() {
+        for (DiscoveryClientStartup startup : startups.values()) {
+            startup.cancel(false);
+        }
+    }
+
+    /**
+     * @param discoveryClass Class of a {@link DiscoveryClient}
+     * @return Last startup of the client, null when it was not started
+     */
+    public DiscoveryClientStartup get(Class<? extends DiscoveryClient> discoveryClass) {
+        return startups.get(discoveryClass);
+    }
+
+    public void remove(Class<? extends DiscoveryClient> discoveryClass) {
+        startups.remove(discoveryClass);
+    }
+
+    private final DiscoveryClientStartup.Callback sessionCallback = new DiscoveryClientStartup.Callback() {
+        @Override
+        public void onReady(DiscoveryClientStartup startup, Throwable error) {
+            if (error == null && !open) {
+                // The session was closed while the client was starting
+                startup.getClient().stop();
+            }
+
+            if (callback != null) {
+                callback.onReady(startup, error);
+            }
+        }
+    };
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.device.BeamDevice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Describes devices an app is interested in. A device is reported when it matches at least one filter, without
+ * filters every device is reported.
+ * <p/>
+ * Filters are handed to every {@link DiscoveryClient}, which checks them as early as it can: a protocol that no
+ * filter accepts is not searched at all, SSDP device types are checked on the headers of a packet and AirPlay and
+ * Google Cast models on their TXT record or route. Criteria a protocol does not provide, e.g. the manufacturer of an
+ * AirPlay device, are ignored for that protocol.
+ */
+public class DiscoveryFilter {
+
+    private final Set<Class<? extends BeamDevice>> protocols;
+    private final String deviceType;
+    private final Pattern manufacturer;
+    private final Pattern model;
+    private final List<String> requiredServices;
+
+    private DiscoveryFilter(Builder builder) {
+        protocols = Collections.unmodifiableSet(new HashSet<>(builder.protocols));
+        deviceType = builder.deviceType;
+        manufacturer = builder.manufacturer;
+        model = builder.model;
+        requiredServices = Collections.unmodifiableList(new ArrayList<>(builder.requiredServices));
+    }
+
+    /**
+     * @param protocol {@link BeamDevice} class of a protocol
+     * @return true when devices of this protocol can match
+     */
+    public boolean matchesProtocol(Class<? extends BeamDevice> protocol) {
+        return protocols.isEmpty() || protocols.contains(protocol);
+    }
+
+    /**
+     * Check what is known about a device so far, a null value is not known (yet) and does not reject the device
+     * @param protocol {@link BeamDevice} class of the protocol
+     * @param deviceType UPnP device type
+     * @param manufacturer Manufacturer name
+     * @param model Model name
+     * @param serviceTypes UPnP service types the device offers
+     * @return false when the device can not match anymore
+     */
+    public boolean matches(Class<? extends BeamDevice> protocol, String deviceType, String manufacturer, String model,
+                           Collection<String> serviceTypes) {
+        if (!matchesProtocol(protocol)) {
+            return false;
+        }
+
+        if (this.deviceType != null && deviceType != null && !matchesDeviceType(deviceType)) {
+            return false;
+        }
+
+        if (this.manufacturer != null && manufacturer != null && !this.manufacturer.matcher(manufacturer).find()) {
+            return false;
+        }
+
+        if (this.model != null && model != null && !this.model.matcher(model).find()) {
+            return false;
+        }
+
+        if (serviceTypes != null) {
+            for (String required : requiredServices) {
+                if (!containsIgnoreCase(serviceTypes, required)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Device types match without regard to case, a filter without a version matches every version
+     */
+    private boolean matchesDeviceType(String deviceType) {
+        if (deviceType.equalsIgnoreCase(this.deviceType)) {
+            return true;
+        }
+        return deviceType.toLowerCase(Locale.US).startsWith(this.deviceType.toLowerCase(Locale.US) + ":");
+    }
+
+    private static boolean containsIgnoreCase(Collection<String> values, String value) {
+        for (String item : values) {
+            if (value.equalsIgnoreCase(item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<Class<? extends BeamDevice>> getProtocols() {
+        return protocols;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public Pattern getManufacturer() {
+        return manufacturer;
+    }
+
+    public Pattern getModel() {
+        return model;
+    }
+
+    public List<String> getRequiredServices() {
+        return requiredServices;
+    }
+
+    /**
+     * @param filters Filters, a device matches when one of them matches
+     * @param protocol {@link BeamDevice} class of a protocol
+     * @return true when there are no filters, or one of them accepts the protocol
+     */
+    public static boolean matchesProtocol(List<DiscoveryFilter> filters, Class<? extends BeamDevice> protocol) {
+        if (filters.isEmpty()) {
+            return true;
+        }
+
+        for (DiscoveryFilter filter : filters) {
+            if (filter.matchesProtocol(protocol)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param filters Filters, a device matches when one of them matches
+     * @return true when there are no filters, or one of them matches, see {@link #matches(Class, String, String, String, Collection)}
+     */
+    public static boolean matches(List<DiscoveryFilter> filters, Class<? extends BeamDevice> protocol, String deviceType,
+                                  String manufacturer, String model, Collection<String> serviceTypes) {
+        if (filters.isEmpty()) {
+            return true;
+        }
+
+        for (DiscoveryFilter filter : filters) {
+            if (filter.matches(protocol, deviceType, manufacturer, model, serviceTypes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class Builder {
+        private Set<Class<? extends BeamDevice>> protocols = new HashSet<>();
+        private String deviceType;
+        private Pattern manufacturer;
+        private Pattern model;
+        private List<String> requiredServices = new ArrayList<>();
+
+        /**
+         * Only match devices of this protocol, can be called more than once
+         * @param protocol {@link BeamDevice} class, e.g. {@link com.github.se_bastiaan.beam.device.DLNADevice}
+         */
+        public Builder protocol(Class<? extends BeamDevice> protocol) {
+            protocols.add(protocol);
+            return this;
+        }
+
+        /**
+         * @param deviceType UPnP device type, e.g. urn:schemas-upnp-org:device:MediaRenderer
+         */
+        public Builder deviceType(String deviceType) {
+            this.deviceType = deviceType;
+            return this;
+        }
+
+        /**
+         * @param regex Pattern that is searched for in the manufacturer name, case insensitive
+         */
+        public Builder manufacturer(String regex) {
+            this.manufacturer = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            return this;
+        }
+
+        /**
+         * @param regex Pattern that is searched for in the model name, case insensitive
+         */
+        public Builder model(String regex) {
+            this.model = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            return this;
+        }
+
+        /**
+         * Only match devices that offer this UPnP service, can be called more than once
+         * @param serviceType UPnP service type, e.g. urn:schemas-upnp-org:service:AVTransport:1
+         */
+        public Builder requireService(String serviceType) {
+            requiredServices.add(serviceType);
+            return this;
+        }
+
+        public DiscoveryFilter build() {
+            return new DiscoveryFilter(this);
+        }
+    }
+
+}
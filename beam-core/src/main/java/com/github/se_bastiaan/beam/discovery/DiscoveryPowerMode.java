@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery;
+
+/**
+ * How much power discovery may use. Every mode has a budget that {@link DiscoveryPowerStats} measures against.
+ */
+public enum DiscoveryPowerMode {
+
+    /**
+     * The multicast lock is held all the time and devices are searched for actively
+     */
+    NORMAL(1, Double.MAX_VALUE, Double.MAX_VALUE),
+
+    /**
+     * The multicast lock is only held during short search windows. In between, devices answer searches by unicast
+     * and known devices are kept until their lease runs out.
+     */
+    LOW_POWER(0.1, 20, 0.01),
+
+    /**
+     * Nothing is sent, devices are only found by their NOTIFY announcements. Meant for sessions of hours.
+     */
+    PASSIVE(1, 6, 0.005);
+
+    private final double maxLockRatio;
+    private final double maxWakeupsPerMinute;
+    private final double maxCpuRatio;
+
+    DiscoveryPowerMode(double maxLockRatio, double maxWakeupsPerMinute, double maxCpuRatio) {
+        this.maxLockRatio = maxLockRatio;
+        this.maxWakeupsPerMinute = maxWakeupsPerMinute;
+        this.maxCpuRatio = maxCpuRatio;
+    }
+
+    /**
+     * @return Part of the time the multicast lock may be held
+     */
+    public double getMaxLockRatio() {
+        return maxLockRatio;
+    }
+
+    /**
+     * @return Number of scheduler tasks per minute discovery may wake up for
+     */
+    public double getMaxWakeupsPerMinute() {
+        return maxWakeupsPerMinute;
+    }
+
+    /**
+     * @return Part of the wall clock time the process may spend on the CPU
+     */
+    public double getMaxCpuRatio() {
+        return maxCpuRatio;
+    }
+
+}
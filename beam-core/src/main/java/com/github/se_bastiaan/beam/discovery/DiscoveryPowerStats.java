@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.platform.Platform;
+import com.github.se_bastiaan.beam.util.BeamScheduler;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Power used by discovery since it started in its current {@link DiscoveryPowerMode}: how long the multicast lock was
+ * held, how often the {@link BeamScheduler} woke up for a task and how much CPU time the process used.
+ * <p/>
+ * Wakeups and CPU time are measured for the whole process, other work like polling a connected device counts as well.
+ */
+public class DiscoveryPowerStats {
+
+    private final Platform platform;
+
+    private DiscoveryPowerMode mode = DiscoveryPowerMode.NORMAL;
+    private long startTime = -1;
+    private long startCpuTime;
+    private long startWakeups;
+
+    private long lockAcquiredTime = -1;
+    private long lockTime;
+    private int lockAcquisitions;
+
+    /**
+     * @param platform {@link Platform} that measures the CPU time
+     */
+    public DiscoveryPowerStats(Platform platform) {
+        this.platform = platform;
+    }
+
+    /**
+     * Start measuring from zero
+     * @param mode {@link DiscoveryPowerMode} discovery runs in
+     */
+    public synchronized void start(DiscoveryPowerMode mode) {
+        this.mode = mode;
+        startTime = now();
+        startCpuTime = platform.getCpuTime();
+        startWakeups = BeamScheduler.getInstance().getExecutedCount();
+        lockTime = 0;
+        lockAcquisitions = 0;
+        if (lockAcquiredTime != -1) {
+            lockAcquiredTime = startTime;
+        }
+    }
+
+    public synchronized void onLockAcquired() {
+        if (lockAcquiredTime == -1) {
+            lockAcquiredTime = now();
+            lockAcquisitions++;
+        }
+    }
+
+    public synchronized void onLockReleased() {
+        if (lockAcquiredTime != -1) {
+            lockTime += now() - lockAcquiredTime;
+            lockAcquiredTime = -1;
+        }
+    }
+
+    public synchronized DiscoveryPowerMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return Time in ms since the measurement started
+     */
+    public synchronized long getElapsedTime() {
+        return startTime == -1 ? 0 : now() - startTime;
+    }
+
+    /**
+     * @return Time in ms the multicast lock was held
+     */
+    public synchronized long getLockTime() {
+        return lockTime + (lockAcquiredTime == -1 ? 0 : now() - lockAcquiredTime);
+    }
+
+    public synchronized int getLockAcquisitions() {
+        return lockAcquisitions;
+    }
+
+    public synchronized double getLockRatio() {
+        long elapsed = getElapsedTime();
+        return elapsed == 0 ? 0 : (double) getLockTime() / elapsed;
+    }
+
+    /**
+     * @return Number of tasks the {@link BeamScheduler} ran
+     */
+    public synchronized long getWakeups() {
+        return startTime == -1 ? 0 : BeamScheduler.getInstance().getExecutedCount() - startWakeups;
+    }
+
+    public synchronized double getWakeupsPerMinute() {
+        long elapsed = getElapsedTime();
+        return elapsed == 0 ? 0 : getWakeups() * (double) TimeUnit.MINUTES.toMillis(1) / elapsed;
+    }
+
+    /**
+     * @return CPU time in ms the process used or -1 when the platform can not measure it
+     */
+    public synchronized long getCpuTime() {
+        long cpuTime = platform.getCpuTime();
+        return startTime == -1 || cpuTime == -1 || startCpuTime == -1 ? -1 : cpuTime - startCpuTime;
+    }
+
+    public synchronized double getCpuRatio() {
+        long elapsed = getElapsedTime();
+        long cpuTime = getCpuTime();
+        return elapsed == 0 || cpuTime == -1 ? 0 : (double) cpuTime / elapsed;
+    }
+
+    /**
+     * @return false when the lock, wakeups or CPU time exceed the budget of the {@link DiscoveryPowerMode}
+     */
+    public synchronized boolean isWithinBudget() {
+        return getLockRatio() <= mode.getMaxLockRatio()
+                && getWakeupsPerMinute() <= mode.getMaxWakeupsPerMinute()
+                && getCpuRatio() <= mode.getMaxCpuRatio();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ENGLISH,
+                "%s for %d s: multicast lock %.1f%% (%d times), %.1f wakeups/min, cpu %.2f%%, %s budget",
+                mode, TimeUnit.MILLISECONDS.toSeconds(getElapsedTime()), getLockRatio() * 100, getLockAcquisitions(),
+                getWakeupsPerMinute(), getCpuRatio() * 100, isWithinBudget() ? "within" : "over");
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.device.BeamDevice;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing of discovery for every protocol and every device, to find out where a slow device picker loses its time.
+ * <p/>
+ * Discovery clients report when they start, when the first packet of a device arrives and when the device has been
+ * resolved, e.g. when its description is parsed. The {@link DiscoveryManager} reports when a device is delivered to
+ * the listeners. A protocol is identified by its {@link BeamDevice} class, as in {@link DiscoveryFilter}.
+ * <p/>
+ * The timings of a protocol start over every time its client starts. Per protocol the timings of the last
+ * {@link #MAX_DEVICES} devices are kept.
+ */
+public class DiscoveryStats {
+
+    static final int MAX_DEVICES = 256;
+
+    private static DiscoveryStats instance;
+
+    private final ConcurrentHashMap<Class<? extends BeamDevice>, ProtocolStats> protocols = new ConcurrentHashMap<>();
+
+    public static synchronized DiscoveryStats getInstance() {
+        if (instance == null) {
+            instance = new DiscoveryStats();
+        }
+        return instance;
+    }
+
+    DiscoveryStats() {
+    }
+
+    /**
+     * A discovery client started searching, the timings of its protocol start over
+     * @param protocol {@link BeamDevice} class of the protocol
+     */
+    public void onStarted(Class<? extends BeamDevice> protocol) {
+        getStats(protocol).start(System.nanoTime());
+    }
+
+    /**
+     * The first packet of a device was received, later calls for the same device are ignored
+     * @param protocol {@link BeamDevice} class of the protocol
+     * @param key Key of the device within the client, e.g. the UUID or service name
+     */
+    public void onPacket(Class<? extends BeamDevice> protocol, String key) {
+        getStats(protocol).packet(key, System.nanoTime());
+    }
+
+    /**
+     * A device has been resolved and can be reported, e.g. its description was parsed
+     * @param protocol {@link BeamDevice} class of the protocol
+     * @param key Key the first packet was reported with
+     * @param deviceId {@link BeamDevice#getId()} of the device
+     */
+    public void onResolved(Class<? extends BeamDevice> protocol, String key, String deviceId) {
+        getStats(protocol).resolved(key, deviceId, System.nanoTime());
+    }
+
+    /**
+     * A device was delivered to the listeners, only the first delivery after it was resolved is counted
+     * @param device {@link BeamDevice}
+     */
+    public void onNotified(BeamDevice device) {
+        ProtocolStats stats = protocols.get(device.getClass());
+        if (stats != null) {
+            stats.notified(device.getId(), System.nanoTime());
+        }
+    }
+
+    /**
+     * @param protocol {@link BeamDevice} class of the protocol
+     * @return {@link ProtocolStats}
+     */
+    public ProtocolStats getStats(Class<? extends BeamDevice> protocol) {
+        ProtocolStats stats = protocols.get(protocol);
+        if (stats == null) {
+            ProtocolStats newStats = new ProtocolStats(protocol);
+            stats = protocols.putIfAbsent(protocol, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @return {@link ProtocolStats} of every protocol that reported anything
+     */
+    public List<ProtocolStats> getAll() {
+        return new ArrayList<>(protocols.values());
+    }
+
+    public void reset() {
+        protocols.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("DiscoveryStats");
+        for (ProtocolStats stats : protocols.values()) {
+            builder.append("\n  ").append(stats);
+        }
+        return builder.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMicros(nanos) / 1000d;
+    }
+
+    /**
+     * Timings of a single protocol, all durations are in ms and -1 when they are not known (yet)
+     */
+    public static class ProtocolStats {
+
+        private final Class<? extends BeamDevice> protocol;
+
+        private long startTime = -1;
+        private long firstPacketTime = -1;
+        private long firstNotifiedTime = -1;
+
+        private final Map<String, DeviceTiming> devices = new LinkedHashMap<String, DeviceTiming>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DeviceTiming> eldest) {
+                if (size() > MAX_DEVICES) {
+                    devicesById.remove(eldest.getValue().deviceId);
+                    return true;
+                }
+                return false;
+            }
+        };
+        private final Map<String, DeviceTiming> devicesById = new HashMap<>();
+
+        private final Phase packetToResolved = new Phase();
+        private final Phase resolvedToNotified = new Phase();
+        private final Phase startToNotified = new Phase();
+
+        ProtocolStats(Class<? extends BeamDevice> protocol) {
+            this.protocol = protocol;
+        }
+
+        synchronized void start(long now) {
+            startTime = now;
+            firstPacketTime = -1;
+            firstNotifiedTime = -1;
+            devices.clear();
+            devicesById.clear();
+            packetToResolved.clear();
+            resolvedToNotified.clear();
+            startToNotified.clear();
+        }
+
+        synchronized void packet(String key, long now) {
+            if (firstPacketTime == -1) {
+                firstPacketTime = now;
+            }
+            if (!devices.containsKey(key)) {
+                devices.put(key, new DeviceTiming(key, now));
+            }
+        }
+
+        synchronized void resolved(String key, String deviceId, long now) {
+            DeviceTiming timing = devices.get(key);
+            if (timing == null || timing.resolvedTime != -1) {
+                return;
+            }
+
+            timing.deviceId = deviceId;
+            timing.resolvedTime = now;
+            devicesById.put(deviceId, timing);
+            packetToResolved.add(now - timing.packetTime);
+        }
+
+        synchronized void notified(String deviceId, long now) {
+            DeviceTiming timing = devicesById.get(deviceId);
+            if (timing == null || timing.notifiedTime != -1) {
+                return;
+            }
+
+            timing.notifiedTime = now;
+            resolvedToNotified.add(now - timing.resolvedTime);
+            if (startTime != -1) {
+                startToNotified.add(now - startTime);
+                if (firstNotifiedTime == -1) {
+                    firstNotifiedTime = now;
+                }
+            }
+        }
+
+        public Class<? extends BeamDevice> getProtocol() {
+            return protocol;
+        }
+
+        /**
+         * @return Time from the start of the client to the first packet of any device
+         */
+        public synchronized double getStartToFirstPacket() {
+            return startTime == -1 || firstPacketTime == -1 ? -1 : toMillis(firstPacketTime - startTime);
+        }
+
+        /**
+         * @return Time from the start of the client until the first device was delivered to the listeners
+         */
+        public synchronized double getTimeToFirstDevice() {
+            return startTime == -1 || firstNotifiedTime == -1 ? -1 : toMillis(firstNotifiedTime - startTime);
+        }
+
+        /**
+         * @return Average time from the first packet of a device until it was resolved
+         */
+        public synchronized double getAveragePacketToResolved() {
+            return packetToResolved.average();
+        }
+
+        public synchronized double getMaxPacketToResolved() {
+            return packetToResolved.max();
+        }
+
+        /**
+         * @return Average time from the resolution of a device until it was delivered to the listeners
+         */
+        public synchronized double getAverageResolvedToNotified() {
+            return resolvedToNotified.average();
+        }
+
+        public synchronized double getMaxResolvedToNotified() {
+            return resolvedToNotified.max();
+        }
+
+        /**
+         * @return Average time from the start of the client until a device was delivered to the listeners
+         */
+        public synchronized double getAverageStartToNotified() {
+            return startToNotified.average();
+        }
+
+        /**
+         * @return Number of devices that were delivered to the listeners since the client started
+         */
+        public synchronized int getNotifiedCount() {
+            return startToNotified.count;
+        }
+
+        /**
+         * @return {@link DeviceTiming} of the devices seen since the client started, in order of their first packet
+         */
+        public synchronized List<DeviceTiming> getDevices() {
+            List<DeviceTiming> timings = new ArrayList<>(devices.size());
+            for (DeviceTiming timing : devices.values()) {
+                timings.add(timing.copy(startTime));
+            }
+            return timings;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format(Locale.ENGLISH,
+                    "%s: start to first packet %.1f ms, time to first device %.1f ms, %d devices, " +
+                            "packet to resolved avg %.1f ms max %.1f ms, resolved to notified avg %.1f ms max %.1f ms",
+                    protocol.getSimpleName(), getStartToFirstPacket(), getTimeToFirstDevice(), getNotifiedCount(),
+                    getAveragePacketToResolved(), getMaxPacketToResolved(),
+                    getAverageResolvedToNotified(), getMaxResolvedToNotified());
+        }
+    }
+
+    /**
+     * Timing of a single device, all durations are in ms and -1 when they are not known (yet)
+     */
+    public static class DeviceTiming {
+
+        private final String key;
+        private final long packetTime;
+        private String deviceId;
+        private long resolvedTime = -1;
+        private long notifiedTime = -1;
+        private long startTime = -1;
+
+        DeviceTiming(String key, long packetTime) {
+            this.key = key;
+            this.packetTime = packetTime;
+        }
+
+        DeviceTiming copy(long startTime) {
+            DeviceTiming copy = new DeviceTiming(key, packetTime);
+            copy.deviceId = deviceId;
+            copy.resolvedTime = resolvedTime;
+            copy.notifiedTime = notifiedTime;
+            copy.startTime = startTime;
+            return copy;
+        }
+
+        /**
+         * @return Key of the device within its discovery client
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return {@link BeamDevice#getId()}, null when the device was not resolved
+         */
+        public String getDeviceId() {
+            return deviceId;
+        }
+
+        public double getStartToPacket() {
+            return startTime == -1 ? -1 : toMillis(packetTime - startTime);
+        }
+
+        public double getPacketToResolved() {
+            return resolvedTime == -1 ? -1 : toMillis(resolvedTime - packetTime);
+        }
+
+        public double getResolvedToNotified() {
+            return notifiedTime == -1 ? -1 : toMillis(notifiedTime - resolvedTime);
+        }
+
+        public double getStartToNotified() {
+            return startTime == -1 || notifiedTime == -1 ? -1 : toMillis(notifiedTime - startTime);
+        }
+    }
+
+    private static class Phase {
+        int count;
+        long total;
+        long max;
+
+        void add(long duration) {
+            count++;
+            total += duration;
+            max = Math.max(max, duration);
+        }
+
+        void clear() {
+            count = 0;
+            total = 0;
+            max = 0;
+        }
+
+        double average() {
+            return count == 0 ? -1 : toMillis(total / count);
+        }
+
+        double max() {
+            return count == 0 ? -1 : toMillis(max);
+        }
+    }
+
+}
@@ -0,0 +1,738 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.client;
+
+import com.github.se_bastiaan.beam.device.DLNADevice;
+import com.github.se_bastiaan.beam.discovery.DiscoveryClient;
+import com.github.se_bastiaan.beam.discovery.DiscoveryClientListener;
+import com.github.se_bastiaan.beam.discovery.DiscoveryFilter;
+import com.github.se_bastiaan.beam.discovery.DiscoveryPowerMode;
+import com.github.se_bastiaan.beam.discovery.DiscoveryStats;
+import com.github.se_bastiaan.beam.discovery.ssdp.SSDPChannelClient;
+import com.github.se_bastiaan.beam.discovery.ssdp.SSDPClient;
+import com.github.se_bastiaan.beam.discovery.ssdp.SSDPDescriptionFetcher;
+import com.github.se_bastiaan.beam.discovery.ssdp.SSDPDevice;
+import com.github.se_bastiaan.beam.discovery.ssdp.SSDPDeviceCache;
+import com.github.se_bastiaan.beam.discovery.ssdp.SSDPLeaseQueue;
+import com.github.se_bastiaan.beam.discovery.ssdp.SSDPPacket;
+import com.github.se_bastiaan.beam.discovery.ssdp.SSDPRateLimiter;
+import com.github.se_bastiaan.beam.discovery.ssdp.SSDPSearchScheduler;
+import com.github.se_bastiaan.beam.discovery.ssdp.Service;
+import com.github.se_bastiaan.beam.logger.Logger;
+import com.github.se_bastiaan.beam.platform.Platform;
+import com.github.se_bastiaan.beam.util.BeamScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Currently only disovers DLNA devices
+ */
+public class SSDPDiscoveryClient implements DiscoveryClient {
+
+    private static final String TAG = "SSDPDiscoveryClient";
+
+    private Platform platform;
+
+    private CopyOnWriteArrayList<DiscoveryClientListener> clientListeners;
+
+    private ConcurrentHashMap<String, DLNADevice> foundServices = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, DLNADevice> discoveredDevices = new ConcurrentHashMap<>();
+    /* LOCATION of the found devices by uuid */
+    private ConcurrentHashMap<String, String> locations = new ConcurrentHashMap<>();
+    /* Devices of which the description did not match, by uuid with their LOCATION */
+    private ConcurrentHashMap<String, String> rejectedDevices = new ConcurrentHashMap<>();
+    /* Devices of which the description could not be fetched, by uuid with their LOCATION */
+    private ConcurrentHashMap<String, String> failedDevices = new ConcurrentHashMap<>();
+    private volatile List<DiscoveryFilter> filters = Collections.emptyList();
+
+    private static final String SERVICE_FILTER = "urn:schemas-upnp-org:device:MediaRenderer:1";
+    private static final String SERVICE_ID = "urn:schemas-upnp-org:device:MediaRenderer:1";
+    private static final String DEVICE_CACHE_FILE = "beam_ssdp_devices";
+    /* Lease for devices that do not send CACHE-CONTROL, they have to outlive the longest search interval */
+    private static final long DEFAULT_LEASE = SSDPSearchScheduler.MAX_INTERVAL * 2;
+    /* Announcements of a known device within this interval do not renew its lease or detection time again */
+    private static final long REFRESH_INTERVAL = 5000;
+
+    private volatile SSDPClient ssdpClient;
+    private SSDPDeviceCache deviceCache;
+    private SSDPDescriptionFetcher descriptionFetcher = new SSDPDescriptionFetcher(SERVICE_FILTER);
+    private SSDPLeaseQueue leaseQueue = new SSDPLeaseQueue();
+    private SSDPSearchScheduler searchScheduler = new SSDPSearchScheduler();
+
+    /* Receive counters of the sockets that were closed already */
+    private long closedReceivedPackets = 0;
+    private long closedTruncatedPackets = 0;
+    private long closedDroppedPackets = 0;
+
+    private ScheduledFuture<?> expiryFuture;
+    private long expiryTime = -1;
+    private ScheduledFuture<?> searchFuture;
+    private long searchTime = -1;
+
+    private volatile boolean isRunning = false;
+    /* Serializes start() and stop(), a start on a worker must not overlap a stop on another thread */
+    private final Object lifecycleLock = new Object();
+    private volatile DiscoveryPowerMode powerMode = DiscoveryPowerMode.NORMAL;
+
+    /**
+     * @param platform {@link Platform} that provides the network interface and cache directory
+     */
+    public SSDPDiscoveryClient(Platform platform) {
+        this.platform = platform;
+
+        clientListeners = new CopyOnWriteArrayList<>();
+
+        deviceCache = new SSDPDeviceCache(new File(platform.getCacheDir(), DEVICE_CACHE_FILE));
+    }
+
+    private void openSocket() {
+        if (ssdpClient != null && ssdpClient.isConnected())
+            return;
+
+        try {
+            InetAddress source = getSourceAddress();
+            if (source == null)
+                return;
+
+            ssdpClient = createSocket(source);
+        } catch (UnknownHostException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return Address of the interface to discover on, null when there is no network
+     * @throws UnknownHostException
+     */
+    protected InetAddress getSourceAddress() throws UnknownHostException {
+        return platform.getIpAddress();
+    }
+
+    protected SSDPClient createSocket(InetAddress source) throws IOException {
+        if (platform.hasMulticastChannels()) {
+            return new SSDPChannelClient(source);
+        }
+        return new SSDPClient(source);
+    }
+
+    @Override
+    public void start() {
+        synchronized (lifecycleLock) {
+            if (isRunning)
+                return;
+
+            if (!DiscoveryFilter.matchesProtocol(filters, DLNADevice.class))
+                return;
+
+            isRunning = true;
+
+            DiscoveryStats.getInstance().onStarted(DLNADevice.class);
+
+            deviceCache.load();
+            openSocket();
+
+            searchScheduler.reset();
+            scheduleSearch(100);
+            scheduleExpiry();
+
+            if (ssdpClient != null) {
+                ssdpClient.start(packetListener);
+            }
+
+            if (powerMode == DiscoveryPowerMode.LOW_POWER) {
+                // The search window may have opened before the socket was
+                searchOnce();
+            }
+        }
+    }
+
+    /**
+     * Send a single M-SEARCH and schedule the next one as decided by the {@link SSDPSearchScheduler}
+     */
+    public void sendSearch() {
+        send(searchScheduler.getMx());
+        scheduleSearch(searchScheduler.onSearchSent());
+    }
+
+    /**
+     * Send a single M-SEARCH, the {@link SSDPSearchScheduler} does not back off or start a burst for it
+     */
+    @Override
+    public void searchOnce() {
+        if (!isRunning || powerMode == DiscoveryPowerMode.PASSIVE) {
+            return;
+        }
+
+        send(SSDPSearchScheduler.SEARCH_MX);
+    }
+
+    private void send(int mx) {
+        String message = SSDPClient.getSSDPSearchMessage(SERVICE_FILTER, mx);
+        try {
+            SSDPClient client = ssdpClient;
+            if (client != null)
+                client.send(message);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Searches are only scheduled in {@link DiscoveryPowerMode#NORMAL}, see {@link #setPowerMode(DiscoveryPowerMode)}
+     */
+    private synchronized void scheduleSearch(long delay) {
+        if (!isRunning || powerMode != DiscoveryPowerMode.NORMAL) {
+            return;
+        }
+
+        if (searchFuture != null) {
+            searchFuture.cancel(false);
+        }
+
+        searchTime = new Date().getTime() + delay;
+        searchFuture = BeamScheduler.getInstance().schedule(new Runnable() {
+            @Override
+            public void run() {
+                sendSearch();
+            }
+        }, delay, BeamScheduler.PRIORITY_NORMAL);
+    }
+
+    /**
+     * A device appeared or disappeared, stop backing off and make sure the next search is not far away
+     */
+    private synchronized void onDeviceSetChanged() {
+        searchScheduler.onDeviceSetChanged();
+
+        long delay = searchScheduler.getMinInterval();
+        if (searchFuture != null && searchTime - new Date().getTime() > delay) {
+            scheduleSearch(delay);
+        }
+    }
+
+    /**
+     * Schedule {@link #expireLeases()} for the first lease that runs out, unless it is already scheduled in time
+     */
+    private synchronized void scheduleExpiry() {
+        long deadline = leaseQueue.nextDeadline();
+        if (deadline == -1 || !isRunning) {
+            return;
+        }
+
+        if (expiryFuture != null && !expiryFuture.isDone()) {
+            if (expiryTime <= deadline) {
+                return;
+            }
+            expiryFuture.cancel(false);
+        }
+
+        expiryTime = deadline;
+        expiryFuture = BeamScheduler.getInstance().schedule(new Runnable() {
+            @Override
+            public void run() {
+                expireLeases();
+            }
+        }, Math.max(0, deadline - new Date().getTime()), BeamScheduler.PRIORITY_NORMAL);
+    }
+
+    /**
+     * Remove the devices whose CACHE-CONTROL max-age ran out without a new announcement or search response
+     */
+    private void expireLeases() {
+        for (String uuid : leaseQueue.pollExpired(new Date().getTime())) {
+            final DLNADevice service = foundServices.remove(uuid);
+            locations.remove(uuid);
+
+            if (service != null) {
+                notifyListenersOfLostService(service);
+                onDeviceSetChanged();
+            }
+        }
+
+        synchronized (this) {
+            expiryFuture = null;
+        }
+        scheduleExpiry();
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lifecycleLock) {
+            isRunning = false;
+
+            synchronized (this) {
+                if (expiryFuture != null) {
+                    expiryFuture.cancel(false);
+                    expiryFuture = null;
+                }
+                if (searchFuture != null) {
+                    searchFuture.cancel(false);
+                    searchFuture = null;
+                }
+            }
+
+            if (ssdpClient != null) {
+                synchronized (this) {
+                    closedReceivedPackets += ssdpClient.getReceivedPacketCount();
+                    closedTruncatedPackets += ssdpClient.getTruncatedPacketCount();
+                    closedDroppedPackets += ssdpClient.getDroppedPacketCount();
+                }
+                ssdpClient.close();
+                ssdpClient = null;
+            }
+        }
+    }
+
+    /**
+     * @return Number of packets that have been received since this client was created, of every socket it opened
+     */
+    public synchronized long getReceivedPacketCount() {
+        SSDPClient client = ssdpClient;
+        return closedReceivedPackets + (client != null ? client.getReceivedPacketCount() : 0);
+    }
+
+    /**
+     * @return Number of received packets that did not fit in the receive buffer
+     */
+    public synchronized long getTruncatedPacketCount() {
+        SSDPClient client = ssdpClient;
+        return closedTruncatedPackets + (client != null ? client.getTruncatedPacketCount() : 0);
+    }
+
+    /**
+     * @return Number of received packets that were dropped by the {@link SSDPRateLimiter}
+     */
+    public synchronized long getDroppedPacketCount() {
+        SSDPClient client = ssdpClient;
+        return closedDroppedPackets + (client != null ? client.getDroppedPacketCount() : 0);
+    }
+
+    /**
+     * @param source Source address
+     * @return Number of packets of this source that were dropped by the open socket, 0 when there is none
+     */
+    public long getDroppedPacketCount(InetAddress source) {
+        SSDPClient client = ssdpClient;
+        return client != null ? client.getRateLimiter().getDroppedPacketCount(source) : 0;
+    }
+
+    @Override
+    public void restart() {
+        stop();
+        start();
+    }
+
+    @Override
+    public void reset() {
+        stop();
+        foundServices.clear();
+        locations.clear();
+        discoveredDevices.clear();
+        rejectedDevices.clear();
+        failedDevices.clear();
+        leaseQueue.clear();
+        descriptionFetcher.clearFailures();
+    }
+
+    @Override
+    public void revalidate() {
+        // Locations that failed while the network was down are worth another try
+        descriptionFetcher.clearFailures();
+        failedDevices.clear();
+
+        for (Map.Entry<String, String> entry : locations.entrySet()) {
+            probe(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Check that a found device still serves its description, remove it when it does not
+     * @param uuid Device uuid
+     * @param location LOCATION of the device
+     */
+    private void probe(final String uuid, final String location) {
+        descriptionFetcher.fetch(location, SSDPDescriptionFetcher.PRIORITY_NEW, new SSDPDescriptionFetcher.Callback() {
+            @Override
+            public void onDescription(String location, SSDPDevice ssdpDevice) {
+                DLNADevice device = foundServices.get(uuid);
+                if (device != null) {
+                    device.setLastDetection(new Date().getTime());
+                    notifyListenersOfNewService(device);
+                }
+            }
+
+            @Override
+            public void onFailure(String location, Exception e) {
+                DLNADevice device = foundServices.get(uuid);
+                if (device != null && foundServices.remove(uuid, device)) {
+                    locations.remove(uuid);
+                    leaseQueue.remove(uuid);
+                    notifyListenersOfLostService(device);
+                    onDeviceSetChanged();
+                }
+            }
+        });
+    }
+
+    /**
+     * Start a new burst of searches right away
+     */
+    @Override
+    public void rescan() {
+        searchScheduler.reset();
+        scheduleSearch(0);
+    }
+
+    /**
+     * Only {@link DiscoveryPowerMode#NORMAL} follows the {@link SSDPSearchScheduler}. In
+     * {@link DiscoveryPowerMode#LOW_POWER} the search windows send a single M-SEARCH with {@link #searchOnce()}, in
+     * {@link DiscoveryPowerMode#PASSIVE} no M-SEARCH is sent and devices are found by their NOTIFY announcements
+     */
+    @Override
+    public synchronized void setPowerMode(DiscoveryPowerMode mode) {
+        if (powerMode == mode) {
+            return;
+        }
+
+        powerMode = mode;
+        if (mode != DiscoveryPowerMode.NORMAL) {
+            if (searchFuture != null) {
+                searchFuture.cancel(false);
+                searchFuture = null;
+            }
+        } else {
+            rescan();
+        }
+    }
+
+    private SSDPClient.PacketListener packetListener = new SSDPClient.PacketListener() {
+        @Override
+        public void onPacketReceived(SSDPPacket packet) {
+            handleSSDPPacket(packet);
+        }
+    };
+
+    private void handleSSDPPacket(SSDPPacket ssdpPacket) {
+        if (ssdpPacket == null || !ssdpPacket.isValid() || ssdpPacket.isType(SSDPClient.MSEARCH)) {
+            return;
+        }
+
+        if (!ssdpPacket.hasHeader(ssdpPacket.isType(SSDPClient.NOTIFY) ? "NT" : "ST")) {
+            return;
+        }
+
+        String uuid = getUuid(ssdpPacket.getHeader("USN"));
+
+        if (uuid == null) {
+            return;
+        }
+
+        if (SSDPClient.BYEBYE.equals(ssdpPacket.getHeader("NTS"))) {
+            final DLNADevice service = foundServices.get(uuid);
+
+            leaseQueue.remove(uuid);
+
+            if (service != null) {
+                foundServices.remove(uuid);
+                locations.remove(uuid);
+
+                notifyListenersOfLostService(service);
+                onDeviceSetChanged();
+            }
+        } else {
+            long now = new Date().getTime();
+
+            // A device announces itself once for every embedded device and service, refresh it only once
+            DLNADevice knownDevice = foundServices.get(uuid);
+            Long lastDetection = knownDevice != null ? knownDevice.getLastDetection() : null;
+            if (lastDetection != null && now - lastDetection < REFRESH_INTERVAL) {
+                return;
+            }
+
+            String location = ssdpPacket.getHeader("LOCATION");
+
+            if (location == null || location.length() == 0)
+                return;
+
+            if (location.equals(rejectedDevices.get(uuid)))
+                return;
+
+            String failedLocation = failedDevices.get(uuid);
+            if (failedLocation != null) {
+                if (failedLocation.equals(location) && descriptionFetcher.hasFailedRecently(location)) {
+                    return;
+                }
+                failedDevices.remove(uuid, failedLocation);
+            }
+
+            DLNADevice foundDevice = knownDevice;
+            DLNADevice discoveredDevices = this.discoveredDevices.get(uuid);
+
+            boolean isNew = foundDevice == null && discoveredDevices == null;
+
+            if (isNew && !matchesHeaders(ssdpPacket)) {
+                return;
+            }
+
+            if (isNew) {
+                DiscoveryStats.getInstance().onPacket(DLNADevice.class, uuid);
+
+                foundDevice = new DLNADevice(uuid);
+                foundDevice.setIpAddress(ssdpPacket.getDatagramPacket().getAddress().getHostAddress());
+                foundDevice.setPort(3001);
+
+                this.discoveredDevices.put(uuid, foundDevice);
+
+                String configId = ssdpPacket.getHeader(SSDPDeviceCache.HEADER_CONFIG_ID);
+                String bootId = ssdpPacket.getHeader(SSDPDeviceCache.HEADER_BOOT_ID);
+                SSDPDevice cachedDevice = deviceCache.get(uuid, location, configId, bootId);
+
+                if (cachedDevice != null) {
+                    handleDeviceDescription(uuid, location, cachedDevice);
+
+                    if (configId == null && bootId == null) {
+                        revalidate(location, uuid);
+                    }
+                } else {
+                    getLocationData(location, uuid, configId, bootId);
+                }
+            }
+
+            int maxAge = ssdpPacket.getMaxAge();
+            if (leaseQueue.renew(uuid, now + (maxAge > 0 ? TimeUnit.SECONDS.toMillis(maxAge) : DEFAULT_LEASE))) {
+                scheduleExpiry();
+            }
+
+            if (foundDevice != null) {
+                foundDevice.setLastDetection(now);
+            }
+        }
+    }
+
+    /**
+     * @param usn USN header, e.g. uuid:device-UUID::urn:schemas-upnp-org:device:MediaRenderer:1
+     * @return The uuid without the uuid: prefix and the type, or null when there is none
+     */
+    static String getUuid(String usn) {
+        if (usn == null) {
+            return null;
+        }
+
+        int start = usn.indexOf("uuid:");
+        if (start == -1) {
+            return null;
+        }
+        start += 5;
+
+        int end = usn.indexOf("::", start);
+        if (end == -1) {
+            end = usn.length();
+        }
+
+        return end > start ? usn.substring(start, end) : null;
+    }
+
+    private void getLocationData(final String location, final String uuid, final String configId, final String bootId) {
+        descriptionFetcher.fetch(location, SSDPDescriptionFetcher.PRIORITY_NEW, new SSDPDescriptionFetcher.Callback() {
+            @Override
+            public void onDescription(String location, SSDPDevice ssdpDevice) {
+                if (ssdpDevice.deviceType != null) {
+                    if (handleDeviceDescription(uuid, location, ssdpDevice)) {
+                        deviceCache.put(uuid, location, configId, bootId, ssdpDevice);
+                    }
+                } else {
+                    discoveredDevices.remove(uuid);
+                }
+            }
+
+            @Override
+            public void onFailure(String location, Exception e) {
+                // Announcements are ignored until the failure expires, so this is logged once per device
+                Logger.d(TAG, "Could not fetch the description of " + uuid + " at " + location + ": " + e);
+                failedDevices.put(uuid, location);
+                discoveredDevices.remove(uuid);
+            }
+        });
+    }
+
+    /**
+     * Fetch the description of a device that was published from the cache without CONFIGID.UPNP.ORG, to pick up
+     * changes like a new friendly name. Runs after the descriptions of new devices.
+     * @param location LOCATION of the device
+     * @param uuid Device uuid
+     */
+    private void revalidate(final String location, final String uuid) {
+        descriptionFetcher.fetch(location, SSDPDescriptionFetcher.PRIORITY_REVALIDATE, new SSDPDescriptionFetcher.Callback() {
+            @Override
+            public void onDescription(String location, SSDPDevice ssdpDevice) {
+                if (ssdpDevice.deviceType == null) {
+                    return;
+                }
+
+                boolean accepted = isAccepted(ssdpDevice);
+                if (accepted) {
+                    deviceCache.put(uuid, location, null, null, ssdpDevice);
+                } else {
+                    deviceCache.remove(uuid);
+                }
+
+                DLNADevice device = foundServices.get(uuid);
+                if (device == null) {
+                    return;
+                }
+
+                if (!accepted) {
+                    rejectedDevices.put(uuid, location);
+                    leaseQueue.remove(uuid);
+                    if (foundServices.remove(uuid, device)) {
+                        locations.remove(uuid);
+                        notifyListenersOfLostService(device);
+                        onDeviceSetChanged();
+                    }
+                    return;
+                }
+
+                ssdpDevice.UUID = uuid;
+                applyDescription(device, ssdpDevice);
+                notifyListenersOfNewService(device);
+            }
+
+            @Override
+            public void onFailure(String location, Exception e) {
+                // Keep the cached description, the lease decides whether the device is still there
+            }
+        });
+    }
+
+    /**
+     * Check the device type of a new device on the NT or ST header, before its description is fetched. Other
+     * criteria are checked by {@link #matchesDescription(SSDPDevice)}.
+     * @param ssdpPacket {@link SSDPPacket}
+     * @return false when the device can not match the filters
+     */
+    private boolean matchesHeaders(SSDPPacket ssdpPacket) {
+        String type = ssdpPacket.getHeader(ssdpPacket.isType(SSDPClient.NOTIFY) ? "NT" : "ST");
+        if (type == null || !type.contains(":device:")) {
+            // uuid, upnp:rootdevice or a service type, the device type is not known yet
+            return true;
+        }
+
+        return DiscoveryFilter.matches(filters, DLNADevice.class, type, null, null, null);
+    }
+
+    /**
+     * @return true when the device is a renderer that matches the filters, only those are published and cached
+     */
+    private boolean isAccepted(SSDPDevice ssdpDevice) {
+        return SERVICE_ID.equalsIgnoreCase(ssdpDevice.deviceType) && matchesDescription(ssdpDevice);
+    }
+
+    private boolean matchesDescription(SSDPDevice ssdpDevice) {
+        List<String> serviceTypes = new ArrayList<>(ssdpDevice.serviceList.size());
+        for (Service service : ssdpDevice.serviceList) {
+            serviceTypes.add(service.serviceType);
+        }
+
+        return DiscoveryFilter.matches(filters, DLNADevice.class, ssdpDevice.deviceType, ssdpDevice.manufacturer,
+                ssdpDevice.modelName, serviceTypes);
+    }
+
+    /**
+     * Publish a discovered device once its description is known, either fetched or from the cache. A device that does
+     * not match is remembered, so its announcements are ignored until its LOCATION changes.
+     * @param uuid Device uuid
+     * @param location LOCATION of the device
+     * @param ssdpDevice {@link SSDPDevice}
+     * @return true when the device matched
+     */
+    private boolean handleDeviceDescription(String uuid, String location, SSDPDevice ssdpDevice) {
+        boolean accepted = isAccepted(ssdpDevice);
+        if (!accepted) {
+            rejectedDevices.put(uuid, location);
+            leaseQueue.remove(uuid);
+            deviceCache.remove(uuid);
+        } else {
+            ssdpDevice.UUID = uuid;
+            final DLNADevice device = discoveredDevices.get(uuid);
+
+            if (device != null) {
+                applyDescription(device, ssdpDevice);
+
+                foundServices.put(uuid, device);
+                locations.put(uuid, location);
+
+                DiscoveryStats.getInstance().onResolved(DLNADevice.class, uuid, device.getId());
+                notifyListenersOfNewService(device);
+                onDeviceSetChanged();
+            }
+        }
+
+        discoveredDevices.remove(uuid);
+        return accepted;
+    }
+
+    private void applyDescription(DLNADevice device, SSDPDevice ssdpDevice) {
+        device.setName(ssdpDevice.friendlyName);
+        device.setModel(ssdpDevice.modelName);
+
+        device.setServiceList(ssdpDevice.serviceList);
+        device.setPort(ssdpDevice.port);
+    }
+
+    private void notifyListenersOfNewService(DLNADevice device) {
+        for (DiscoveryClientListener listener : clientListeners) {
+            listener.onDeviceAdded(SSDPDiscoveryClient.this, device);
+        }
+    }
+
+    private void notifyListenersOfLostService(DLNADevice device) {
+        for (DiscoveryClientListener listener : clientListeners) {
+            listener.onDeviceRemoved(SSDPDiscoveryClient.this, device);
+        }
+    }
+
+    @Override
+    public void addListener(DiscoveryClientListener listener) {
+        clientListeners.add(listener);
+    }
+
+    @Override
+    public void setFilters(List<DiscoveryFilter> filters) {
+        this.filters = new ArrayList<>(filters);
+        rejectedDevices.clear();
+    }
+
+    @Override
+    public void removeListener(DiscoveryClientListener listener) {
+        clientListeners.remove(listener);
+    }
+    
+}
\ No newline at end of file
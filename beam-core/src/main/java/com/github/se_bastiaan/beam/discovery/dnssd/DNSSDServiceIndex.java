@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.dnssd;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index of DNS-SD service instances by the device they belong to.
+ * <p/>
+ * A device can be announced more than once, e.g. on several interfaces, and can be reachable on several addresses,
+ * e.g. IPv4 and IPv6. Every instance is identified by a key chosen by the discovery client, the device by the id from
+ * its TXT records. The resolved TXT records of an instance are kept for {@link #RECORD_TTL}, as long as they are fresh
+ * the instance does not have to be resolved again when it is announced again.
+ */
+public class DNSSDServiceIndex {
+
+    public static final long RECORD_TTL = TimeUnit.MINUTES.toMillis(2);
+
+    public enum Update {
+        /**
+         * First instance of a device
+         */
+        NEW,
+        /**
+         * The records or the preferred address of a known device changed
+         */
+        CHANGED,
+        /**
+         * Nothing a listener would notice changed
+         */
+        UNCHANGED
+    }
+
+    private final Map<String, Instance> instances = new HashMap<>();
+    private final Map<String, List<Instance>> devices = new HashMap<>();
+
+    /**
+     * @param key Key of the instance
+     * @param now Current time in ms
+     * @return true when the instance was resolved less than {@link #RECORD_TTL} ago
+     */
+    public synchronized boolean isFresh(String key, long now) {
+        Instance instance = instances.get(key);
+        return instance != null && now - instance.resolvedTime < RECORD_TTL;
+    }
+
+    /**
+     * Add or update a resolved instance
+     * @param key Key of the instance
+     * @param deviceId Id of the device from the TXT records
+     * @param port Port of the service
+     * @param records TXT records
+     * @param address Address the instance was resolved to, can be null
+     * @param now Current time in ms
+     * @return {@link Update}
+     */
+    public synchronized Update put(String key, String deviceId, int port, Map<String, String> records, InetAddress address, long now) {
+        List<Instance> deviceInstances = devices.get(deviceId);
+        boolean isNew = deviceInstances == null;
+        InetAddress preferredAddress = isNew ? null : preferredAddress(deviceInstances);
+
+        Instance instance = instances.get(key);
+        if (instance != null && !instance.deviceId.equals(deviceId)) {
+            // The instance now belongs to another device, e.g. the name moved to a new device
+            removeInstance(instance);
+            instance = null;
+            deviceInstances = devices.get(deviceId);
+            isNew = deviceInstances == null;
+        }
+
+        boolean changed = false;
+        if (instance == null) {
+            instance = new Instance(key, deviceId);
+            instances.put(key, instance);
+            if (deviceInstances == null) {
+                deviceInstances = new ArrayList<>(1);
+                devices.put(deviceId, deviceInstances);
+            } else {
+                changed = !deviceInstances.get(0).matches(port, records);
+            }
+            deviceInstances.add(instance);
+        } else {
+            changed = !instance.matches(port, records);
+        }
+
+        instance.port = port;
+        instance.records = records;
+        instance.resolvedTime = now;
+        if (address != null) {
+            instance.addresses.put(address, now);
+        }
+        instance.expireAddresses(now);
+
+        if (isNew) {
+            return Update.NEW;
+        }
+        if (changed || !equal(preferredAddress, preferredAddress(deviceInstances))) {
+            return Update.CHANGED;
+        }
+        return Update.UNCHANGED;
+    }
+
+    /**
+     * Remove an instance that was lost
+     * @param key Key of the instance
+     * @return Id of the device when this was its last instance, otherwise null
+     */
+    public synchronized String remove(String key) {
+        Instance instance = instances.get(key);
+        if (instance == null) {
+            return null;
+        }
+
+        removeInstance(instance);
+        return devices.containsKey(instance.deviceId) ? null : instance.deviceId;
+    }
+
+    /**
+     * Remove every instance of a device, e.g. when it did not respond anymore
+     * @param deviceId Id of the device
+     */
+    public synchronized void removeDevice(String deviceId) {
+        List<Instance> deviceInstances = devices.remove(deviceId);
+        if (deviceInstances == null) {
+            return;
+        }
+
+        for (Instance instance : deviceInstances) {
+            instances.remove(instance.key);
+        }
+    }
+
+    /**
+     * @param key Key of the instance
+     * @return Id of the device the instance belongs to or null when it is unknown
+     */
+    public synchronized String getDeviceId(String key) {
+        Instance instance = instances.get(key);
+        return instance == null ? null : instance.deviceId;
+    }
+
+    /**
+     * @param deviceId Id of the device
+     * @return Every address of the device on any of its instances, IPv4 addresses first
+     */
+    public synchronized List<InetAddress> getAddresses(String deviceId) {
+        List<InetAddress> addresses = new ArrayList<>();
+        List<Instance> deviceInstances = devices.get(deviceId);
+        if (deviceInstances == null) {
+            return addresses;
+        }
+
+        for (Instance instance : deviceInstances) {
+            for (InetAddress address : instance.addresses.keySet()) {
+                if (!addresses.contains(address)) {
+                    addresses.add(address);
+                }
+            }
+        }
+
+        List<InetAddress> sorted = new ArrayList<>(addresses.size());
+        for (InetAddress address : addresses) {
+            if (address instanceof Inet4Address) {
+                sorted.add(address);
+            }
+        }
+        for (InetAddress address : addresses) {
+            if (!(address instanceof Inet4Address)) {
+                sorted.add(address);
+            }
+        }
+        return sorted;
+    }
+
+    public synchronized void clear() {
+        instances.clear();
+        devices.clear();
+    }
+
+    private void removeInstance(Instance instance) {
+        instances.remove(instance.key);
+
+        List<Instance> deviceInstances = devices.get(instance.deviceId);
+        if (deviceInstances != null) {
+            deviceInstances.remove(instance);
+            if (deviceInstances.isEmpty()) {
+                devices.remove(instance.deviceId);
+            }
+        }
+    }
+
+    private InetAddress preferredAddress(List<Instance> deviceInstances) {
+        InetAddress preferred = null;
+        for (Instance instance : deviceInstances) {
+            for (InetAddress address : instance.addresses.keySet()) {
+                if (address instanceof Inet4Address) {
+                    return address;
+                }
+                if (preferred == null) {
+                    preferred = address;
+                }
+            }
+        }
+        return preferred;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static class Instance {
+
+        final String key;
+        final String deviceId;
+        int port;
+        Map<String, String> records;
+        long resolvedTime;
+        // Address to the time it was last resolved, in order of discovery
+        final LinkedHashMap<InetAddress, Long> addresses = new LinkedHashMap<>();
+
+        Instance(String key, String deviceId) {
+            this.key = key;
+            this.deviceId = deviceId;
+        }
+
+        boolean matches(int port, Map<String, String> records) {
+            return this.port == port && equal(this.records, records);
+        }
+
+        /**
+         * Forget addresses that were not seen for longer than the records live, e.g. after a DHCP change
+         */
+        void expireAddresses(long now) {
+            Iterator<Map.Entry<InetAddress, Long>> iterator = addresses.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next().getValue() > RECORD_TTL) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+}
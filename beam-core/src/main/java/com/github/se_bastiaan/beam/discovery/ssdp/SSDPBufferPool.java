@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import java.net.DatagramPacket;
+import java.util.ArrayDeque;
+
+/**
+ * Small pool of receive packets, so the receive loops do not allocate a new buffer for every datagram.
+ */
+public class SSDPBufferPool {
+
+    /**
+     * Ethernet MTU. A datagram that is not fragmented always fits, the IP and UDP headers take up part of it.
+     */
+    public static final int MTU = 1500;
+
+    private final ArrayDeque<DatagramPacket> pool;
+    private final int bufferSize;
+    private final int maxPoolSize;
+
+    public SSDPBufferPool(int bufferSize, int maxPoolSize) {
+        this.bufferSize = bufferSize;
+        this.maxPoolSize = maxPoolSize;
+        pool = new ArrayDeque<>(maxPoolSize);
+    }
+
+    /**
+     * Take a packet from the pool, or create one when the pool is empty
+     * @return {@link DatagramPacket} with a buffer of {@link #getBufferSize()} bytes
+     */
+    public DatagramPacket acquire() {
+        DatagramPacket dp;
+        synchronized (pool) {
+            dp = pool.pollFirst();
+        }
+
+        if (dp == null) {
+            return new DatagramPacket(new byte[bufferSize], bufferSize);
+        }
+
+        dp.setData(dp.getData(), 0, bufferSize);
+        return dp;
+    }
+
+    /**
+     * Return a packet to the pool, it should not be used by the caller anymore
+     * @param dp {@link DatagramPacket} obtained through {@link #acquire()}
+     */
+    public void release(DatagramPacket dp) {
+        if (dp == null || dp.getData().length != bufferSize) {
+            return;
+        }
+
+        synchronized (pool) {
+            if (pool.size() < maxPoolSize) {
+                pool.addFirst(dp);
+            }
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+}
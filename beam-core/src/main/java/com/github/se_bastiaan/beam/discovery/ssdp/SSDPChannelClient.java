@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.MembershipKey;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+
+/**
+ * {@link SSDPClient} that registers both the M-SEARCH response channel and the NOTIFY multicast channel
+ * on a single {@link Selector}, so all SSDP traffic is handled by one event loop thread.
+ * <p/>
+ * Requires {@link java.nio.channels.MulticastChannel} support, which is only available from API 24 on Android,
+ * see {@link com.github.se_bastiaan.beam.platform.Platform#hasMulticastChannels()}.
+ */
+public class SSDPChannelClient extends SSDPClient {
+
+    private static final long SHUTDOWN_TIMEOUT = 1000;
+
+    private Selector selector;
+    private DatagramChannel responseChannel;
+    private DatagramChannel multicastChannel;
+    private MembershipKey membershipKey;
+
+    private Thread selectorThread;
+    private volatile boolean running = false;
+
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(SSDPBufferPool.MTU);
+
+    public SSDPChannelClient(InetAddress source) throws IOException {
+        super(source, NetworkInterface.getByInetAddress(source));
+
+        try {
+            selector = Selector.open();
+
+            multicastChannel = DatagramChannel.open(StandardProtocolFamily.INET);
+            multicastChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            multicastChannel.bind(new InetSocketAddress(PORT));
+            membershipKey = multicastChannel.join(InetAddress.getByName(MULTICAST_ADDRESS), networkInterface);
+            multicastChannel.configureBlocking(false);
+            multicastChannel.register(selector, SelectionKey.OP_READ);
+
+            responseChannel = DatagramChannel.open(StandardProtocolFamily.INET);
+            responseChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            responseChannel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, 4);
+            responseChannel.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+            responseChannel.bind(new InetSocketAddress(localInAddress, 0));
+            responseChannel.configureBlocking(false);
+            responseChannel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void send(String data) throws IOException {
+        responseChannel.send(ByteBuffer.wrap(data.getBytes()), multicastGroup);
+    }
+
+    /**
+     * Start the event loop, every received packet is handed to the listener on the selector thread
+     * @param listener {@link PacketListener}
+     */
+    @Override
+    public void start(final PacketListener listener) {
+        if (running) {
+            return;
+        }
+
+        running = true;
+
+        selectorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        selector.select();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        break;
+                    }
+
+                    if (!selector.isOpen()) {
+                        break;
+                    }
+
+                    Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                    while (iterator.hasNext()) {
+                        SelectionKey key = iterator.next();
+                        iterator.remove();
+
+                        if (key.isValid() && key.isReadable()) {
+                            receive((DatagramChannel) key.channel(), listener);
+                        }
+                    }
+                }
+            }
+        }, "SSDPSelector");
+
+        selectorThread.start();
+    }
+
+    /**
+     * Drain all packets that are currently queued on the channel
+     * @param channel {@link DatagramChannel}
+     * @param listener {@link PacketListener}
+     */
+    private void receive(DatagramChannel channel, PacketListener listener) {
+        while (running) {
+            SocketAddress sender;
+            try {
+                receiveBuffer.clear();
+                sender = channel.receive(receiveBuffer);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+
+            if (sender == null) {
+                return;
+            }
+
+            DatagramPacket dp = new DatagramPacket(receiveBuffer.array(), receiveBuffer.position());
+            dp.setSocketAddress(sender);
+
+            try {
+                dispatch(dp, receiveBuffer.capacity(), listener);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return responseChannel != null && multicastChannel != null && responseChannel.isOpen() && multicastChannel.isOpen();
+    }
+
+    /**
+     * Stop the event loop and close the channels. Waits for the selector thread to finish, unless called from it.
+     */
+    @Override
+    public void close() {
+        running = false;
+
+        if (selector != null) {
+            selector.wakeup();
+        }
+
+        if (selectorThread != null && selectorThread != Thread.currentThread()) {
+            try {
+                selectorThread.join(SHUTDOWN_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        selectorThread = null;
+
+        if (membershipKey != null) {
+            membershipKey.drop();
+            membershipKey = null;
+        }
+
+        if (multicastChannel != null) {
+            try {
+                multicastChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (responseChannel != null) {
+            try {
+                responseChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (selector != null) {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SSDPClient {
+
+    public static final String NEWLINE = "\r\n";
+
+    public static final String MULTICAST_ADDRESS = "239.255.255.250";
+    public static final int PORT = 1900;
+
+    public static final String NOTIFY = "NOTIFY * HTTP/1.1";
+    public static final String MSEARCH = "M-SEARCH * HTTP/1.1";
+    public static final String OK = "HTTP/1.1 200 OK";
+
+    public static final String ALIVE = "ssdp:alive";
+    public static final String BYEBYE = "ssdp:byebye";
+    public static final String UPDATE = "ssdp:update";
+
+    MulticastSocket datagramSocket;
+    MulticastSocket multicastSocket;
+
+    Thread responseThread;
+    Thread notifyThread;
+
+    SocketAddress multicastGroup;
+    NetworkInterface networkInterface;
+    InetAddress localInAddress;
+
+    int timeout = 0;
+    static int MX = 5;
+
+    final SSDPBufferPool bufferPool = new SSDPBufferPool(SSDPBufferPool.MTU, 4);
+    final AtomicLong receivedPackets = new AtomicLong();
+    final AtomicLong truncatedPackets = new AtomicLong();
+    final SSDPRateLimiter rateLimiter = new SSDPRateLimiter();
+
+    public SSDPClient(InetAddress source) throws IOException {
+        this(source, new MulticastSocket(PORT), new MulticastSocket(null));
+    }
+
+    /**
+     * Use another multicast group than the SSDP one, e.g. to test against an emulated network
+     * @param source {@link InetAddress}
+     * @param multicastGroup Group and port that searches are sent to and notifications are received on
+     * @throws IOException
+     */
+    public SSDPClient(InetAddress source, InetSocketAddress multicastGroup) throws IOException {
+        this(source, multicastGroup, new MulticastSocket(multicastGroup.getPort()), new MulticastSocket(null));
+    }
+
+    public SSDPClient(InetAddress source, MulticastSocket mcSocket, MulticastSocket dgSocket) throws IOException {
+        this(source, new InetSocketAddress(MULTICAST_ADDRESS, PORT), mcSocket, dgSocket);
+    }
+
+    SSDPClient(InetAddress source, InetSocketAddress multicastGroup, MulticastSocket mcSocket, MulticastSocket dgSocket) throws IOException {
+        this(source, NetworkInterface.getByInetAddress(source), multicastGroup);
+        multicastSocket = mcSocket;
+        datagramSocket = dgSocket;
+
+        multicastSocket.joinGroup(multicastGroup, networkInterface);
+
+        datagramSocket.setReuseAddress(true);
+        datagramSocket.setTimeToLive(4);
+        datagramSocket.bind(new InetSocketAddress(localInAddress, 0));
+    }
+
+    /**
+     * Only sets up the addressing, subclasses are responsible for opening their own sockets
+     * @param source {@link InetAddress}
+     * @param networkInterface {@link NetworkInterface}
+     */
+    protected SSDPClient(InetAddress source, NetworkInterface networkInterface) {
+        this(source, networkInterface, new InetSocketAddress(MULTICAST_ADDRESS, PORT));
+    }
+
+    protected SSDPClient(InetAddress source, NetworkInterface networkInterface, InetSocketAddress multicastGroup) {
+        localInAddress = source;
+        this.networkInterface = networkInterface;
+        this.multicastGroup = multicastGroup;
+    }
+
+    /**
+     * Start receiving SSDP responses and notifications, every packet is handed to the listener
+     * @param listener {@link PacketListener}
+     */
+    public void start(PacketListener listener) {
+        responseThread = new Thread(new ReceiveLoop(datagramSocket, listener), "SSDPResponse");
+        notifyThread = new Thread(new ReceiveLoop(multicastSocket, listener), "SSDPNotify");
+
+        responseThread.start();
+        notifyThread.start();
+    }
+
+    /**
+     * Hand a received packet to the listener and keep track of the receive metrics. Packets of a source that
+     * exceeds its rate are dropped before they are parsed.
+     * @param dp {@link DatagramPacket}
+     * @param capacity Size of the buffer the packet was received in
+     * @param listener {@link PacketListener}
+     */
+    void dispatch(DatagramPacket dp, int capacity, PacketListener listener) {
+        receivedPackets.incrementAndGet();
+
+        // Datagrams that do not fit are cut off silently, an entirely filled buffer is the only hint
+        if (dp.getLength() >= capacity) {
+            truncatedPackets.incrementAndGet();
+        }
+
+        if (dp.getAddress() != null && !rateLimiter.tryAcquire(dp.getAddress())) {
+            return;
+        }
+
+        listener.onPacketReceived(new SSDPPacket(dp));
+    }
+
+    /**
+     * @return Number of packets that have been received since this client was created
+     */
+    public long getReceivedPacketCount() {
+        return receivedPackets.get();
+    }
+
+    /**
+     * @return Number of received packets that did not fit in the receive buffer
+     */
+    public long getTruncatedPacketCount() {
+        return truncatedPackets.get();
+    }
+
+    /**
+     * @return Number of received packets that were dropped by the {@link SSDPRateLimiter}
+     */
+    public long getDroppedPacketCount() {
+        return rateLimiter.getDroppedPacketCount();
+    }
+
+    /**
+     * @return {@link SSDPRateLimiter} of the receive path, e.g. for the counters per source
+     */
+    public SSDPRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Send a SSDP packet
+     * @param data {@link String}
+     * @throws IOException
+     */
+    public void send(String data) throws IOException {
+        DatagramPacket dp = new DatagramPacket(data.getBytes(), data.length(), multicastGroup);
+
+        datagramSocket.send(dp);
+    }
+
+    public boolean isConnected() {
+        return datagramSocket != null && multicastSocket != null && datagramSocket.isConnected() && multicastSocket.isConnected();
+    }
+
+    /**
+     * Close the socket connection
+     */
+    public void close() {
+        if (multicastSocket != null) {
+            try {
+                multicastSocket.leaveGroup(multicastGroup, networkInterface);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            multicastSocket.close();
+        }
+
+        if (datagramSocket != null) {
+            datagramSocket.close();
+        }
+
+        if (responseThread != null) {
+            responseThread.interrupt();
+            responseThread = null;
+        }
+
+        if (notifyThread != null) {
+            notifyThread.interrupt();
+            notifyThread = null;
+        }
+    }
+
+    public void setTimeout(int timeout) throws SocketException {
+        this.timeout = timeout;
+        datagramSocket.setSoTimeout(this.timeout);
+    }
+
+    public static String getSSDPSearchMessage(String ST) {
+        return getSSDPSearchMessage(ST, MX);
+    }
+
+    /**
+     * @param ST Search target
+     * @param mx Maximum number of seconds devices may wait before they respond
+     * @return M-SEARCH message
+     */
+    public static String getSSDPSearchMessage(String ST, int mx) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(MSEARCH + NEWLINE);
+        sb.append("HOST: " + MULTICAST_ADDRESS + ":" + PORT + NEWLINE);
+        sb.append("MAN: \"ssdp:discover\"" + NEWLINE);
+        sb.append("ST: ").append(ST).append(NEWLINE);
+        sb.append("MX: ").append(mx).append(NEWLINE);
+        sb.append(NEWLINE);
+
+        return sb.toString();
+    }
+
+    /**
+     * Blocks on the socket and hands every packet to the listener. The buffers come from a pool and are
+     * returned as soon as the listener is done with them.
+     */
+    private class ReceiveLoop implements Runnable {
+
+        private final MulticastSocket socket;
+        private final PacketListener listener;
+
+        ReceiveLoop(MulticastSocket socket, PacketListener listener) {
+            this.socket = socket;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            while (socket != null && !socket.isClosed()) {
+                DatagramPacket dp = bufferPool.acquire();
+                try {
+                    socket.receive(dp);
+                    dispatch(dp, bufferPool.getBufferSize(), listener);
+                } catch (IOException e) {
+                    if (!socket.isClosed()) {
+                        e.printStackTrace();
+                    }
+                    break;
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    break;
+                } finally {
+                    bufferPool.release(dp);
+                }
+            }
+        }
+
+    }
+
+    public interface PacketListener {
+
+        /**
+         * Called on the receiving thread. The packet may share its buffer with the client, so it is only valid
+         * for the duration of this call.
+         * @param packet {@link SSDPPacket}
+         */
+        void onPacketReceived(SSDPPacket packet);
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import com.github.se_bastiaan.beam.util.BeamScheduler;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Fetches device descriptions with bounded concurrency.
+ * <ul>
+ *     <li>Requests for a LOCATION that is already being fetched share the result of that fetch</li>
+ *     <li>At most {@link #MAX_CONCURRENT} fetches run at the same time, {@link #MAX_CONCURRENT_PER_HOST} per host</li>
+ *     <li>Connecting and reading time out after {@link #CONNECT_TIMEOUT} and {@link #READ_TIMEOUT}</li>
+ *     <li>Fetches run on the IO threads of the {@link BeamScheduler} and share its HTTP connection pool</li>
+ *     <li>A LOCATION that failed is not fetched again for {@link #FAILURE_TTL}, other devices on its host are</li>
+ *     <li>Waiting requests are started in order of priority, new devices before re-validation</li>
+ * </ul>
+ */
+public class SSDPDescriptionFetcher {
+
+    public static final int PRIORITY_NEW = 0;
+    public static final int PRIORITY_REVALIDATE = 1;
+
+    static final int MAX_CONCURRENT = 2;
+    static final int MAX_CONCURRENT_PER_HOST = 1;
+    static final int CONNECT_TIMEOUT = 2000;
+    static final int READ_TIMEOUT = 3000;
+    static final long FAILURE_TTL = TimeUnit.SECONDS.toMillis(60);
+
+    private final String searchTarget;
+    private final OkHttpClient httpClient;
+
+    private final Map<String, Request> requests = new HashMap<>();
+    private final PriorityQueue<Request> pending = new PriorityQueue<>();
+    private final Map<String, Integer> activePerHost = new HashMap<>();
+    private final Map<String, Long> failedLocations = new HashMap<>();
+    private int active = 0;
+    private long sequence = 0;
+
+    /**
+     * @param searchTarget Search target the descriptions are fetched for, see {@link SSDPDevice#SSDPDevice(URL, String, OkHttpClient)}
+     */
+    public SSDPDescriptionFetcher(String searchTarget) {
+        this.searchTarget = searchTarget;
+
+        httpClient = BeamScheduler.getInstance().getDiscoveryHttpClient().newBuilder()
+                .connectTimeout(CONNECT_TIMEOUT, TimeUnit.MILLISECONDS)
+                .readTimeout(READ_TIMEOUT, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Fetch the description at a location. The callback is called on a fetch thread, or directly when the
+     * request fails right away.
+     * @param location LOCATION header of the device
+     * @param priority {@link #PRIORITY_NEW} or {@link #PRIORITY_REVALIDATE}
+     * @param callback {@link Callback}
+     */
+    public void fetch(String location, int priority, Callback callback) {
+        URL url;
+        try {
+            url = new URL(location);
+        } catch (MalformedURLException e) {
+            callback.onFailure(location, e);
+            return;
+        }
+
+        if (hasFailedRecently(location)) {
+            callback.onFailure(location, new IOException("Recently failed: " + location));
+            return;
+        }
+
+        synchronized (this) {
+            Request request = requests.get(location);
+            if (request != null) {
+                request.callbacks.add(callback);
+                if (priority < request.priority && pending.remove(request)) {
+                    request.priority = priority;
+                    pending.add(request);
+                }
+                return;
+            }
+
+            request = new Request(location, url, priority, sequence++);
+            request.callbacks.add(callback);
+            requests.put(location, request);
+            pending.add(request);
+
+            startPending();
+        }
+    }
+
+    /**
+     * @param location LOCATION header of a device
+     * @return true when fetching the location failed less than {@link #FAILURE_TTL} ago
+     */
+    public synchronized boolean hasFailedRecently(String location) {
+        Long failedUntil = failedLocations.get(location);
+        if (failedUntil == null) {
+            return false;
+        }
+
+        if (failedUntil > new Date().getTime()) {
+            return true;
+        }
+
+        failedLocations.remove(location);
+        return false;
+    }
+
+    /**
+     * Forget about locations that failed, e.g. after a network change
+     */
+    public synchronized void clearFailures() {
+        failedLocations.clear();
+    }
+
+    /**
+     * Start waiting requests in order of priority, as long as the global and per host limits allow it
+     */
+    private synchronized void startPending() {
+        List<Request> blocked = new ArrayList<>();
+
+        while (active < MAX_CONCURRENT && !pending.isEmpty()) {
+            final Request request = pending.poll();
+            Integer hostCount = activePerHost.get(request.host);
+            if (hostCount != null && hostCount >= MAX_CONCURRENT_PER_HOST) {
+                blocked.add(request);
+                continue;
+            }
+
+            active++;
+            activePerHost.put(request.host, hostCount == null ? 1 : hostCount + 1);
+
+            BeamScheduler.getInstance().executeBlocking(new Runnable() {
+                @Override
+                public void run() {
+                    execute(request);
+                }
+            }, request.priority == PRIORITY_NEW ? BeamScheduler.PRIORITY_NORMAL : BeamScheduler.PRIORITY_LOW);
+        }
+
+        pending.addAll(blocked);
+    }
+
+    private void execute(Request request) {
+        SSDPDevice device = null;
+        Exception error = null;
+        try {
+            device = new SSDPDevice(request.url, searchTarget, httpClient);
+        } catch (Exception e) {
+            error = e;
+        }
+
+        List<Callback> callbacks;
+        synchronized (this) {
+            requests.remove(request.location);
+            callbacks = new ArrayList<>(request.callbacks);
+
+            active--;
+            Integer hostCount = activePerHost.get(request.host);
+            if (hostCount == null || hostCount <= 1) {
+                activePerHost.remove(request.host);
+            } else {
+                activePerHost.put(request.host, hostCount - 1);
+            }
+
+            if (device == null) {
+                failedLocations.put(request.location, new Date().getTime() + FAILURE_TTL);
+            }
+
+            startPending();
+        }
+
+        for (Callback callback : callbacks) {
+            if (device != null) {
+                callback.onDescription(request.location, device);
+            } else {
+                callback.onFailure(request.location, error);
+            }
+        }
+    }
+
+    public interface Callback {
+        void onDescription(String location, SSDPDevice device);
+
+        void onFailure(String location, Exception e);
+    }
+
+    private static class Request implements Comparable<Request> {
+        final String location;
+        final URL url;
+        final String host;
+        final long sequence;
+        final List<Callback> callbacks = new ArrayList<>(1);
+        int priority;
+
+        Request(String location, URL url, int priority, long sequence) {
+            this.location = location;
+            this.url = url;
+            this.host = url.getHost();
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import com.github.se_bastiaan.beam.util.BeamScheduler;
+
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+public class SSDPDevice {
+    /**
+     * Required. UPnP device type.
+     **/
+    public String deviceType;
+    /**
+     * Required. Short description for end user.
+     **/
+    public String friendlyName;
+    /**
+     * Required. Manufacturer's name.
+     **/
+    public String manufacturer;
+    /**
+     * Recommended. Long description for end user.
+     **/
+    public String modelDescription;
+    /**
+     * Required. Model name.
+     **/
+    public String modelName;
+    /**
+     * Recommended. Model number.
+     **/
+    public String modelNumber;
+    /**
+     * Required. Unique Device Name.
+     **/
+    public String UDN;
+
+    public List<Service> serviceList = new ArrayList<Service>();
+
+    public String applicationURL;
+
+    public String serviceURI;
+
+    public String baseURL;
+    public String ipAddress;
+    public int port;
+    public String UUID;
+
+    public Map<String, List<String>> headers;
+
+    /**
+     * Used to restore a device from {@link SSDPDeviceCache}, without fetching the description
+     */
+    SSDPDevice() {
+    }
+
+    public SSDPDevice(String url, String ST) throws IOException, XmlPullParserException {
+        this(new URL(url), ST);
+    }
+
+    public SSDPDevice(URL urlObject, String ST) throws IOException, XmlPullParserException {
+        this(urlObject, ST, BeamScheduler.getInstance().getDiscoveryHttpClient());
+    }
+
+    /**
+     * @param urlObject Location of the description
+     * @param ST Search target, the device with this type is read from the description
+     * @param httpClient {@link OkHttpClient} to fetch the description with
+     */
+    public SSDPDevice(URL urlObject, String ST, OkHttpClient httpClient) throws IOException, XmlPullParserException {
+        if (urlObject.getPort() == -1) {
+            baseURL = String.format("%s://%s", urlObject.getProtocol(), urlObject.getHost());
+        } else {
+            baseURL = String.format("%s://%s:%d", urlObject.getProtocol(), urlObject.getHost(), urlObject.getPort());
+        }
+        ipAddress = urlObject.getHost();
+        port = urlObject.getPort();
+        UUID = null;
+
+        serviceURI = String.format("%s://%s",  urlObject.getProtocol(), urlObject.getHost());
+
+        parse(urlObject, ST, httpClient);
+    }
+
+    public void parse(URL url, String ST, OkHttpClient httpClient) throws IOException, XmlPullParserException {
+        Request request = new Request.Builder().url(url).build();
+        Response response = httpClient.newCall(request).execute();
+        ResponseBody body = response.body();
+        try {
+            if (!response.isSuccessful()) {
+                throw new IOException("Unexpected response " + response.code() + " for " + url);
+            }
+
+            applicationURL = response.header("Application-URL");
+            if (applicationURL != null && !applicationURL.endsWith("/")) {
+                applicationURL = applicationURL.concat("/");
+            }
+
+            headers = response.headers().toMultimap();
+
+            MediaType contentType = body.contentType();
+            Charset charset = contentType != null ? contentType.charset() : null;
+
+            InputStream in = body.byteStream();
+            new SSDPDeviceDescriptionParser(this, ST).parse(in, charset != null ? charset.name() : null);
+        } finally {
+            body.close();
+        }
+    }
+
+    /**
+     * Callers change the device they are given, e.g. the control URLs of the services, so {@link SSDPDeviceCache}
+     * only hands out copies
+     * @return Copy of this device and its services
+     */
+    public SSDPDevice copy() {
+        SSDPDevice device = new SSDPDevice();
+        device.deviceType = deviceType;
+        device.friendlyName = friendlyName;
+        device.manufacturer = manufacturer;
+        device.modelDescription = modelDescription;
+        device.modelName = modelName;
+        device.modelNumber = modelNumber;
+        device.UDN = UDN;
+        device.applicationURL = applicationURL;
+        device.serviceURI = serviceURI;
+        device.baseURL = baseURL;
+        device.ipAddress = ipAddress;
+        device.port = port;
+        device.UUID = UUID;
+
+        for (Service service : serviceList) {
+            device.serviceList.add(service.copy());
+        }
+
+        if (headers != null) {
+            device.headers = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                device.headers.put(header.getKey(), new ArrayList<>(header.getValue()));
+            }
+        }
+
+        return device;
+    }
+
+    @Override
+    public String toString() {
+        return friendlyName;
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import com.github.se_bastiaan.beam.util.BeamScheduler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.se_bastiaan.beam.util.IOUtil.closeQuietly;
+import static com.github.se_bastiaan.beam.util.IOUtil.readString;
+import static com.github.se_bastiaan.beam.util.IOUtil.writeString;
+
+/**
+ * On-disk cache of parsed device descriptions, keyed by the uuid from the USN.
+ * <p/>
+ * An entry is only used when the LOCATION of the packet matches, and when the CONFIGID.UPNP.ORG and
+ * BOOTID.UPNP.ORG headers match the ones that were announced when the description was fetched. UPnP 1.0
+ * devices do not send those headers, their entries are used until they are older than {@link #MAX_AGE}.
+ * <p/>
+ * The file is read once by {@link #load()}, changes are written back in batches, at most every {@link #SAVE_DELAY} ms.
+ */
+public class SSDPDeviceCache {
+
+    public static final String HEADER_CONFIG_ID = "CONFIGID.UPNP.ORG";
+    public static final String HEADER_BOOT_ID = "BOOTID.UPNP.ORG";
+
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(1);
+    private static final int MAX_ENTRIES = 64;
+    private static final int VERSION = 1;
+    /* Descriptions of a whole network arrive in a burst, they are written to disk together */
+    static final long SAVE_DELAY = 10000;
+
+    private final File file;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    private ScheduledFuture<?> saveFuture;
+
+    public SSDPDeviceCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Look up a cached description for an announcement. Does no file IO, nothing is found before {@link #load()}.
+     * @param uuid Device uuid from the USN
+     * @param location LOCATION header of the announcement
+     * @param configId CONFIGID.UPNP.ORG header, may be null
+     * @param bootId BOOTID.UPNP.ORG header, may be null
+     * @return Copy of the cached {@link SSDPDevice} or null when there is no valid entry
+     */
+    public SSDPDevice get(String uuid, String location, String configId, String bootId) {
+        Entry entry = entries.get(uuid);
+        if (entry == null || !entry.location.equals(location)) {
+            return null;
+        }
+
+        if (configId != null || bootId != null) {
+            if (!equals(configId, entry.configId) || !equals(bootId, entry.bootId)) {
+                return null;
+            }
+        } else if (new Date().getTime() - entry.time > MAX_AGE) {
+            return null;
+        }
+
+        return entry.device.copy();
+    }
+
+    /**
+     * Store a copy of a freshly fetched description, it is written to disk with the next batch
+     * @param uuid Device uuid from the USN
+     * @param location LOCATION the description was fetched from
+     * @param configId CONFIGID.UPNP.ORG header, may be null
+     * @param bootId BOOTID.UPNP.ORG header, may be null
+     * @param device {@link SSDPDevice}
+     */
+    public void put(String uuid, String location, String configId, String bootId, SSDPDevice device) {
+        Entry entry = new Entry();
+        entry.location = location;
+        entry.configId = configId;
+        entry.bootId = bootId;
+        entry.time = new Date().getTime();
+        entry.device = device.copy();
+
+        entries.put(uuid, entry);
+
+        if (entries.size() > MAX_ENTRIES) {
+            evictOldest();
+        }
+
+        scheduleSave();
+    }
+
+    public void remove(String uuid) {
+        if (entries.remove(uuid) != null) {
+            scheduleSave();
+        }
+    }
+
+    public synchronized void clear() {
+        if (saveFuture != null) {
+            saveFuture.cancel(false);
+            saveFuture = null;
+        }
+
+        entries.clear();
+        loaded = true;
+        if (file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Write the entries to disk after {@link #SAVE_DELAY}, unless a write is already pending
+     */
+    private synchronized void scheduleSave() {
+        if (saveFuture != null) {
+            return;
+        }
+
+        saveFuture = BeamScheduler.getInstance().schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (SSDPDeviceCache.this) {
+                    saveFuture = null;
+                }
+                save();
+            }
+        }, SAVE_DELAY, BeamScheduler.PRIORITY_LOW);
+    }
+
+    private void evictOldest() {
+        String oldestKey = null;
+        long oldestTime = Long.MAX_VALUE;
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().time < oldestTime) {
+                oldestTime = entry.getValue().time;
+                oldestKey = entry.getKey();
+            }
+        }
+
+        if (oldestKey != null) {
+            entries.remove(oldestKey);
+        }
+    }
+
+    /**
+     * Read the cache file, only done once. Does file IO, so do not call this on the main thread or a receive thread.
+     * Entries that were stored before the file was read are kept.
+     */
+    public void load() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+                if (in.readInt() == VERSION) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String uuid = in.readUTF();
+                        entries.putIfAbsent(uuid, readEntry(in));
+                    }
+                }
+            } catch (FileNotFoundException e) {
+                // Nothing cached yet
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                closeQuietly(in);
+            }
+
+            loaded = true;
+        }
+    }
+
+    /**
+     * Write all entries to disk right away. Does file IO, so do not call this on the main thread.
+     */
+    public synchronized void save() {
+        if (!loaded) {
+            return;
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> entry : snapshot) {
+                out.writeUTF(entry.getKey());
+                writeEntry(out, entry.getValue());
+            }
+            out.close();
+            out = null;
+
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        Entry entry = new Entry();
+        entry.location = in.readUTF();
+        entry.configId = readString(in);
+        entry.bootId = readString(in);
+        entry.time = in.readLong();
+
+        SSDPDevice device = new SSDPDevice();
+        device.deviceType = readString(in);
+        device.friendlyName = readString(in);
+        device.manufacturer = readString(in);
+        device.modelDescription = readString(in);
+        device.modelName = readString(in);
+        device.modelNumber = readString(in);
+        device.UDN = readString(in);
+        device.applicationURL = readString(in);
+        device.serviceURI = readString(in);
+        device.baseURL = readString(in);
+        device.ipAddress = readString(in);
+        device.port = in.readInt();
+
+        int serviceCount = in.readInt();
+        for (int i = 0; i < serviceCount; i++) {
+            device.serviceList.add(Service.read(in));
+        }
+
+        entry.device = device;
+        return entry;
+    }
+
+    private static void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+        out.writeUTF(entry.location);
+        writeString(out, entry.configId);
+        writeString(out, entry.bootId);
+        out.writeLong(entry.time);
+
+        SSDPDevice device = entry.device;
+        writeString(out, device.deviceType);
+        writeString(out, device.friendlyName);
+        writeString(out, device.manufacturer);
+        writeString(out, device.modelDescription);
+        writeString(out, device.modelName);
+        writeString(out, device.modelNumber);
+        writeString(out, device.UDN);
+        writeString(out, device.applicationURL);
+        writeString(out, device.serviceURI);
+        writeString(out, device.baseURL);
+        writeString(out, device.ipAddress);
+        out.writeInt(device.port);
+
+        out.writeInt(device.serviceList.size());
+        for (Service service : device.serviceList) {
+            service.write(out);
+        }
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static class Entry {
+        String location;
+        String configId;
+        String bootId;
+        long time;
+        SSDPDevice device;
+    }
+
+}
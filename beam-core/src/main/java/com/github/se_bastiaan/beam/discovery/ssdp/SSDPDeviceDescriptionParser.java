@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import com.github.se_bastiaan.beam.util.XmlUtil;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pull parser for UPnP device descriptions that reads straight from the response stream.
+ * <p/>
+ * Parsing stops as soon as the device matching the search target has been read. When no device matches, the root
+ * device is used. Doctype declarations are not processed, so no DTD or external entity is ever loaded.
+ */
+public class SSDPDeviceDescriptionParser {
+
+    public static final String TAG_DEVICE = "device";
+    public static final String TAG_DEVICE_TYPE = "deviceType";
+    public static final String TAG_FRIENDLY_NAME = "friendlyName";
+    public static final String TAG_MANUFACTURER = "manufacturer";
+    public static final String TAG_MODEL_DESCRIPTION = "modelDescription";
+    public static final String TAG_MODEL_NAME = "modelName";
+    public static final String TAG_MODEL_NUMBER = "modelNumber";
+    public static final String TAG_UDN = "UDN";
+
+    public static final String TAG_SEC_CAPABILITY = "sec:Capability";
+    public static final String TAG_PORT = "port";
+    public static final String TAG_LOCATION = "location";
+
+    private final SSDPDevice device;
+    private final String searchTarget;
+
+    public SSDPDeviceDescriptionParser(SSDPDevice device, String searchTarget) {
+        this.device = device;
+        this.searchTarget = searchTarget;
+    }
+
+    /**
+     * Read the description into the device
+     * @param in Response body, is not closed
+     * @param encoding Charset of the body, or null to detect it from the XML declaration
+     * @throws IOException
+     * @throws XmlPullParserException
+     */
+    public void parse(InputStream in, String encoding) throws IOException, XmlPullParserException {
+        XmlPullParser parser = XmlUtil.newPullParser();
+        parser.setInput(in, encoding);
+
+        Frame root = null;
+        List<Frame> frames = new ArrayList<>(2);
+        Service currentService = null;
+
+        int event = parser.getEventType();
+        while (event != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.START_TAG) {
+                String name = parser.getName();
+                Frame frame = frames.isEmpty() ? null : frames.get(frames.size() - 1);
+
+                if (TAG_DEVICE.equals(name)) {
+                    frame = new Frame(device.serviceURI);
+                    frames.add(frame);
+                    if (root == null) {
+                        root = frame;
+                    }
+                } else if (frame == null) {
+                    // Outside of a device element, e.g. specVersion or URLBase
+                } else if (Service.TAG.equals(name)) {
+                    currentService = new Service();
+                    currentService.baseURL = device.baseURL;
+                } else if (currentService != null) {
+                    readServiceField(parser, name, currentService);
+                } else if (TAG_SEC_CAPABILITY.equals(name)) {
+                    readCapability(parser, frame);
+                } else {
+                    readDeviceField(parser, name, frame);
+                }
+            } else if (event == XmlPullParser.END_TAG) {
+                String name = parser.getName();
+
+                if (Service.TAG.equals(name) && currentService != null) {
+                    frames.get(frames.size() - 1).services.add(currentService);
+                    currentService = null;
+                } else if (TAG_DEVICE.equals(name) && !frames.isEmpty()) {
+                    Frame frame = frames.remove(frames.size() - 1);
+                    if (frame.deviceType != null && frame.deviceType.equalsIgnoreCase(searchTarget)) {
+                        frame.applyTo(device);
+                        return;
+                    }
+                }
+            }
+
+            event = parser.next();
+        }
+
+        if (root != null) {
+            root.applyTo(device);
+        }
+    }
+
+    /**
+     * Reads the text of a leaf element, the parser is left on its end tag
+     */
+    private static String readText(XmlPullParser parser) throws IOException, XmlPullParserException {
+        String text = parser.nextText();
+        return text != null ? text.trim() : null;
+    }
+
+    private static void readDeviceField(XmlPullParser parser, String name, Frame frame) throws IOException, XmlPullParserException {
+        if (TAG_DEVICE_TYPE.equals(name)) {
+            frame.deviceType = readText(parser);
+        } else if (TAG_FRIENDLY_NAME.equals(name)) {
+            frame.friendlyName = readText(parser);
+        } else if (TAG_MANUFACTURER.equals(name)) {
+            frame.manufacturer = readText(parser);
+        } else if (TAG_MODEL_DESCRIPTION.equals(name)) {
+            frame.modelDescription = readText(parser);
+        } else if (TAG_MODEL_NAME.equals(name)) {
+            frame.modelName = readText(parser);
+        } else if (TAG_MODEL_NUMBER.equals(name)) {
+            frame.modelNumber = readText(parser);
+        } else if (TAG_UDN.equals(name)) {
+            frame.UDN = readText(parser);
+        }
+    }
+
+    private static void readServiceField(XmlPullParser parser, String name, Service service) throws IOException, XmlPullParserException {
+        if (Service.TAG_SERVICE_TYPE.equals(name)) {
+            service.serviceType = readText(parser);
+        } else if (Service.TAG_SERVICE_ID.equals(name)) {
+            service.serviceId = readText(parser);
+        } else if (Service.TAG_SCPD_URL.equals(name)) {
+            service.SCPDURL = readText(parser);
+        } else if (Service.TAG_CONTROL_URL.equals(name)) {
+            service.controlURL = readText(parser);
+        } else if (Service.TAG_EVENTSUB_URL.equals(name)) {
+            service.eventSubURL = readText(parser);
+        }
+    }
+
+    /**
+     * Samsung MultiScreen Capability
+     */
+    private static void readCapability(XmlPullParser parser, Frame frame) {
+        String port = null;
+        String location = null;
+
+        for (int i = 0; i < parser.getAttributeCount(); i++) {
+            if (TAG_PORT.equals(parser.getAttributeName(i))) {
+                port = parser.getAttributeValue(i);
+            } else if (TAG_LOCATION.equals(parser.getAttributeName(i))) {
+                location = parser.getAttributeValue(i);
+            }
+        }
+
+        if (port == null) {
+            frame.serviceURI = String.format("%s%s", frame.serviceURI, location);
+        } else {
+            frame.serviceURI = String.format("%s:%s%s", frame.serviceURI, port, location);
+        }
+    }
+
+    /**
+     * Fields of a single device element, the root or an embedded device
+     */
+    private static class Frame {
+        String deviceType;
+        String friendlyName;
+        String manufacturer;
+        String modelDescription;
+        String modelName;
+        String modelNumber;
+        String UDN;
+        String serviceURI;
+        List<Service> services = new ArrayList<>();
+
+        Frame(String serviceURI) {
+            this.serviceURI = serviceURI;
+        }
+
+        void applyTo(SSDPDevice device) {
+            device.deviceType = deviceType;
+            device.friendlyName = friendlyName;
+            device.manufacturer = manufacturer;
+            device.modelDescription = modelDescription;
+            device.modelName = modelName;
+            device.modelNumber = modelNumber;
+            device.UDN = UDN;
+            device.serviceURI = serviceURI;
+            device.serviceList.addAll(services);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps track of the lease of every device, as advertised by CACHE-CONTROL max-age.
+ * <p/>
+ * Every device has at most one entry in the priority queue. Renewing a lease only updates its deadline, the queue
+ * entry is moved to the new deadline when it reaches the head. Expiring leases therefore only touches devices whose
+ * entry is due, instead of every known device.
+ */
+public class SSDPLeaseQueue {
+
+    private final Map<String, Lease> leases = new HashMap<>();
+    private final PriorityQueue<Lease> queue = new PriorityQueue<>();
+
+    /**
+     * Start or renew the lease of a device
+     * @param uuid Device uuid
+     * @param deadline Time in ms at which the lease runs out
+     * @return Whether the lease is now the first to run out, in which case the expiry should be rescheduled
+     */
+    public synchronized boolean renew(String uuid, long deadline) {
+        Lease lease = leases.get(uuid);
+        if (lease == null) {
+            lease = new Lease(uuid, deadline);
+            leases.put(uuid, lease);
+            queue.add(lease);
+        } else if (deadline < lease.queuedDeadline) {
+            // Lease got shorter, the queue position has to move forward
+            queue.remove(lease);
+            lease.deadline = deadline;
+            lease.queuedDeadline = deadline;
+            queue.add(lease);
+        } else {
+            lease.deadline = deadline;
+        }
+
+        return queue.peek() == lease;
+    }
+
+    public synchronized void remove(String uuid) {
+        Lease lease = leases.remove(uuid);
+        if (lease != null) {
+            queue.remove(lease);
+        }
+    }
+
+    public synchronized void clear() {
+        leases.clear();
+        queue.clear();
+    }
+
+    /**
+     * Remove all leases that ran out
+     * @param now Current time in ms
+     * @return uuids of the expired devices
+     */
+    public synchronized List<String> pollExpired(long now) {
+        List<String> expired = new ArrayList<>();
+
+        Lease lease;
+        while ((lease = queue.peek()) != null && lease.queuedDeadline <= now) {
+            queue.poll();
+
+            if (lease.deadline <= now) {
+                leases.remove(lease.uuid);
+                expired.add(lease.uuid);
+            } else {
+                // Renewed since it was queued
+                lease.queuedDeadline = lease.deadline;
+                queue.add(lease);
+            }
+        }
+
+        return expired;
+    }
+
+    /**
+     * @return Time in ms at which {@link #pollExpired(long)} should be called next, or -1 when there are no leases
+     */
+    public synchronized long nextDeadline() {
+        Lease lease = queue.peek();
+        return lease == null ? -1 : lease.queuedDeadline;
+    }
+
+    public synchronized int size() {
+        return leases.size();
+    }
+
+    private static class Lease implements Comparable<Lease> {
+        final String uuid;
+        long deadline;
+        long queuedDeadline;
+
+        Lease(String uuid, long deadline) {
+            this.uuid = uuid;
+            this.deadline = deadline;
+            this.queuedDeadline = deadline;
+        }
+
+        @Override
+        public int compareTo(Lease other) {
+            return queuedDeadline < other.queuedDeadline ? -1 : (queuedDeadline == other.queuedDeadline ? 0 : 1);
+        }
+    }
+
+}
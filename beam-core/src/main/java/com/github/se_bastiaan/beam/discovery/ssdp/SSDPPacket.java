@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import java.net.DatagramPacket;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * SSDP packet that is parsed straight from the received bytes.
+ * <p/>
+ * Only the line offsets of the start line are determined up front, headers are looked up on demand and a
+ * {@link String} is only created for the values that are actually read. The packet reads from the buffer of
+ * the {@link DatagramPacket}, so it is only valid for as long as that buffer is not reused.
+ */
+public class SSDPPacket {
+
+    DatagramPacket datagramPacket;
+    Map<String, String> data;
+    String type;
+    static final Charset ASCII_CHARSET = Charset.forName("US-ASCII");
+    static final byte CR = '\r';
+    static final byte LF = '\n';
+    static final byte COLON = ':';
+
+    private final byte[] buffer;
+    private final int end;
+    private int typeStart;
+    private int typeEnd = -1;
+    private int headerStart;
+
+    public SSDPPacket(DatagramPacket datagramPacket) {
+        this.datagramPacket = datagramPacket;
+
+        buffer = datagramPacket.getData();
+        typeStart = datagramPacket.getOffset();
+        end = typeStart + datagramPacket.getLength();
+
+        int eolPos = indexOf(LF, typeStart, end);
+        if (eolPos == -1) {
+            return;
+        }
+
+        headerStart = eolPos + 1;
+        typeEnd = trimCR(typeStart, eolPos);
+    }
+
+    /**
+     * @return Whether the packet has a start line
+     */
+    public boolean isValid() {
+        return typeEnd != -1;
+    }
+
+    /**
+     * Compare the start line of the packet without creating a {@link String}
+     * @param type Start line, e.g. {@link SSDPClient#NOTIFY}
+     * @return Whether the start line equals the given type
+     */
+    public boolean isType(String type) {
+        if (typeEnd == -1 || type.length() != typeEnd - typeStart) {
+            return false;
+        }
+
+        for (int i = 0; i < type.length(); i++) {
+            if (buffer[typeStart + i] != type.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Look up a header value, the name is matched case-insensitive. Of a repeated header the last occurrence wins,
+     * as in {@link #getData()}
+     * @param name Header name, e.g. "LOCATION"
+     * @return Trimmed value or null when the header is not present
+     */
+    public String getHeader(String name) {
+        int colon = findHeader(name);
+        if (colon == -1) {
+            return null;
+        }
+
+        int valueStart = colon + 1;
+        int valueEnd = trimCR(valueStart, lineEnd(valueStart));
+
+        while (valueStart < valueEnd && buffer[valueStart] <= ' ') {
+            valueStart++;
+        }
+        while (valueEnd > valueStart && buffer[valueEnd - 1] <= ' ') {
+            valueEnd--;
+        }
+
+        return new String(buffer, valueStart, valueEnd - valueStart, ASCII_CHARSET);
+    }
+
+    /**
+     * @param name Header name
+     * @return Whether the header is present, without creating the value
+     */
+    public boolean hasHeader(String name) {
+        return findHeader(name) != -1;
+    }
+
+    /**
+     * Read the max-age directive of the CACHE-CONTROL header, e.g. "max-age = 1800"
+     * @return Lease duration in seconds, or -1 when it is not present or invalid
+     */
+    public int getMaxAge() {
+        String cacheControl = getHeader("CACHE-CONTROL");
+        if (cacheControl == null) {
+            return -1;
+        }
+
+        int index = cacheControl.toLowerCase(Locale.ENGLISH).indexOf("max-age");
+        if (index == -1) {
+            return -1;
+        }
+
+        int pos = index + "max-age".length();
+        while (pos < cacheControl.length() && (cacheControl.charAt(pos) == ' ' || cacheControl.charAt(pos) == '=')) {
+            pos++;
+        }
+
+        int maxAge = 0;
+        int digits = 0;
+        while (pos < cacheControl.length() && Character.isDigit(cacheControl.charAt(pos)) && digits < 9) {
+            maxAge = maxAge * 10 + (cacheControl.charAt(pos) - '0');
+            pos++;
+            digits++;
+        }
+
+        return digits == 0 ? -1 : maxAge;
+    }
+
+    /**
+     * @param name Header name
+     * @return Position of the colon that ends the last occurrence of the header name, or -1
+     */
+    private int findHeader(String name) {
+        if (typeEnd == -1) {
+            return -1;
+        }
+
+        int length = name.length();
+        int found = -1;
+        int pos = headerStart;
+        while (pos < end) {
+            int colon = pos + length;
+
+            if (colon < end && buffer[colon] == COLON && keyEquals(pos, name)) {
+                found = colon;
+            }
+
+            pos = lineEnd(pos) + 1;
+        }
+
+        return found;
+    }
+
+    private boolean keyEquals(int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (asciiUpper(buffer[start + i]) != asciiUpper(name.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int lineEnd(int pos) {
+        int eolPos = indexOf(LF, pos, end);
+        return eolPos == -1 ? end : eolPos;
+    }
+
+    private int trimCR(int start, int eolPos) {
+        return eolPos > start && buffer[eolPos - 1] == CR ? eolPos - 1 : eolPos;
+    }
+
+    private int indexOf(byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Fast toUpperCase for ASCII characters
+    private static int asciiUpper(int c) {
+        return (c >= 97 && c <= 122) ? c - 32 : c;
+    }
+
+    public DatagramPacket getDatagramPacket() {
+        return datagramPacket;
+    }
+
+    /**
+     * Decodes all headers, prefer {@link #getHeader(String)} when only a few fields are needed
+     * @return {@link Map} with upper case header names
+     */
+    public Map<String, String> getData() {
+        if (data != null) {
+            return data;
+        }
+
+        data = new HashMap<>();
+
+        if (typeEnd == -1) {
+            return data;
+        }
+
+        int pos = headerStart;
+        while (pos < end) {
+            int lineEnd = lineEnd(pos);
+            int colon = indexOf(COLON, pos, lineEnd);
+
+            if (colon != -1) {
+                char[] key = new char[colon - pos];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = (char) asciiUpper(buffer[pos + i] & 0xFF);
+                }
+
+                String value = new String(buffer, colon + 1, trimCR(colon + 1, lineEnd) - colon - 1, ASCII_CHARSET).trim();
+
+                data.put(new String(key), value);
+            }
+
+            pos = lineEnd + 1;
+        }
+
+        return data;
+    }
+
+    public String getType() {
+        if (type == null && typeEnd != -1) {
+            type = new String(buffer, typeStart, typeEnd - typeStart, ASCII_CHARSET);
+        }
+        return type;
+    }
+
+}
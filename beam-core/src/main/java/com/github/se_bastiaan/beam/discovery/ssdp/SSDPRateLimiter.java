@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket per source address, protects the receive path against NOTIFY storms of misbehaving devices.
+ * <p/>
+ * Every source may send {@link #BURST} packets at once and {@link #RATE} packets per second after that. Buckets of
+ * the least recently seen sources are dropped when more than {@link #MAX_SOURCES} sources are tracked.
+ */
+public class SSDPRateLimiter {
+
+    /* A device announces every embedded device and service, a few times in a row */
+    public static final int BURST = 50;
+    public static final int RATE = 10;
+    static final int MAX_SOURCES = 256;
+
+    private final double burst;
+    private final double tokensPerNano;
+
+    private final Map<InetAddress, Bucket> buckets = new LinkedHashMap<InetAddress, Bucket>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<InetAddress, Bucket> eldest) {
+            return size() > MAX_SOURCES;
+        }
+    };
+
+    private long acceptedPackets = 0;
+    private long droppedPackets = 0;
+
+    public SSDPRateLimiter() {
+        this(BURST, RATE);
+    }
+
+    /**
+     * @param burst Number of packets a source may send at once
+     * @param rate Number of packets per second a source may send after a burst
+     */
+    public SSDPRateLimiter(int burst, int rate) {
+        this.burst = burst;
+        this.tokensPerNano = rate / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * @param source Address the packet was received from
+     * @return true when the packet should be handled, false when it has to be dropped
+     */
+    public boolean tryAcquire(InetAddress source) {
+        return tryAcquire(source, System.nanoTime());
+    }
+
+    synchronized boolean tryAcquire(InetAddress source, long now) {
+        Bucket bucket = buckets.get(source);
+        if (bucket == null) {
+            bucket = new Bucket(burst, now);
+            buckets.put(source, bucket);
+        } else {
+            bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.time) * tokensPerNano);
+            bucket.time = now;
+        }
+
+        if (bucket.tokens < 1) {
+            bucket.dropped++;
+            droppedPackets++;
+            return false;
+        }
+
+        bucket.tokens--;
+        acceptedPackets++;
+        return true;
+    }
+
+    public synchronized long getAcceptedPacketCount() {
+        return acceptedPackets;
+    }
+
+    /**
+     * @return Number of packets that were dropped, of all sources
+     */
+    public synchronized long getDroppedPacketCount() {
+        return droppedPackets;
+    }
+
+    /**
+     * @param source Source address
+     * @return Number of packets of this source that were dropped, as long as the source is tracked
+     */
+    public synchronized long getDroppedPacketCount(InetAddress source) {
+        Bucket bucket = buckets.get(source);
+        return bucket != null ? bucket.dropped : 0;
+    }
+
+    public synchronized void clear() {
+        buckets.clear();
+    }
+
+    private static class Bucket {
+        double tokens;
+        long time;
+        long dropped;
+
+        Bucket(double tokens, long time) {
+            this.tokens = tokens;
+            this.time = time;
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the next M-SEARCH is sent and which MX it carries.
+ * <p/>
+ * After {@link #reset()}, e.g. on start or a network change, a short burst of searches with a small MX is sent so
+ * devices answer quickly. After that the interval doubles with every search until {@link #getMaxInterval()} is
+ * reached. In between, devices are kept up to date by their NOTIFY announcements. A change in the set of devices
+ * brings the interval back to {@link #getMinInterval()}.
+ */
+public class SSDPSearchScheduler {
+
+    public static final int BURST_MX = 1;
+    public static final int SEARCH_MX = 3;
+
+    public static final long BURST_INTERVAL = 1000;
+    public static final int BURST_COUNT = 3;
+    public static final long MIN_INTERVAL = 10000;
+    public static final long MAX_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    private final long burstInterval;
+    private final int burstCount;
+    private final long minInterval;
+    private final long maxInterval;
+
+    private int burstRemaining;
+    private long interval;
+
+    public SSDPSearchScheduler() {
+        this(BURST_INTERVAL, BURST_COUNT, MIN_INTERVAL, MAX_INTERVAL);
+    }
+
+    public SSDPSearchScheduler(long burstInterval, int burstCount, long minInterval, long maxInterval) {
+        this.burstInterval = burstInterval;
+        this.burstCount = burstCount;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        reset();
+    }
+
+    /**
+     * Start a new burst of searches
+     */
+    public synchronized void reset() {
+        burstRemaining = burstCount;
+        interval = minInterval;
+    }
+
+    /**
+     * Stop backing off, the next search is at most {@link #getMinInterval()} away
+     */
+    public synchronized void onDeviceSetChanged() {
+        interval = minInterval;
+    }
+
+    /**
+     * @return MX value for the search that is about to be sent
+     */
+    public synchronized int getMx() {
+        return burstRemaining > 0 ? BURST_MX : SEARCH_MX;
+    }
+
+    /**
+     * Register that a search was sent
+     * @return Delay in ms until the next search
+     */
+    public synchronized long onSearchSent() {
+        if (burstRemaining > 0) {
+            burstRemaining--;
+            return burstRemaining > 0 ? burstInterval : interval;
+        }
+
+        interval = Math.min(interval * 2, maxInterval);
+        return interval;
+    }
+
+    public long getMinInterval() {
+        return minInterval;
+    }
+
+    public long getMaxInterval() {
+        return maxInterval;
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.github.se_bastiaan.beam.platform;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Platform} for a plain JVM, e.g. to run discovery and benchmarks on a Linux host
+ */
+public class JavaPlatform implements Platform {
+
+    private static final String CACHE_DIR = "beam";
+
+    private final File cacheDir;
+
+    public JavaPlatform() {
+        this(new File(System.getProperty("java.io.tmpdir"), CACHE_DIR));
+    }
+
+    /**
+     * @param cacheDir Directory for caches, it is created when it does not exist
+     */
+    public JavaPlatform(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * @return First IPv4 address of an interface that is up and supports multicast, loopback is skipped
+     */
+    @Override
+    public InetAddress getIpAddress() {
+        try {
+            for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!networkInterface.isUp() || networkInterface.isLoopback() || !networkInterface.supportsMulticast()) {
+                    continue;
+                }
+
+                for (InetAddress address : Collections.list(networkInterface.getInetAddresses())) {
+                    if (address instanceof Inet4Address) {
+                        return address;
+                    }
+                }
+            }
+        } catch (SocketException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    @Override
+    public File getCacheDir() {
+        if (!cacheDir.isDirectory()) {
+            cacheDir.mkdirs();
+        }
+        return cacheDir;
+    }
+
+    @Override
+    public boolean hasMulticastChannels() {
+        return true;
+    }
+
+    @Override
+    public long getCpuTime() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return TimeUnit.NANOSECONDS.toMillis(((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime());
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.github.se_bastiaan.beam.platform;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Adapter for what the protocol code needs from the platform it runs on. The Android library provides one backed by a
+ * Context, {@link JavaPlatform} is used on a plain JVM.
+ */
+public interface Platform {
+
+    /**
+     * @return Address of the interface to discover on, null when there is no network
+     * @throws UnknownHostException
+     */
+    InetAddress getIpAddress() throws UnknownHostException;
+
+    /**
+     * @return Directory for caches that may be cleared by the platform
+     */
+    File getCacheDir();
+
+    /**
+     * @return Whether {@link java.nio.channels.MulticastChannel} is supported, e.g. from API 24 on Android
+     */
+    boolean hasMulticastChannels();
+
+    /**
+     * @return CPU time in ms used by the process, -1 when it can not be measured
+     */
+    long getCpuTime();
+
+}
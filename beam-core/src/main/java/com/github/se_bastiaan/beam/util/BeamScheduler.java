@@ -0,0 +1,355 @@
+package com.github.se_bastiaan.beam.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * Library wide scheduler, all background work of Beam runs on its threads.
+ * <p/>
+ * Tasks are executed by a small pool of worker threads that takes them in order of priority. Delayed and periodic
+ * tasks are kept by a single timer thread, which hands them to the workers when they are due. All threads stop when
+ * they have been idle for {@link #KEEP_ALIVE} ms.
+ * <p/>
+ * HTTP calls and other blocking IO run on a separate bounded pool, see {@link #executeBlocking(Runnable, int)}, so
+ * slow devices can not hold up the workers, e.g. the delivery of discovery events and the timers. Blocking socket
+ * receive loops keep their own threads, they would otherwise occupy a thread forever.
+ */
+public class BeamScheduler {
+
+    public static final int PRIORITY_HIGH = 0;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_LOW = 2;
+
+    static final int WORKER_THREADS = 6;
+    static final int MAX_CONTROL_HTTP_REQUESTS = 4;
+    /* Leaves IO threads free for control commands while discovery calls block on the network */
+    static final int MAX_DISCOVERY_HTTP_REQUESTS = 2;
+    /* Room for every control call, every asynchronous discovery call and as many synchronous description fetches */
+    static final int IO_THREADS = MAX_CONTROL_HTTP_REQUESTS + 2 * MAX_DISCOVERY_HTTP_REQUESTS;
+    private static final long KEEP_ALIVE = 30000;
+
+    private static BeamScheduler instance;
+
+    private final ThreadPoolExecutor workers;
+    private final ThreadPoolExecutor io;
+    private final ScheduledThreadPoolExecutor timer;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong executedTasks = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    private OkHttpClient httpClient;
+    private OkHttpClient discoveryHttpClient;
+
+    public static synchronized BeamScheduler getInstance() {
+        if (instance == null) {
+            instance = new BeamScheduler();
+        }
+        return instance;
+    }
+
+    private BeamScheduler() {
+        workers = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), new NamedThreadFactory("BeamWorker"));
+        workers.allowCoreThreadTimeOut(true);
+
+        io = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), new NamedThreadFactory("BeamIO"));
+        io.allowCoreThreadTimeOut(true);
+
+        timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("BeamTimer"));
+        timer.setKeepAliveTime(KEEP_ALIVE, TimeUnit.MILLISECONDS);
+        timer.allowCoreThreadTimeOut(true);
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public void execute(Runnable runnable) {
+        execute(runnable, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Run a task on a worker thread
+     * @param runnable Task
+     * @param priority {@link #PRIORITY_HIGH}, {@link #PRIORITY_NORMAL} or {@link #PRIORITY_LOW}
+     */
+    public void execute(Runnable runnable, int priority) {
+        workers.execute(new PriorityTask(runnable, priority, sequence.getAndIncrement(), null));
+    }
+
+    /**
+     * Run a task that blocks on the network or on files, e.g. a synchronous HTTP call, on an IO thread
+     * @param runnable Task
+     * @param priority {@link #PRIORITY_HIGH}, {@link #PRIORITY_NORMAL} or {@link #PRIORITY_LOW}
+     */
+    public void executeBlocking(Runnable runnable, int priority) {
+        io.execute(new PriorityTask(runnable, priority, sequence.getAndIncrement(), null));
+    }
+
+    /**
+     * Run a task once after a delay
+     * @param runnable Task
+     * @param delay Delay in ms
+     * @param priority Priority of the task once it is due
+     * @return {@link ScheduledFuture} that can be used to cancel the task
+     */
+    public ScheduledFuture<?> schedule(Runnable runnable, long delay, int priority) {
+        HandOff handOff = new HandOff(runnable, priority, false);
+        ScheduledFuture<?> future = timer.schedule(handOff, delay, TimeUnit.MILLISECONDS);
+        handOff.future = future;
+        return future;
+    }
+
+    /**
+     * Run a task periodically. A run is skipped when the previous one is still waiting or running.
+     * @param runnable Task
+     * @param initialDelay Delay in ms before the first run
+     * @param period Period in ms
+     * @param priority Priority of every run
+     * @return {@link ScheduledFuture} that can be used to cancel the task
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable runnable, long initialDelay, long period, int priority) {
+        HandOff handOff = new HandOff(runnable, priority, true);
+        ScheduledFuture<?> future = timer.scheduleAtFixedRate(handOff, initialDelay, period, TimeUnit.MILLISECONDS);
+        handOff.future = future;
+        return future;
+    }
+
+    /**
+     * @param priority Priority of the tasks
+     * @return {@link ExecutorService} view that runs its tasks on the workers, it cannot be shut down
+     */
+    public ExecutorService asExecutorService(final int priority) {
+        return asExecutorService(priority, false);
+    }
+
+    /**
+     * @param priority Priority of the tasks
+     * @param blocking true to run the tasks on the IO threads
+     * @return {@link ExecutorService} view that cannot be shut down
+     */
+    private ExecutorService asExecutorService(final int priority, final boolean blocking) {
+        return new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                if (blocking) {
+                    executeBlocking(command, priority);
+                } else {
+                    BeamScheduler.this.execute(command, priority);
+                }
+            }
+
+            @Override
+            public void shutdown() {
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return false;
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return false;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Shared HTTP client of the control clients, asynchronous calls run on the IO threads with {@link #PRIORITY_HIGH},
+     * at most {@link #MAX_CONTROL_HTTP_REQUESTS} at a time. Use {@link OkHttpClient#newBuilder()} to change settings,
+     * the connection pool and dispatcher stay shared.
+     * @return {@link OkHttpClient}
+     */
+    public synchronized OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            Dispatcher dispatcher = new Dispatcher(asExecutorService(PRIORITY_HIGH, true));
+            dispatcher.setMaxRequests(MAX_CONTROL_HTTP_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(MAX_CONTROL_HTTP_REQUESTS);
+            httpClient = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .build();
+        }
+        return httpClient;
+    }
+
+    /**
+     * HTTP client for discovery, e.g. description fetches and probes. It shares the connection pool of
+     * {@link #getHttpClient()}, but has its own dispatcher that runs at most {@link #MAX_DISCOVERY_HTTP_REQUESTS}
+     * calls on the IO threads with {@link #PRIORITY_NORMAL}, so discovery never queues in front of a command.
+     * Synchronous calls should be made from {@link #executeBlocking(Runnable, int)}, at most
+     * {@link #MAX_DISCOVERY_HTTP_REQUESTS} at a time.
+     * @return {@link OkHttpClient}
+     */
+    public synchronized OkHttpClient getDiscoveryHttpClient() {
+        if (discoveryHttpClient == null) {
+            Dispatcher dispatcher = new Dispatcher(asExecutorService(PRIORITY_NORMAL, true));
+            dispatcher.setMaxRequests(MAX_DISCOVERY_HTTP_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(MAX_DISCOVERY_HTTP_REQUESTS);
+            discoveryHttpClient = getHttpClient().newBuilder()
+                    .dispatcher(dispatcher)
+                    .build();
+        }
+        return discoveryHttpClient;
+    }
+
+    /**
+     * @return Number of tasks waiting for a worker
+     */
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * @return Number of delayed and periodic tasks that are not due yet
+     */
+    public int getScheduledCount() {
+        return timer.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return workers.getActiveCount();
+    }
+
+    public int getThreadCount() {
+        return workers.getPoolSize() + io.getPoolSize() + timer.getPoolSize();
+    }
+
+    public long getExecutedCount() {
+        return executedTasks.get();
+    }
+
+    /**
+     * @return Average time in ms between a task becoming due and a worker starting it
+     */
+    public double getAverageLatency() {
+        long count = executedTasks.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLatency.get()) / 1000d / count;
+    }
+
+    /**
+     * @return Longest time in ms between a task becoming due and a worker starting it
+     */
+    public double getMaxLatency() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLatency.get()) / 1000d;
+    }
+
+    public void resetStats() {
+        executedTasks.set(0);
+        totalLatency.set(0);
+        maxLatency.set(0);
+    }
+
+    private void recordLatency(long latency) {
+        executedTasks.incrementAndGet();
+        totalLatency.addAndGet(latency);
+
+        long max;
+        do {
+            max = maxLatency.get();
+        } while (latency > max && !maxLatency.compareAndSet(max, latency));
+    }
+
+    /**
+     * Runs on the timer thread and moves a due task to the workers
+     */
+    private class HandOff implements Runnable {
+        final Runnable runnable;
+        final int priority;
+        final AtomicBoolean pending;
+        volatile ScheduledFuture<?> future;
+
+        HandOff(Runnable runnable, int priority, boolean periodic) {
+            this.runnable = runnable;
+            this.priority = priority;
+            this.pending = periodic ? new AtomicBoolean(false) : null;
+        }
+
+        @Override
+        public void run() {
+            if (pending != null && !pending.compareAndSet(false, true)) {
+                return;
+            }
+            workers.execute(new PriorityTask(runnable, priority, sequence.getAndIncrement(), this));
+        }
+    }
+
+    private class PriorityTask implements Runnable, Comparable<PriorityTask> {
+        final Runnable runnable;
+        final int priority;
+        final long sequence;
+        final long queued = System.nanoTime();
+        final HandOff handOff;
+
+        PriorityTask(Runnable runnable, int priority, long sequence, HandOff handOff) {
+            this.runnable = runnable;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.handOff = handOff;
+        }
+
+        @Override
+        public void run() {
+            recordLatency(System.nanoTime() - queued);
+
+            try {
+                if (handOff == null || handOff.future == null || !handOff.future.isCancelled()) {
+                    runnable.run();
+                }
+            } finally {
+                if (handOff != null && handOff.pending != null) {
+                    handOff.pending.set(false);
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(PriorityTask other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.github.se_bastiaan.beam.util;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class IOUtil {
+
+    /**
+     * Read a string written by {@link #writeString(DataOutputStream, String)}
+     * @param in {@link DataInputStream}
+     * @return {@link String}, may be null
+     * @throws IOException
+     */
+    public static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Write a string that may be null
+     * @param out {@link DataOutputStream}
+     * @param value {@link String}
+     * @throws IOException
+     */
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    public static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+}
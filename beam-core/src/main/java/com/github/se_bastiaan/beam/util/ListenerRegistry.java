@@ -0,0 +1,102 @@
+package com.github.se_bastiaan.beam.util;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Listeners together with the {@link Executor} their callbacks are delivered on.
+ * @param <T> Listener type
+ */
+public class ListenerRegistry<T> {
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final CopyOnWriteArrayList<Registration<T>> registrations = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return {@link Executor} that runs on the calling thread, events for it are delivered inline
+     */
+    public static Executor directExecutor() {
+        return DIRECT_EXECUTOR;
+    }
+
+    /**
+     * @param listener Listener
+     * @param executor {@link Executor} the callbacks run on, e.g. the main thread of the platform or
+     *                 {@link #directExecutor()}
+     */
+    public void add(T listener, Executor executor) {
+        registrations.add(new Registration<>(listener, executor));
+    }
+
+    public void remove(T listener) {
+        for (Registration<T> registration : registrations) {
+            if (registration.listener.equals(listener)) {
+                registration.removed = true;
+                registrations.remove(registration);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return registrations.isEmpty();
+    }
+
+    /**
+     * Deliver an event to every listener on its own executor. A listener that is removed before its executor runs the
+     * event does not receive it.
+     * @param event {@link Event}
+     */
+    public void dispatch(Event<T> event) {
+        for (Registration<T> registration : registrations) {
+            deliver(registration, event);
+        }
+    }
+
+    /**
+     * Deliver an event to a single listener, e.g. the current state right after it was added
+     * @param listener Listener
+     * @param executor {@link Executor} the callback runs on
+     * @param event {@link Event}
+     */
+    public static <T> void dispatch(T listener, Executor executor, Event<T> event) {
+        deliver(new Registration<>(listener, executor), event);
+    }
+
+    private static <T> void deliver(final Registration<T> registration, final Event<T> event) {
+        if (registration.executor == DIRECT_EXECUTOR) {
+            event.dispatch(registration.listener);
+            return;
+        }
+
+        registration.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!registration.removed) {
+                    event.dispatch(registration.listener);
+                }
+            }
+        });
+    }
+
+    public interface Event<T> {
+        void dispatch(T listener);
+    }
+
+    private static class Registration<T> {
+        final T listener;
+        final Executor executor;
+        volatile boolean removed = false;
+
+        Registration(T listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+
+}
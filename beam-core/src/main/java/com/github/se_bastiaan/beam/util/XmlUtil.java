@@ -0,0 +1,94 @@
+package com.github.se_bastiaan.beam.util;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+public class XmlUtil {
+
+    private static XmlPullParserFactory factory;
+
+    /**
+     * Create a pull parser without namespace processing or validation. Unlike android.util.Xml#newPullParser()
+     * this also works on a plain JVM, as long as an XmlPull implementation is on the classpath.
+     * @return {@link XmlPullParser}
+     * @throws XmlPullParserException
+     */
+    public static synchronized XmlPullParser newPullParser() throws XmlPullParserException {
+        if (factory == null) {
+            factory = XmlPullParserFactory.newInstance();
+            factory.setNamespaceAware(false);
+            factory.setValidating(false);
+        }
+
+        // FEATURE_PROCESS_DOCDECL is off by default, the doctype is skipped without loading anything
+        return factory.newPullParser();
+    }
+
+    /**
+     * Decode the predefined entities and character references of a document that was sent XML encoded, e.g. inside
+     * the text of another document. Unknown entities are left as they are.
+     * @param text {@link String}
+     * @return {@link String}
+     */
+    public static String unescape(String text) {
+        int amp = text.indexOf('&');
+        if (amp == -1) {
+            return text;
+        }
+
+        StringBuilder builder = new StringBuilder(text.length());
+        int start = 0;
+        while (amp != -1) {
+            int semicolon = text.indexOf(';', amp);
+            if (semicolon == -1) {
+                break;
+            }
+
+            String replacement = decodeEntity(text.substring(amp + 1, semicolon));
+            if (replacement == null) {
+                builder.append(text, start, amp + 1);
+                start = amp + 1;
+            } else {
+                builder.append(text, start, amp).append(replacement);
+                start = semicolon + 1;
+            }
+            amp = text.indexOf('&', start);
+        }
+        builder.append(text, start, text.length());
+
+        return builder.toString();
+    }
+
+    private static String decodeEntity(String entity) {
+        switch (entity) {
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "amp":
+                return "&";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+        }
+
+        if (entity.length() < 2 || entity.charAt(0) != '#') {
+            return null;
+        }
+
+        try {
+            int codePoint;
+            if (entity.charAt(1) == 'x' || entity.charAt(1) == 'X') {
+                codePoint = Integer.parseInt(entity.substring(2), 16);
+            } else {
+                codePoint = Integer.parseInt(entity.substring(1));
+            }
+            return new String(Character.toChars(codePoint));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.github.se_bastiaan.beam;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Protocol payloads for tests and benchmarks, in src/test/resources/payloads. SSDP packets keep their CRLF line
+ * endings, all files are stored as sent on the wire.
+ */
+public class Payloads {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * @param path Path relative to the payloads directory, e.g. "ssdp/samsung-tv-notify.ssdp"
+     * @return Bytes of the payload
+     */
+    public static byte[] readBytes(String path) {
+        InputStream in = Payloads.class.getResourceAsStream("/payloads/" + path);
+        if (in == null) {
+            throw new IllegalArgumentException("Unknown payload: " + path);
+        }
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    public static String read(String path) {
+        return new String(readBytes(path), UTF_8);
+    }
+
+}
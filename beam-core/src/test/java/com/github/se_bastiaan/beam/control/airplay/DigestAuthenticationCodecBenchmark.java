@@ -0,0 +1,66 @@
+package com.github.se_bastiaan.beam.control.airplay;
+
+import com.github.se_bastiaan.beam.Payloads;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answering a digest challenge of a password protected AirPlay device, done for every request that is challenged
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigestAuthenticationCodecBenchmark {
+
+    private static final String USERNAME = "Airplay";
+    private static final String PASSWORD = "1234";
+    private static final String METHOD = "POST";
+    private static final String URI = "/play";
+
+    private String challenge;
+    private Map<String, String> params;
+
+    @Setup
+    public void setUp() {
+        challenge = Payloads.read("airplay/www-authenticate.txt");
+        params = DigestAuthentication.getAuthParams(challenge);
+
+        if (!"AirPlay".equals(params.get("realm")) || params.get("nonce") == null) {
+            throw new IllegalStateException("Challenge was not parsed");
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> parseChallenge() {
+        return DigestAuthentication.getAuthParams(challenge);
+    }
+
+    @Benchmark
+    public String authorizationHeader() {
+        return DigestAuthentication.makeAuthorizationHeader(params, USERNAME, PASSWORD, METHOD, URI);
+    }
+
+    /**
+     * Both steps, as done by the authenticator of AirPlayControlClient
+     */
+    @Benchmark
+    public String respond() {
+        return DigestAuthentication.makeAuthorizationHeader(DigestAuthentication.getAuthParams(challenge), USERNAME, PASSWORD, METHOD, URI);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.github.se_bastiaan.beam.control.airplay;
+
+import com.github.se_bastiaan.beam.Payloads;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Property list parsing of the playback-info responses AirPlayControlClient polls for, and building of requests
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyListCodecBenchmark {
+
+    private String playbackInfo;
+
+    @Setup
+    public void setUp() throws Exception {
+        playbackInfo = Payloads.read("airplay/playback-info.plist");
+
+        Map<String, Object> plist = PropertyListParser.parse(playbackInfo);
+        if (plist == null || !Double.valueOf(2225.528).equals(plist.get("position"))) {
+            throw new IllegalStateException("Payload was not parsed");
+        }
+        if (!build().contains("<key>Content-Location</key>")) {
+            throw new IllegalStateException("Property list was not built");
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> parse() throws Exception {
+        return PropertyListParser.parse(playbackInfo);
+    }
+
+    @Benchmark
+    public String build() {
+        PropertyListBuilder builder = new PropertyListBuilder();
+        builder.putString("Content-Location", "http://192.168.1.10:8080/video/big_buck_bunny_1080p.mp4");
+        builder.putReal("Start-Position", 0.3625);
+        builder.putInteger("rate", 1);
+        builder.putBoolean("readyToPlay", true);
+        return builder.toString();
+    }
+
+}
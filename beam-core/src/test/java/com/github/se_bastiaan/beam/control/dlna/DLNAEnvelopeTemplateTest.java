@@ -0,0 +1,188 @@
+package com.github.se_bastiaan.beam.control.dlna;
+
+import com.github.se_bastiaan.beam.SubtitleData;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import okio.ByteString;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares {@link DLNAEnvelopeTemplate} with the DOM envelopes of {@link DLNAMessageBuilder} it replaced, for every
+ * action DLNAControlClient sends. Building speed is measured by DLNAMessageCodecBenchmark.
+ */
+public class DLNAEnvelopeTemplateTest {
+
+    private static final String AV_TRANSPORT_URN = "urn:schemas-upnp-org:service:AVTransport:1";
+    private static final String RENDERING_CONTROL_URN = "urn:schemas-upnp-org:service:RenderingControl:1";
+
+    private static final String VIDEO_URL = "http://192.168.1.10:8080/video/Big Buck Bunny (2008) [1080p].mp4";
+
+    @Test
+    public void setAVTransportURI() throws Exception {
+        SubtitleData subtitle = new SubtitleData.Builder("http://192.168.1.10:8080/subtitle/Big Buck Bunny.en.srt")
+                .setMimeType("text/srt")
+                .build();
+        String metadata = DLNAMessageBuilder.getMetadata(VIDEO_URL, subtitle, "video/mp4",
+                "Big Buck Bunny & Friends <Director's Cut>", "http://192.168.1.10:8080/image/poster.jpg");
+        assertNotNull(metadata);
+
+        assertSameAsDom(AV_TRANSPORT_URN, "SetAVTransportURI", "0",
+                "CurrentURI", DLNAMessageBuilder.encodeURL(VIDEO_URL),
+                "CurrentURIMetaData", metadata);
+    }
+
+    @Test
+    public void transportActions() throws Exception {
+        assertSameAsDom(AV_TRANSPORT_URN, "Play", "0", "Speed", "1");
+        assertSameAsDom(AV_TRANSPORT_URN, "Pause", "0");
+        assertSameAsDom(AV_TRANSPORT_URN, "Seek", "0", "Unit", "REL_TIME", "Target", "01:02:03");
+        assertSameAsDom(AV_TRANSPORT_URN, "Stop", "0");
+        assertSameAsDom(AV_TRANSPORT_URN, "GetPositionInfo", "0");
+        assertSameAsDom(AV_TRANSPORT_URN, "GetTransportInfo", "0");
+    }
+
+    @Test
+    public void renderingControlActions() throws Exception {
+        assertSameAsDom(RENDERING_CONTROL_URN, "SetVolume", "0", "Channel", "Master", "DesiredVolume", "24");
+        assertSameAsDom(RENDERING_CONTROL_URN, "GetVolume", "0", "Channel", "Master");
+    }
+
+    @Test
+    public void actionWithoutArguments() throws Exception {
+        DLNAEnvelopeTemplate template = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN, "GetDeviceCapabilities");
+        String dom = DLNAMessageBuilder.getMessageXml(AV_TRANSPORT_URN, "GetDeviceCapabilities", null, null);
+
+        assertEquals(dom, template.encode().utf8());
+    }
+
+    @Test
+    public void escapesText() throws Exception {
+        assertSameAsDom(AV_TRANSPORT_URN, "Seek", "0", "Unit", "a & b < c > d \" e ' f", "Target", "line\r\nnext");
+        assertSameAsDom(AV_TRANSPORT_URN, "Seek", "0", "Unit", "tab\there", "Target", "]]> end");
+    }
+
+    @Test
+    public void escapesControlCharacters() throws Exception {
+        assertSameAsDom(AV_TRANSPORT_URN, "Seek", "0", "Unit", "del \u007F next \u0085", "Target", "\u0080\u009F");
+        assertEquals("<Unit>&#127;&#133;</Unit>", element(AV_TRANSPORT_URN, "Unit", "\u007F\u0085"));
+    }
+
+    @Test
+    public void escapesSupplementaryCharacters() throws Exception {
+        String emoji = new String(Character.toChars(0x1F3AC));
+        assertSameAsDom(AV_TRANSPORT_URN, "Seek", "0", "Unit", "clapper " + emoji, "Target", emoji + emoji);
+        assertEquals("<Unit>&#127916;</Unit>", element(AV_TRANSPORT_URN, "Unit", emoji));
+
+        // Characters of the basic plane are written as they are
+        assertSameAsDom(AV_TRANSPORT_URN, "Seek", "0", "Unit", "café 日本", "Target", "€");
+    }
+
+    @Test
+    public void escapesServiceURN() throws Exception {
+        assertSameAsDom("urn:a&b<c>\"d\"\te\nf\rg", "Stop", "0");
+    }
+
+    @Test
+    public void writesEmptyValuesAsEmptyElements() throws Exception {
+        assertSameAsDom(AV_TRANSPORT_URN, "Seek", "0", "Unit", "", "Target", "");
+        assertSameAsDom(AV_TRANSPORT_URN, "Seek", "", "Unit", "REL_TIME", "Target", "");
+
+        DLNAEnvelopeTemplate template = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN, "Seek", "InstanceID", "Unit",
+                "Target");
+        assertEquals(template.encode("0", "REL_TIME", ""), template.encode("0", "REL_TIME", null));
+    }
+
+    @Test
+    public void rejectsInvalidNames() {
+        assertCompileFails(null, "Play");
+        assertCompileFails("", "Play");
+        assertCompileFails(AV_TRANSPORT_URN, null);
+        assertCompileFails(AV_TRANSPORT_URN, "");
+        assertCompileFails(AV_TRANSPORT_URN, "u:Play");
+        assertCompileFails(AV_TRANSPORT_URN, "1Play");
+        assertCompileFails(AV_TRANSPORT_URN, "Play Now");
+        assertCompileFails(AV_TRANSPORT_URN, "Play", "Instance ID");
+        assertCompileFails(AV_TRANSPORT_URN, "Play", "-Speed");
+        assertCompileFails(AV_TRANSPORT_URN, "Play", "Spéed");
+        assertCompileFails("urn:\u0001", "Play");
+    }
+
+    @Test
+    public void rejectsWrongNumberOfValues() {
+        DLNAEnvelopeTemplate template = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN, "Play", "InstanceID", "Speed");
+
+        assertEncodeFails(template, "0");
+        assertEncodeFails(template, "0", "1", "2");
+    }
+
+    @Test
+    public void rejectsInvalidXmlCharacters() {
+        DLNAEnvelopeTemplate template = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN, "Play", "InstanceID", "Speed");
+
+        assertEncodeFails(template, "0", "\u0000");
+        assertEncodeFails(template, "0", "a\u0001b");
+        assertEncodeFails(template, "0", "\u001F");
+        assertEncodeFails(template, "0", "\uD83C");
+        assertEncodeFails(template, "0", "\uDFACa");
+        assertEncodeFails(template, "0", "a\uD83C");
+        assertEncodeFails(template, "0", "\uFFFE");
+        assertEncodeFails(template, "0", "\uFFFF");
+    }
+
+    /**
+     * @param namesAndValues Names and values of the arguments after InstanceID, alternating
+     */
+    private static void assertSameAsDom(String serviceURN, String method, String instanceId,
+                                        String... namesAndValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        String[] names = new String[namesAndValues.length / 2 + 1];
+        String[] values = new String[names.length];
+        names[0] = "InstanceID";
+        values[0] = instanceId;
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            params.put(namesAndValues[i], namesAndValues[i + 1]);
+            names[i / 2 + 1] = namesAndValues[i];
+            values[i / 2 + 1] = namesAndValues[i + 1];
+        }
+
+        String dom = DLNAMessageBuilder.getMessageXml(serviceURN, method, instanceId, params);
+        assertNotNull(dom);
+
+        DLNAEnvelopeTemplate template = DLNAEnvelopeTemplate.compile(serviceURN, method, names);
+        assertEquals(ByteString.encodeUtf8(dom), template.encode(values));
+    }
+
+    /**
+     * @return The element of a single argument as the template writes it
+     */
+    private static String element(String serviceURN, String name, String value) {
+        String envelope = DLNAEnvelopeTemplate.compile(serviceURN, "Seek", name).encode(value).utf8();
+        int start = envelope.indexOf("<" + name + ">");
+        int end = envelope.indexOf("</" + name + ">") + name.length() + 3;
+        return envelope.substring(start, end);
+    }
+
+    private static void assertCompileFails(String serviceURN, String method, String... arguments) {
+        try {
+            DLNAEnvelopeTemplate.compile(serviceURN, method, arguments);
+            fail("Compiled " + method + " of " + serviceURN);
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void assertEncodeFails(DLNAEnvelopeTemplate template, String... values) {
+        try {
+            template.encode(values);
+            fail("Encoded " + values.length + " values");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+}
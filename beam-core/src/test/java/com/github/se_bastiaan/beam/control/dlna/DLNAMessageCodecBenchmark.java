@@ -0,0 +1,128 @@
+package com.github.se_bastiaan.beam.control.dlna;
+
+import com.github.se_bastiaan.beam.SubtitleData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okio.ByteString;
+
+/**
+ * Building of the messages DLNAControlClient sends, an envelope is built for every command and every poll. The
+ * envelope benchmarks build through the DOM, the *Template ones through {@link DLNAEnvelopeTemplate}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DLNAMessageCodecBenchmark {
+
+    private static final String AV_TRANSPORT_URN = "urn:schemas-upnp-org:service:AVTransport:1";
+    private static final String RENDERING_CONTROL_URN = "urn:schemas-upnp-org:service:RenderingControl:1";
+
+    private static final String VIDEO_URL = "http://192.168.1.10:8080/video/Big Buck Bunny (2008) [1080p].mp4";
+    private static final String VIDEO_MIME = "video/mp4";
+    private static final String TITLE = "Big Buck Bunny & Friends <Director's Cut>";
+    private static final String IMAGE_URL = "http://192.168.1.10:8080/image/poster.jpg";
+
+    private SubtitleData subtitle;
+    private Map<String, String> volumeParams;
+    private Map<String, String> transportUriParams;
+
+    private DLNAEnvelopeTemplate positionInfoTemplate;
+    private DLNAEnvelopeTemplate volumeTemplate;
+    private DLNAEnvelopeTemplate transportUriTemplate;
+
+    @Setup
+    public void setUp() {
+        subtitle = new SubtitleData.Builder("http://192.168.1.10:8080/subtitle/Big Buck Bunny.en.srt")
+                .setMimeType("text/srt")
+                .build();
+
+        volumeParams = new LinkedHashMap<>();
+        volumeParams.put("Channel", "Master");
+        volumeParams.put("DesiredVolume", "24");
+
+        transportUriParams = new LinkedHashMap<>();
+        transportUriParams.put("CurrentURI", VIDEO_URL);
+        transportUriParams.put("CurrentURIMetaData", DLNAMessageBuilder.getMetadata(VIDEO_URL, subtitle, VIDEO_MIME, TITLE, IMAGE_URL));
+
+        if (transportUriParams.get("CurrentURIMetaData") == null || envelopeWithParams() == null) {
+            throw new IllegalStateException("Messages could not be built");
+        }
+
+        positionInfoTemplate = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN, "GetPositionInfo", "InstanceID");
+        volumeTemplate = DLNAEnvelopeTemplate.compile(RENDERING_CONTROL_URN, "SetVolume", "InstanceID", "Channel",
+                "DesiredVolume");
+        transportUriTemplate = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN, "SetAVTransportURI", "InstanceID",
+                "CurrentURI", "CurrentURIMetaData");
+
+        if (!envelopeTemplate().equals(ByteString.encodeUtf8(envelope()))
+                || !envelopeWithParamsTemplate().equals(ByteString.encodeUtf8(envelopeWithParams()))
+                || !envelopeWithMetadataTemplate().equals(ByteString.encodeUtf8(envelopeWithMetadata()))) {
+            throw new IllegalStateException("Templates do not match the DOM envelopes");
+        }
+    }
+
+    /**
+     * GetPositionInfo, GetTransportInfo and others, sent on every poll
+     */
+    @Benchmark
+    public String envelope() {
+        return DLNAMessageBuilder.getMessageXml(AV_TRANSPORT_URN, "GetPositionInfo", "0", null);
+    }
+
+    @Benchmark
+    public String envelopeWithParams() {
+        return DLNAMessageBuilder.getMessageXml(RENDERING_CONTROL_URN, "SetVolume", "0", volumeParams);
+    }
+
+    /**
+     * SetAVTransportURI, the metadata is escaped into the envelope
+     */
+    @Benchmark
+    public String envelopeWithMetadata() {
+        return DLNAMessageBuilder.getMessageXml(AV_TRANSPORT_URN, "SetAVTransportURI", "0", transportUriParams);
+    }
+
+    @Benchmark
+    public ByteString envelopeTemplate() {
+        return positionInfoTemplate.encode("0");
+    }
+
+    @Benchmark
+    public ByteString envelopeWithParamsTemplate() {
+        return volumeTemplate.encode("0", volumeParams.get("Channel"), volumeParams.get("DesiredVolume"));
+    }
+
+    @Benchmark
+    public ByteString envelopeWithMetadataTemplate() {
+        return transportUriTemplate.encode("0", transportUriParams.get("CurrentURI"),
+                transportUriParams.get("CurrentURIMetaData"));
+    }
+
+    @Benchmark
+    public String metadata() {
+        return DLNAMessageBuilder.getMetadata(VIDEO_URL, null, VIDEO_MIME, TITLE, IMAGE_URL);
+    }
+
+    @Benchmark
+    public String metadataWithSubtitle() {
+        return DLNAMessageBuilder.getMetadata(VIDEO_URL, subtitle, VIDEO_MIME, TITLE, IMAGE_URL);
+    }
+
+}
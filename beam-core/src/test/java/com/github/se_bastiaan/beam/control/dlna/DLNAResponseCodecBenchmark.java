@@ -0,0 +1,71 @@
+package com.github.se_bastiaan.beam.control.dlna;
+
+import com.github.se_bastiaan.beam.Payloads;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading of the responses DLNAControlClient receives while polling a playing renderer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DLNAResponseCodecBenchmark {
+
+    private String positionInfo;
+    private String transportInfo;
+    private String volume;
+
+    @Setup
+    public void setUp() {
+        positionInfo = Payloads.read("dlna/get-position-info-response.xml");
+        transportInfo = Payloads.read("dlna/get-transport-info-response.xml");
+        volume = Payloads.read("dlna/get-volume-response.xml");
+
+        if (DLNAResponseParser.convertStrTimeFormatToLong(DLNAResponseParser.parseData(positionInfo, "RelTime")) != 2225000
+                || !"PLAYING".equals(DLNAResponseParser.parseData(transportInfo, "CurrentTransportState"))
+                || !"24".equals(DLNAResponseParser.parseData(volume, "CurrentVolume"))) {
+            throw new IllegalStateException("Responses were not parsed");
+        }
+    }
+
+    /**
+     * GetPositionInfo, as read on every poll
+     */
+    @Benchmark
+    public void positionInfo(Blackhole blackhole) {
+        blackhole.consume(DLNAResponseParser.convertStrTimeFormatToLong(DLNAResponseParser.parseData(positionInfo, "TrackDuration")));
+        blackhole.consume(DLNAResponseParser.convertStrTimeFormatToLong(DLNAResponseParser.parseData(positionInfo, "RelTime")));
+    }
+
+    @Benchmark
+    public String transportInfo() {
+        return DLNAResponseParser.parseData(transportInfo, "CurrentTransportState");
+    }
+
+    @Benchmark
+    public String volume() {
+        return DLNAResponseParser.parseData(volume, "CurrentVolume");
+    }
+
+    @Benchmark
+    public long convertTime() {
+        return DLNAResponseParser.convertStrTimeFormatToLong("01:42:17");
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.device.BeamDevice;
+import com.github.se_bastiaan.beam.device.UnifiedDevice;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the command latencies of unified devices survive {@link DeviceUnifier#clear()}, e.g. when discovery
+ * stops and starts again
+ */
+public class DeviceUnifierTest {
+
+    @Test
+    public void keepsLatencyAfterClear() throws Exception {
+        DeviceUnifier unifier = new DeviceUnifier();
+        FirstProtocolDevice first = new FirstProtocolDevice("first", "192.168.1.20");
+        SecondProtocolDevice second = new SecondProtocolDevice("second", "192.168.1.20");
+
+        UnifiedDevice unifiedDevice = unify(unifier, first, second);
+        unifiedDevice.recordLatency(FirstProtocolDevice.class, 400);
+        unifiedDevice.recordLatency(SecondProtocolDevice.class, 100);
+        assertSame(second, unifiedDevice.getPreferredMembers().get(0));
+
+        unifier.clear();
+        assertTrue(unifier.getDevices().isEmpty());
+
+        UnifiedDevice foundAgain = unify(unifier, first, second);
+        assertNotSame(unifiedDevice, foundAgain);
+        assertEquals(400, foundAgain.getLatency(FirstProtocolDevice.class), 0);
+        assertEquals(100, foundAgain.getLatency(SecondProtocolDevice.class), 0);
+        assertSame(second, foundAgain.getPreferredMembers().get(0));
+    }
+
+    @Test
+    public void keysLatencyByMember() throws Exception {
+        DeviceUnifier unifier = new DeviceUnifier();
+        UnifiedDevice living = unify(unifier, new FirstProtocolDevice("living", "192.168.1.20"),
+                new SecondProtocolDevice("living-second", "192.168.1.20"));
+        UnifiedDevice bedroom = unify(unifier, new FirstProtocolDevice("bedroom", "192.168.1.21"),
+                new SecondProtocolDevice("bedroom-second", "192.168.1.21"));
+        assertNotSame(living, bedroom);
+
+        living.recordLatency(FirstProtocolDevice.class, 250);
+
+        assertEquals(250, living.getLatency(FirstProtocolDevice.class), 0);
+        assertEquals(-1, living.getLatency(SecondProtocolDevice.class), 0);
+        assertEquals(-1, bedroom.getLatency(FirstProtocolDevice.class), 0);
+    }
+
+    private static UnifiedDevice unify(DeviceUnifier unifier, BeamDevice... devices) {
+        List<BeamDevice> none = Collections.emptyList();
+        unifier.apply(new DeviceDiff(Arrays.asList(devices), none, none));
+
+        UnifiedDevice unifiedDevice = unifier.getUnifiedDevice(devices[0]);
+        assertNotNull(unifiedDevice);
+        assertEquals(devices.length, unifiedDevice.getMembers().size());
+        return unifiedDevice;
+    }
+
+    private static class FirstProtocolDevice extends BeamDevice {
+        private final String hostAddress;
+
+        FirstProtocolDevice(String id, String hostAddress) {
+            this.id = id;
+            this.name = id;
+            this.hostAddress = hostAddress;
+        }
+
+        @Override
+        public String getHostAddress() {
+            return hostAddress;
+        }
+    }
+
+    private static class SecondProtocolDevice extends FirstProtocolDevice {
+        SecondProtocolDevice(String id, String hostAddress) {
+            super(id, hostAddress);
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.github.se_bastiaan.beam.discovery;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the start and stop of a discovery session the way DiscoveryManager does, with a stop that arrives while a
+ * reconnect starts the clients again
+ */
+public class DiscoveryClientStartupsTest {
+
+    @Test
+    public void startsClientsWhileOpen() throws Exception {
+        ReadyCallback callback = new ReadyCallback();
+        DiscoveryClientStartups startups = new DiscoveryClientStartups(callback);
+        FakeClient client = new FakeClient(null);
+
+        startups.open();
+        assertTrue(startups.startAll(Collections.<DiscoveryClient>singletonList(client)));
+        callback.await();
+
+        assertTrue(client.running);
+        assertSame(client, startups.get(FakeClient.class).get());
+    }
+
+    @Test
+    public void stopBeforeReconnectStartsNothing() throws Exception {
+        DiscoveryClientStartups startups = new DiscoveryClientStartups(null);
+        FakeClient client = new FakeClient(null);
+
+        startups.open();
+        startups.close();
+
+        assertFalse(startups.startAll(Collections.<DiscoveryClient>singletonList(client)));
+        assertNull(startups.get(FakeClient.class));
+        assertEquals(0, client.starts);
+    }
+
+    @Test
+    public void stopDuringReconnectStopsStartingClient() throws Exception {
+        ReadyCallback callback = new ReadyCallback();
+        DiscoveryClientStartups startups = new DiscoveryClientStartups(callback);
+        CountDownLatch release = new CountDownLatch(1);
+        FakeClient client = new FakeClient(release);
+
+        startups.open();
+        assertTrue(startups.startAll(Collections.<DiscoveryClient>singletonList(client)));
+        assertTrue(client.starting.await(5, TimeUnit.SECONDS));
+
+        // stop() while the reconnect is still starting the client
+        startups.close();
+        client.stop();
+        release.countDown();
+        callback.await();
+
+        assertFalse(client.running);
+        assertEquals(1, client.starts);
+    }
+
+    private static class ReadyCallback implements DiscoveryClientStartup.Callback {
+        final CountDownLatch ready = new CountDownLatch(1);
+
+        @Override
+        public void onReady(DiscoveryClientStartup startup, Throwable error) {
+            ready.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(ready.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static class FakeClient implements DiscoveryClient {
+        final CountDownLatch starting = new CountDownLatch(1);
+        final CountDownLatch release;
+        volatile boolean running = false;
+        volatile int starts = 0;
+
+        FakeClient(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void start() {
+            starts++;
+            starting.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            running = true;
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+        }
+
+        @Override
+        public void restart() {
+        }
+
+        @Override
+        public void rescan() {
+        }
+
+        @Override
+        public void searchOnce() {
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void revalidate() {
+        }
+
+        @Override
+        public void addListener(DiscoveryClientListener listener) {
+        }
+
+        @Override
+        public void removeListener(DiscoveryClientListener listener) {
+        }
+
+        @Override
+        public void setFilters(List<DiscoveryFilter> filters) {
+        }
+
+        @Override
+        public void setPowerMode(DiscoveryPowerMode mode) {
+        }
+    }
+
+}
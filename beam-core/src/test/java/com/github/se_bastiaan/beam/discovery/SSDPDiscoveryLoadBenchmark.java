@@ -0,0 +1,266 @@
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.device.BeamDevice;
+import com.github.se_bastiaan.beam.discovery.client.SSDPDiscoveryClient;
+import com.github.se_bastiaan.beam.discovery.ssdp.SSDPClient;
+import com.github.se_bastiaan.beam.emulator.RendererSwarm;
+import com.github.se_bastiaan.beam.platform.JavaPlatform;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Discovers an emulated swarm of MediaRenderers on loopback and reports how discovery scales with the number of
+ * devices: latency until a share of the devices is found, CPU time of the discovery threads and retained heap.
+ * <p/>
+ * The swarm sizes default to a quick run, larger runs are started with e.g.
+ * -Dbeam.swarm.sizes=1000,2000,5000 -Dbeam.swarm.timeout=300. Every renderer gets its own loopback address unless
+ * -Dbeam.swarm.hosts limits the number of addresses.
+ * <p/>
+ * Not a unit test, it takes minutes and floods the multicast group. Run it with ./gradlew :beam-core:swarmBenchmark,
+ * the system properties are passed on, e.g. ./gradlew :beam-core:swarmBenchmark -Dbeam.swarm.sizes=1000
+ */
+public class SSDPDiscoveryLoadBenchmark {
+
+    private static final String SIZES = System.getProperty("beam.swarm.sizes", "50,200");
+    private static final long TIMEOUT = Long.getLong("beam.swarm.timeout", 60);
+    private static final int HOSTS = Integer.getInteger("beam.swarm.hosts", 1024);
+    private static final String GROUP = "239.255.77.77";
+    private static final int BASE_PORT = 19000;
+
+    private static final String[] DISCOVERY_THREADS = { "BeamWorker", "BeamTimer", "SSDPResponse", "SSDPNotify" };
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.net.preferIPv4Stack", "true");
+
+        boolean complete = true;
+        int run = 0;
+        for (String size : SIZES.split(",")) {
+            Result result = discover(Integer.parseInt(size.trim()), BASE_PORT + run++);
+            System.out.println(result);
+            if (result.found != result.count) {
+                System.out.println("Only " + result.found + " of " + result.count + " devices found within "
+                        + TIMEOUT + " s");
+                complete = false;
+            }
+        }
+
+        // The discovery threads are not daemons
+        System.exit(complete ? 0 : 1);
+    }
+
+    private static Result discover(int count, int port) throws Exception {
+        InetAddress loopback = InetAddress.getByName("127.0.0.1");
+        InetSocketAddress group = new InetSocketAddress(GROUP, port);
+        File cacheDir = createCacheDir();
+
+        RendererSwarm swarm = new RendererSwarm.Builder()
+                .count(count)
+                .group(group)
+                .interfaceAddress(loopback)
+                .sourceAddresses(Math.min(count, HOSTS))
+                .maxJitter(1000)
+                .notifySpread(1000)
+                .build();
+
+        final Result result = new Result(count);
+        final ConcurrentHashMap<String, Long> found = new ConcurrentHashMap<>();
+        final CountDownLatch complete = new CountDownLatch(count);
+        final AtomicInteger batches = new AtomicInteger();
+
+        final DeviceEventBatcher batcher = new DeviceEventBatcher(new DeviceEventBatcher.Callback() {
+            @Override
+            public void onBatch(DeviceDiff diff) {
+                batches.incrementAndGet();
+            }
+        });
+
+        TestSSDPDiscoveryClient client = new TestSSDPDiscoveryClient(cacheDir, loopback, group);
+        client.addListener(new DiscoveryClientListener() {
+            @Override
+            public void onDeviceAdded(DiscoveryClient client, BeamDevice device) {
+                if (found.putIfAbsent(device.getId(), System.nanoTime()) == null) {
+                    complete.countDown();
+                }
+                batcher.put(device);
+            }
+
+            @Override
+            public void onDeviceRemoved(DiscoveryClient client, BeamDevice device) {
+                batcher.remove(device);
+            }
+        });
+
+        long heapBefore = usedHeap();
+        long cpuBefore = discoveryCpuTime();
+        long processCpuBefore = processCpuTime();
+
+        // The swarm announces itself while the client sends its first searches
+        swarm.start();
+        long start = System.nanoTime();
+        client.start();
+
+        complete.await(TIMEOUT, TimeUnit.SECONDS);
+        long end = System.nanoTime();
+        Thread.sleep(DeviceEventBatcher.BATCH_WINDOW * 2);
+
+        result.found = found.size();
+        result.cpu = discoveryCpuTime() - cpuBefore;
+        result.processCpu = processCpuTime() - processCpuBefore;
+        result.heap = usedHeap() - heapBefore;
+        result.batches = batches.get();
+        result.dropped = client.getDroppedPacketCount();
+        result.searches = swarm.getSearchCount();
+        result.descriptions = swarm.getDescriptionCount();
+        result.total = end - start;
+
+        List<Long> latencies = new ArrayList<>(found.values());
+        Collections.sort(latencies);
+        for (int i = 0; i < latencies.size(); i++) {
+            latencies.set(i, latencies.get(i) - start);
+        }
+        result.latencies = latencies;
+
+        client.reset();
+        swarm.stop();
+        deleteRecursively(cacheDir);
+
+        return result;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return CPU time in ns of the threads that run discovery, threads that already ended are not counted
+     */
+    private static long discoveryCpuTime() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long id : threads.getAllThreadIds()) {
+            ThreadInfo info = threads.getThreadInfo(id);
+            if (info == null) {
+                continue;
+            }
+            for (String name : DISCOVERY_THREADS) {
+                if (info.getThreadName().startsWith(name)) {
+                    total += Math.max(0, threads.getThreadCpuTime(id));
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return CPU time in ns of the whole process, including the swarm
+     */
+    private static long processCpuTime() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static File createCacheDir() throws IOException {
+        File dir = File.createTempFile("beam-swarm", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create " + dir);
+        }
+        return dir;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Discovers on loopback and on the group of the swarm instead of the Wi-Fi interface
+     */
+    private static class TestSSDPDiscoveryClient extends SSDPDiscoveryClient {
+
+        private final InetAddress source;
+        private final InetSocketAddress group;
+
+        TestSSDPDiscoveryClient(File cacheDir, InetAddress source, InetSocketAddress group) {
+            super(new JavaPlatform(cacheDir));
+            this.source = source;
+            this.group = group;
+        }
+
+        @Override
+        protected InetAddress getSourceAddress() {
+            return source;
+        }
+
+        @Override
+        protected SSDPClient createSocket(InetAddress source) throws IOException {
+            return new SSDPClient(source, group);
+        }
+    }
+
+    private static class Result {
+        final int count;
+        int found;
+        long total;
+        long cpu;
+        long processCpu;
+        long heap;
+        int batches;
+        long dropped;
+        long searches;
+        long descriptions;
+        List<Long> latencies;
+
+        Result(int count) {
+            this.count = count;
+        }
+
+        private long percentile(double percentile) {
+            if (latencies.isEmpty()) {
+                return -1;
+            }
+            int index = (int) Math.ceil(percentile * latencies.size()) - 1;
+            return TimeUnit.NANOSECONDS.toMillis(latencies.get(Math.max(0, index)));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ENGLISH,
+                    "%5d renderers: found %d in %d ms (p50 %d ms, p90 %d ms, p100 %d ms), " +
+                            "discovery cpu %d ms, process cpu %d ms, heap %d KB (%d B/device), " +
+                            "%d batches, %d searches, %d descriptions, %d packets dropped",
+                    count, found, TimeUnit.NANOSECONDS.toMillis(total), percentile(0.5), percentile(0.9),
+                    percentile(1), TimeUnit.NANOSECONDS.toMillis(cpu), TimeUnit.NANOSECONDS.toMillis(processCpu),
+                    heap / 1024, count > 0 ? heap / count : 0, batches, searches, descriptions, dropped);
+        }
+    }
+
+}
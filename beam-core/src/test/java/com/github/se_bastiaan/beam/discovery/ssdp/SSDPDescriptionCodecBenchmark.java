@@ -0,0 +1,58 @@
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import com.github.se_bastiaan.beam.Payloads;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of device descriptions with {@link SSDPDeviceDescriptionParser}, done for every new renderer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SSDPDescriptionCodecBenchmark {
+
+    private static final String SEARCH_TARGET = "urn:schemas-upnp-org:device:MediaRenderer:1";
+
+    /* The Sonos description has the renderer as an embedded device, the others as root device */
+    @Param({ "samsung-tv", "sonos-zoneplayer", "kodi" })
+    public String payload;
+
+    private byte[] description;
+
+    @Setup
+    public void setUp() throws Exception {
+        description = Payloads.readBytes("description/" + payload + ".xml");
+
+        SSDPDevice device = parse();
+        if (!SEARCH_TARGET.equals(device.deviceType) || device.serviceList.isEmpty()) {
+            throw new IllegalStateException("Payload was not parsed: " + payload);
+        }
+    }
+
+    @Benchmark
+    public SSDPDevice parse() throws Exception {
+        SSDPDevice device = new SSDPDevice();
+        device.baseURL = "http://192.168.1.35:9197";
+        device.serviceURI = "http://192.168.1.35";
+        new SSDPDeviceDescriptionParser(device, SEARCH_TARGET).parse(new ByteArrayInputStream(description), null);
+        return device;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that changes callers make to the devices they store in or get from {@link SSDPDeviceCache} do not reach the
+ * cached entry
+ */
+public class SSDPDeviceCacheTest {
+
+    private static final String UUID = "uuid:4d696e69-444c-164e-9d41-b827eb0ff3b2";
+    private static final String LOCATION = "http://192.168.1.20:49152/description.xml";
+    private static final String CONTROL_URL = "/upnp/control/AVTransport1";
+
+    @Test
+    public void getReturnsCopy() throws Exception {
+        SSDPDeviceCache cache = new SSDPDeviceCache(File.createTempFile("ssdp", ".cache"));
+        cache.put(UUID, LOCATION, "1", "2", device());
+
+        SSDPDevice first = cache.get(UUID, LOCATION, "1", "2");
+        assertNotNull(first);
+        first.UUID = UUID;
+        first.serviceList.get(0).controlURL = "http://192.168.1.20:49152" + CONTROL_URL;
+
+        SSDPDevice second = cache.get(UUID, LOCATION, "1", "2");
+        assertNotSame(first, second);
+        assertNull(second.UUID);
+        assertEquals("Renderer", second.friendlyName);
+        assertEquals(CONTROL_URL, second.serviceList.get(0).controlURL);
+    }
+
+    @Test
+    public void putStoresCopy() throws Exception {
+        SSDPDeviceCache cache = new SSDPDeviceCache(File.createTempFile("ssdp", ".cache"));
+        SSDPDevice device = device();
+        cache.put(UUID, LOCATION, "1", "2", device);
+
+        device.friendlyName = "Renamed";
+        device.serviceList.clear();
+
+        SSDPDevice cached = cache.get(UUID, LOCATION, "1", "2");
+        assertEquals("Renderer", cached.friendlyName);
+        assertEquals(1, cached.serviceList.size());
+        assertEquals(CONTROL_URL, cached.serviceList.get(0).controlURL);
+    }
+
+    private static SSDPDevice device() {
+        SSDPDevice device = new SSDPDevice();
+        device.friendlyName = "Renderer";
+        device.baseURL = "http://192.168.1.20:49152";
+        device.ipAddress = "192.168.1.20";
+        device.port = 49152;
+
+        Service service = new Service();
+        service.serviceType = "urn:schemas-upnp-org:service:AVTransport:1";
+        service.controlURL = CONTROL_URL;
+        device.serviceList.add(service);
+        return device;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import com.github.se_bastiaan.beam.Payloads;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of received SSDP packets, done for every packet on the multicast and search sockets
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SSDPPacketCodecBenchmark {
+
+    @Param({ "samsung-tv-notify", "sonos-search-response", "lg-webos-search-response", "kodi-notify-byebye" })
+    public String payload;
+
+    private DatagramPacket datagramPacket;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] data = Payloads.readBytes("ssdp/" + payload + ".ssdp");
+
+        // Received packets are backed by the full receive buffer, only the first bytes are the packet
+        byte[] buffer = new byte[SSDPBufferPool.MTU];
+        System.arraycopy(data, 0, buffer, 0, data.length);
+        datagramPacket = new DatagramPacket(buffer, data.length, InetAddress.getByName("192.168.1.35"), 1900);
+
+        SSDPPacket packet = new SSDPPacket(datagramPacket);
+        if (!packet.isValid() || packet.getHeader("USN") == null) {
+            throw new IllegalStateException("Payload was not parsed: " + payload);
+        }
+    }
+
+    /**
+     * The headers SSDPDiscoveryClient reads from every packet
+     */
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        SSDPPacket packet = new SSDPPacket(datagramPacket);
+        blackhole.consume(packet.isType(SSDPClient.NOTIFY));
+        blackhole.consume(packet.getHeader("NT"));
+        blackhole.consume(packet.getHeader("ST"));
+        blackhole.consume(packet.getHeader("NTS"));
+        blackhole.consume(packet.getHeader("USN"));
+        blackhole.consume(packet.getHeader("LOCATION"));
+        blackhole.consume(packet.getMaxAge());
+    }
+
+    @Benchmark
+    public Object parseAllHeaders() {
+        return new SSDPPacket(datagramPacket).getData();
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import org.junit.Test;
+
+import java.net.DatagramPacket;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares {@link SSDPPacket} with the String based parser it replaced, on the fields that
+ * SSDPDiscoveryClient reads from every packet. Parsing speed is measured by SSDPPacketCodecBenchmark.
+ */
+public class SSDPPacketTest {
+
+    private static final String NOTIFY_PACKET = "NOTIFY * HTTP/1.1\r\n" +
+            "HOST: 239.255.255.250:1900\r\n" +
+            "CACHE-CONTROL: max-age=1800\r\n" +
+            "LOCATION: http://192.168.1.20:49152/description.xml\r\n" +
+            "NT: urn:schemas-upnp-org:device:MediaRenderer:1\r\n" +
+            "NTS: ssdp:alive\r\n" +
+            "SERVER: Linux/3.10 UPnP/1.0 Platinum/1.0.5.13\r\n" +
+            "USN: uuid:5f9ec1b3-ed59-1900-4530-00a0deabcdef::urn:schemas-upnp-org:device:MediaRenderer:1\r\n" +
+            "BOOTID.UPNP.ORG: 1\r\n" +
+            "CONFIGID.UPNP.ORG: 1337\r\n" +
+            "\r\n";
+
+    @Test
+    public void parsersAgree() throws Exception {
+        DatagramPacket dp = receivedPacket(NOTIFY_PACKET);
+
+        SSDPPacket packet = new SSDPPacket(dp);
+        LegacySSDPPacket legacy = new LegacySSDPPacket(dp);
+
+        assertTrue(packet.isType(SSDPClient.NOTIFY));
+        assertEquals(legacy.type, packet.getType());
+        assertEquals(legacy.data, packet.getData());
+        for (String key : new String[] { "NT", "NTS", "USN", "LOCATION", "ST" }) {
+            assertEquals(legacy.data.get(key), packet.getHeader(key));
+        }
+        assertEquals("ssdp:alive", packet.getHeader("nts"));
+    }
+
+    @Test
+    public void ignoresBytesPastLength() throws Exception {
+        DatagramPacket dp = receivedPacket("HTTP/1.1 200 OK\nST: upnp:rootdevice\n");
+
+        SSDPPacket packet = new SSDPPacket(dp);
+
+        assertTrue(packet.isType(SSDPClient.OK));
+        assertEquals("upnp:rootdevice", packet.getHeader("ST"));
+        assertEquals(1, packet.getData().size());
+    }
+
+    @Test
+    public void lastRepeatedHeaderWins() throws Exception {
+        DatagramPacket dp = receivedPacket("HTTP/1.1 200 OK\r\n" +
+                "LOCATION: http://192.168.1.20:49152/old.xml\r\n" +
+                "ST: upnp:rootdevice\r\n" +
+                "location: http://192.168.1.20:49152/description.xml\r\n" +
+                "\r\n");
+
+        SSDPPacket packet = new SSDPPacket(dp);
+        LegacySSDPPacket legacy = new LegacySSDPPacket(dp);
+
+        assertEquals("http://192.168.1.20:49152/description.xml", packet.getHeader("LOCATION"));
+        assertEquals(legacy.data.get("LOCATION"), packet.getHeader("LOCATION"));
+        assertEquals(legacy.data.get("LOCATION"), packet.getData().get("LOCATION"));
+        assertTrue(packet.hasHeader("Location"));
+    }
+
+    /**
+     * Mimics SSDPClient: a 1024 byte buffer of which only the first part is filled
+     */
+    private static DatagramPacket receivedPacket(String text) {
+        byte[] buf = new byte[1024];
+        byte[] bytes = text.getBytes(Charset.forName("US-ASCII"));
+        System.arraycopy(bytes, 0, buf, 0, bytes.length);
+        return new DatagramPacket(buf, bytes.length);
+    }
+
+    /**
+     * The String based parser that {@link SSDPPacket} used before
+     */
+    private static class LegacySSDPPacket {
+
+        static final Charset ASCII_CHARSET = Charset.forName("US-ASCII");
+        static final String CRLF = "\r\n";
+        static final String LF = "\n";
+
+        Map<String, String> data = new HashMap<>();
+        String type;
+
+        LegacySSDPPacket(DatagramPacket datagramPacket) {
+            String text = new String(datagramPacket.getData(), ASCII_CHARSET);
+
+            int pos;
+            int eolPos;
+
+            if ((eolPos = text.indexOf(CRLF)) != -1) {
+                pos = eolPos + CRLF.length();
+            } else if ((eolPos = text.indexOf(LF)) != -1) {
+                pos = eolPos + LF.length();
+            } else {
+                return;
+            }
+
+            type = text.substring(0, eolPos);
+
+            while (pos < text.length()) {
+                String line;
+                if ((eolPos = text.indexOf(CRLF, pos)) != -1) {
+                    line = text.substring(pos, eolPos);
+                    pos = eolPos + CRLF.length();
+                } else if ((eolPos = text.indexOf(LF, pos)) != -1) {
+                    line = text.substring(pos, eolPos);
+                    pos = eolPos + LF.length();
+                } else {
+                    break;
+                }
+
+                int index = line.indexOf(':');
+                if (index == -1) {
+                    continue;
+                }
+
+                data.put(asciiUpper(line.substring(0, index)), line.substring(index + 1).trim());
+            }
+        }
+
+        private static String asciiUpper(String text) {
+            char[] chars = text.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                char c = chars[i];
+                chars[i] = (c >= 97 && c <= 122) ? (char) (c - 32) : c;
+            }
+            return new String(chars);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.github.se_bastiaan.beam.discovery.ssdp;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives {@link SSDPRateLimiter} with a fake clock through {@code tryAcquire(source, now)}
+ */
+public class SSDPRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void acceptsBurstThenDrops() throws Exception {
+        SSDPRateLimiter limiter = new SSDPRateLimiter(5, 1);
+        InetAddress source = address(1);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(source, 0));
+        }
+        assertFalse(limiter.tryAcquire(source, 0));
+        assertFalse(limiter.tryAcquire(source, 0));
+
+        assertEquals(5, limiter.getAcceptedPacketCount());
+        assertEquals(2, limiter.getDroppedPacketCount());
+        assertEquals(2, limiter.getDroppedPacketCount(source));
+    }
+
+    @Test
+    public void refillsAtRate() throws Exception {
+        SSDPRateLimiter limiter = new SSDPRateLimiter(5, 2);
+        InetAddress source = address(1);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(source, 0));
+        }
+        assertFalse(limiter.tryAcquire(source, SECOND / 4));
+
+        // Two tokens per second, one is back after half a second
+        assertTrue(limiter.tryAcquire(source, SECOND / 2));
+        assertFalse(limiter.tryAcquire(source, SECOND / 2));
+
+        // A long silence refills the bucket up to the burst, not beyond
+        long later = 60 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(source, later));
+        }
+        assertFalse(limiter.tryAcquire(source, later));
+    }
+
+    @Test
+    public void sourcesHaveTheirOwnBucket() throws Exception {
+        SSDPRateLimiter limiter = new SSDPRateLimiter(1, 1);
+        InetAddress noisy = address(1);
+        InetAddress quiet = address(2);
+
+        assertTrue(limiter.tryAcquire(noisy, 0));
+        assertFalse(limiter.tryAcquire(noisy, 0));
+        assertTrue(limiter.tryAcquire(quiet, 0));
+
+        assertEquals(1, limiter.getDroppedPacketCount(noisy));
+        assertEquals(0, limiter.getDroppedPacketCount(quiet));
+    }
+
+    @Test
+    public void forgetsLeastRecentlySeenSources() throws Exception {
+        SSDPRateLimiter limiter = new SSDPRateLimiter(1, 1);
+        InetAddress first = address(0);
+
+        assertTrue(limiter.tryAcquire(first, 0));
+        assertFalse(limiter.tryAcquire(first, 0));
+        for (int i = 1; i <= SSDPRateLimiter.MAX_SOURCES; i++) {
+            assertTrue(limiter.tryAcquire(address(i), 0));
+        }
+
+        // The bucket of the first source was dropped, it starts with a full burst again
+        assertEquals(0, limiter.getDroppedPacketCount(first));
+        assertTrue(limiter.tryAcquire(first, 0));
+        assertEquals(1, limiter.getDroppedPacketCount());
+    }
+
+    @Test
+    public void clearResetsBuckets() throws Exception {
+        SSDPRateLimiter limiter = new SSDPRateLimiter(1, 1);
+        InetAddress source = address(1);
+
+        assertTrue(limiter.tryAcquire(source, 0));
+        assertFalse(limiter.tryAcquire(source, 0));
+        limiter.clear();
+        assertTrue(limiter.tryAcquire(source, 0));
+    }
+
+    private static InetAddress address(int index) throws Exception {
+        return InetAddress.getByAddress(new byte[] { (byte) 192, (byte) 168, (byte) (index >> 8), (byte) index });
+    }
+
+}
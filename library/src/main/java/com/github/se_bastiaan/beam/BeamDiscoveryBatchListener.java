@@ -0,0 +1,9 @@
+package com.github.se_bastiaan.beam;
+
+import com.github.se_bastiaan.beam.discovery.DeviceDiff;
+
+public interface BeamDiscoveryBatchListener {
+
+    void onDevicesChanged(BeamManager manager, DeviceDiff diff);
+
+}
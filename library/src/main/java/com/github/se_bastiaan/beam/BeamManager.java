@@ -21,20 +21,25 @@ import android.content.Context;
 import com.github.se_bastiaan.beam.control.ControlManager;
 import com.github.se_bastiaan.beam.control.ControlManagerListener;
 import com.github.se_bastiaan.beam.device.BeamDevice;
+import com.github.se_bastiaan.beam.discovery.DeviceDiff;
+import com.github.se_bastiaan.beam.discovery.DeviceSnapshot;
 import com.github.se_bastiaan.beam.discovery.DiscoveryManager;
-import com.github.se_bastiaan.beam.discovery.DiscoveryManagerListener;
+import com.github.se_bastiaan.beam.discovery.DiscoveryManagerBatchListener;
+import com.github.se_bastiaan.beam.util.ListenerRegistry;
+import com.github.se_bastiaan.beam.util.ThreadUtil;
 
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
-public class BeamManager implements DiscoveryManagerListener, ControlManagerListener {
+public class BeamManager implements DiscoveryManagerBatchListener, ControlManagerListener {
 
     private static BeamManager instance;
 
     private DiscoveryManager discoveryManager;
     private ControlManager controlManager;
-    private CopyOnWriteArrayList<BeamDiscoveryListener> discoveryListeners;
-    private CopyOnWriteArrayList<BeamControlListener> controlListeners;
+    private ListenerRegistry<BeamDiscoveryListener> discoveryListeners;
+    private ListenerRegistry<BeamDiscoveryBatchListener> discoveryBatchListeners;
+    private ListenerRegistry<BeamControlListener> controlListeners;
 
     public static synchronized BeamManager init(Context context) {
         instance = new BeamManager(context.getApplicationContext());
@@ -49,13 +54,15 @@ public class BeamManager implements DiscoveryManagerListener, ControlManagerList
     }
 
     private BeamManager(Context context) {
-        discoveryListeners = new CopyOnWriteArrayList<>();
-        controlListeners = new CopyOnWriteArrayList<>();
+        discoveryListeners = new ListenerRegistry<>();
+        discoveryBatchListeners = new ListenerRegistry<>();
+        controlListeners = new ListenerRegistry<>();
 
+        // Callbacks are passed on right away, every listener of this manager has its own executor
         discoveryManager = new DiscoveryManager(context);
-        discoveryManager.addListener(this);
+        discoveryManager.addBatchListener(this, ThreadUtil.directExecutor());
         controlManager = new ControlManager(context);
-        controlManager.addListener(this);
+        controlManager.addListener(this, ThreadUtil.directExecutor());
     }
 
     public DiscoveryManager getDiscoveryManager() {
@@ -66,16 +73,49 @@ public class BeamManager implements DiscoveryManagerListener, ControlManagerList
         return controlManager;
     }
 
+    /**
+     * Add a listener that is called on the main thread
+     */
     public void addDiscoveryListener(BeamDiscoveryListener listener) {
-        discoveryListeners.add(listener);
+        addDiscoveryListener(listener, ThreadUtil.mainThreadExecutor());
+    }
+
+    /**
+     * @param listener {@link BeamDiscoveryListener}
+     * @param executor {@link Executor} the callbacks run on, e.g. {@link ThreadUtil#directExecutor()} for headless use
+     */
+    public void addDiscoveryListener(BeamDiscoveryListener listener, Executor executor) {
+        discoveryListeners.add(listener, executor);
     }
 
     public void removeDiscoveryListener(BeamDiscoveryListener listener) {
         discoveryListeners.remove(listener);
     }
 
+    /**
+     * Receive all device changes of a batch window in one callback, instead of one callback per device
+     */
+    public void addDiscoveryBatchListener(BeamDiscoveryBatchListener listener) {
+        addDiscoveryBatchListener(listener, ThreadUtil.mainThreadExecutor());
+    }
+
+    public void addDiscoveryBatchListener(BeamDiscoveryBatchListener listener, Executor executor) {
+        discoveryBatchListeners.add(listener, executor);
+    }
+
+    public void removeDiscoveryBatchListener(BeamDiscoveryBatchListener listener) {
+        discoveryBatchListeners.remove(listener);
+    }
+
+    /**
+     * Add a listener that is called on the main thread
+     */
     public void addControlListener(BeamControlListener listener) {
-        controlListeners.add(listener);
+        addControlListener(listener, ThreadUtil.mainThreadExecutor());
+    }
+
+    public void addControlListener(BeamControlListener listener, Executor executor) {
+        controlListeners.add(listener, executor);
     }
 
     public void removeControlListener(BeamControlListener listener) {
@@ -122,56 +162,82 @@ public class BeamManager implements DiscoveryManagerListener, ControlManagerList
         return controlManager.isConnected();
     }
 
+    /**
+     * @return Unmodifiable map of the devices after the last batch of changes
+     */
     public Map<String, BeamDevice> getDevices() {
         return discoveryManager.getDevices();
     }
 
-    @Override
-    public void onDeviceAdded(DiscoveryManager manager, BeamDevice device) {
-        for (BeamDiscoveryListener listener : discoveryListeners) {
-            listener.onDeviceAdded(this, device);
-        }
-    }
-
-    @Override
-    public void onDeviceRemoved(DiscoveryManager manager, BeamDevice device) {
-        for (BeamDiscoveryListener listener : discoveryListeners) {
-            listener.onDeviceRemoved(this, device);
-        }
+    /**
+     * @return {@link DeviceSnapshot} of the devices after the last batch of changes
+     */
+    public DeviceSnapshot getDeviceSnapshot() {
+        return discoveryManager.getSnapshot();
     }
 
     @Override
-    public void onDeviceUpdated(DiscoveryManager manager, BeamDevice device) {
-        for (BeamDiscoveryListener listener : discoveryListeners) {
-            listener.onDeviceUpdated(this, device);
-        }
+    public void onDevicesChanged(DiscoveryManager manager, final DeviceDiff diff) {
+        discoveryBatchListeners.dispatch(new ListenerRegistry.Event<BeamDiscoveryBatchListener>() {
+            @Override
+            public void dispatch(BeamDiscoveryBatchListener listener) {
+                listener.onDevicesChanged(BeamManager.this, diff);
+            }
+        });
+
+        discoveryListeners.dispatch(new ListenerRegistry.Event<BeamDiscoveryListener>() {
+            @Override
+            public void dispatch(BeamDiscoveryListener listener) {
+                for (BeamDevice device : diff.getRemoved()) {
+                    listener.onDeviceRemoved(BeamManager.this, device);
+                }
+                for (BeamDevice device : diff.getAdded()) {
+                    listener.onDeviceAdded(BeamManager.this, device);
+                }
+                for (BeamDevice device : diff.getChanged()) {
+                    listener.onDeviceUpdated(BeamManager.this, device);
+                }
+            }
+        });
     }
 
     @Override
-    public void onConnected(ControlManager manager, BeamDevice device) {
-        for (BeamControlListener listener : controlListeners) {
-            listener.onConnected(this, device);
-        }
+    public void onConnected(ControlManager manager, final BeamDevice device) {
+        controlListeners.dispatch(new ListenerRegistry.Event<BeamControlListener>() {
+            @Override
+            public void dispatch(BeamControlListener listener) {
+                listener.onConnected(BeamManager.this, device);
+            }
+        });
     }
 
     @Override
     public void onDisconnected(ControlManager manager) {
-        for (BeamControlListener listener : controlListeners) {
-            listener.onDisconnected(this);
-        }
+        controlListeners.dispatch(new ListenerRegistry.Event<BeamControlListener>() {
+            @Override
+            public void dispatch(BeamControlListener listener) {
+                listener.onDisconnected(BeamManager.this);
+            }
+        });
     }
 
     @Override
-    public void onVolumeChanged(ControlManager manager, double value, boolean isMute) {
-        for (BeamControlListener listener : controlListeners) {
-            listener.onVolumeChanged(this, value, isMute);
-        }
+    public void onVolumeChanged(ControlManager manager, final double value, final boolean isMute) {
+        controlListeners.dispatch(new ListenerRegistry.Event<BeamControlListener>() {
+            @Override
+            public void dispatch(BeamControlListener listener) {
+                listener.onVolumeChanged(BeamManager.this, value, isMute);
+            }
+        });
     }
 
     @Override
-    public void onPlayBackChanged(ControlManager manager, boolean isPlaying, long position, long duration) {
-        for (BeamControlListener listener : controlListeners) {
-            listener.onPlayBackChanged(this, isPlaying, position, duration);
-        }
+    public void onPlayBackChanged(ControlManager manager, final boolean isPlaying, final long position, final long duration) {
+        controlListeners.dispatch(new ListenerRegistry.Event<BeamControlListener>() {
+            @Override
+            public void dispatch(BeamControlListener listener) {
+                listener.onPlayBackChanged(BeamManager.this, isPlaying, position, duration);
+            }
+        });
     }
 }
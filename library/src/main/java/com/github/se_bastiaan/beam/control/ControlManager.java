@@ -7,24 +7,30 @@ import com.github.se_bastiaan.beam.control.client.AirPlayControlClient;
 import com.github.se_bastiaan.beam.control.client.DLNAControlClient;
 import com.github.se_bastiaan.beam.control.client.GoogleCastControlClient;
 import com.github.se_bastiaan.beam.device.BeamDevice;
+import com.github.se_bastiaan.beam.device.UnifiedDevice;
+import com.github.se_bastiaan.beam.util.ListenerRegistry;
 import com.github.se_bastiaan.beam.util.ThreadUtil;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 public class ControlManager implements ControlClientListener {
 
     private Context context;
     private BeamDevice currentDevice;
     private ControlClient currentClient;
+    private UnifiedDevice currentUnifiedDevice;
 
     private CopyOnWriteArrayList<ControlClient> controlClients;
-    private CopyOnWriteArrayList<ControlManagerListener> controlListeners;
+    private ListenerRegistry<ControlManagerListener> controlListeners;
 
     public ControlManager(Context context) {
         this.context = context;
-        this.controlListeners = new CopyOnWriteArrayList<>();
+        this.controlListeners = new ListenerRegistry<>();
         this.controlClients = new CopyOnWriteArrayList<>();
     }
 
@@ -116,18 +122,39 @@ public class ControlManager implements ControlClientListener {
             registerDefaultClients();
         }
 
-        for (ControlClient client : controlClients) {
-            if (client.canHandleDevice(device)) {
+        List<BeamDevice> candidates = Collections.singletonList(device);
+        if (device instanceof UnifiedDevice) {
+            currentUnifiedDevice = (UnifiedDevice) device;
+            candidates = currentUnifiedDevice.getPreferredMembers();
+        }
+
+        for (BeamDevice candidate : candidates) {
+            ControlClient client = findClient(candidate);
+            if (client != null) {
                 currentClient = client;
-                currentDevice = device;
+                currentDevice = candidate;
                 currentDevice.setConnected(true);
                 break;
             }
         }
 
         if (currentClient != null) {
-            currentClient.connect(device);
+            if (currentUnifiedDevice != null) {
+                currentUnifiedDevice.setConnected(true);
+            }
+            currentClient.connect(currentDevice);
+        } else {
+            currentUnifiedDevice = null;
+        }
+    }
+
+    private ControlClient findClient(BeamDevice device) {
+        for (ControlClient client : controlClients) {
+            if (client.canHandleDevice(device)) {
+                return client;
+            }
         }
+        return null;
     }
 
     public void disconnect() {
@@ -136,10 +163,14 @@ public class ControlManager implements ControlClientListener {
         }
 
         currentDevice.setConnected(false);
+        if (currentUnifiedDevice != null) {
+            currentUnifiedDevice.setConnected(false);
+        }
         currentClient.disconnect();
 
         currentDevice = null;
         currentClient = null;
+        currentUnifiedDevice = null;
     }
 
     public void play() {
@@ -198,8 +229,20 @@ public class ControlManager implements ControlClientListener {
         return currentClient != null;
     }
 
+    /**
+     * Add a listener that is called on the main thread
+     */
     public void addListener(ControlManagerListener listener) {
-        controlListeners.add(listener);
+        addListener(listener, ThreadUtil.mainThreadExecutor());
+    }
+
+    /**
+     * @param listener {@link ControlManagerListener}
+     * @param executor {@link Executor} the callbacks run on, {@link ThreadUtil#directExecutor()} calls the listener
+     *                 on the thread of the control client
+     */
+    public void addListener(ControlManagerListener listener, Executor executor) {
+        controlListeners.add(listener, executor);
     }
 
     public void removeListener(ControlManagerListener listener) {
@@ -208,50 +251,53 @@ public class ControlManager implements ControlClientListener {
 
     @Override
     public void onConnected(ControlClient client, final BeamDevice device) {
-        ThreadUtil.runOnMainThread(new Runnable() {
+        controlListeners.dispatch(new ListenerRegistry.Event<ControlManagerListener>() {
             @Override
-            public void run() {
-                for (ControlManagerListener listener : controlListeners) {
-                    listener.onConnected(ControlManager.this, device);
-                }
+            public void dispatch(ControlManagerListener listener) {
+                listener.onConnected(ControlManager.this, device);
             }
         });
     }
 
     @Override
     public void onDisconnected(ControlClient client) {
-        ThreadUtil.runOnMainThread(new Runnable() {
+        controlListeners.dispatch(new ListenerRegistry.Event<ControlManagerListener>() {
             @Override
-            public void run() {
-                for (ControlManagerListener listener : controlListeners) {
-                    listener.onDisconnected(ControlManager.this);
-                }
+            public void dispatch(ControlManagerListener listener) {
+                listener.onDisconnected(ControlManager.this);
             }
         });
     }
 
     @Override
     public void onVolumeChanged(ControlClient client, final double value, final boolean isMute) {
-        ThreadUtil.runOnMainThread(new Runnable() {
+        controlListeners.dispatch(new ListenerRegistry.Event<ControlManagerListener>() {
             @Override
-            public void run() {
-                for (ControlManagerListener listener : controlListeners) {
-                    listener.onVolumeChanged(ControlManager.this, value, isMute);
-                }
+            public void dispatch(ControlManagerListener listener) {
+                listener.onVolumeChanged(ControlManager.this, value, isMute);
             }
         });
     }
 
     @Override
     public void onPlayBackChanged(ControlClient client, final boolean isPlaying, final long position, final long duration) {
-        ThreadUtil.runOnMainThread(new Runnable() {
+        controlListeners.dispatch(new ListenerRegistry.Event<ControlManagerListener>() {
             @Override
-            public void run() {
-                for (ControlManagerListener listener : controlListeners) {
-                    listener.onPlayBackChanged(ControlManager.this, isPlaying, position, duration);
-                }
+            public void dispatch(ControlManagerListener listener) {
+                listener.onPlayBackChanged(ControlManager.this, isPlaying, position, duration);
             }
         });
     }
 
+    /**
+     * Remember how long the command took over the protocol of the connected device
+     */
+    @Override
+    public void onCommandCompleted(ControlClient client, BeamDevice device, long latency) {
+        UnifiedDevice unifiedDevice = currentUnifiedDevice;
+        if (unifiedDevice != null && client == currentClient) {
+            unifiedDevice.recordLatency(device.getClass(), latency);
+        }
+    }
+
 }
@@ -5,20 +5,19 @@ import android.content.Context;
 import com.github.se_bastiaan.beam.MediaData;
 import com.github.se_bastiaan.beam.control.ControlClient;
 import com.github.se_bastiaan.beam.control.ControlClientListener;
+import com.github.se_bastiaan.beam.control.airplay.DigestAuthentication;
 import com.github.se_bastiaan.beam.control.airplay.PropertyListParser;
 import com.github.se_bastiaan.beam.device.AirPlayDevice;
 import com.github.se_bastiaan.beam.device.BeamDevice;
 import com.github.se_bastiaan.beam.logger.Logger;
+import com.github.se_bastiaan.beam.util.BeamScheduler;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.security.MessageDigest;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import okhttp3.Authenticator;
 import okhttp3.Call;
@@ -42,13 +41,13 @@ public class AirPlayControlClient implements ControlClient {
     private OkHttpClient httpClient;
 
     private AirPlayDevice currentDevice;
-    private Timer timer;
+    private ScheduledFuture<?> pollFuture;
     private String sessionId = null, password = null;
 
     public AirPlayControlClient(Context context) {
         clientListeners = new CopyOnWriteArrayList<>();
 
-        httpClient = new OkHttpClient.Builder()
+        httpClient = BeamScheduler.getInstance().getHttpClient().newBuilder()
                 .authenticator(new Authenticator() {
                     @Override
                     public Request authenticate(Route route, Response response) throws IOException {
@@ -57,8 +56,8 @@ public class AirPlayControlClient implements ControlClient {
                         }
 
                         String responseHeader = response.header("WWW-Authenticate");
-                        Map<String, String> params = getAuthParams(responseHeader);
-                        String credentials = makeAuthorizationHeader(params, response.request().method(), response.request().url().uri().toString());
+                        Map<String, String> params = DigestAuthentication.getAuthParams(responseHeader);
+                        String credentials = DigestAuthentication.makeAuthorizationHeader(params, AUTH_USERNAME, password, response.request().method(), response.request().url().uri().toString());
                         return response.request().newBuilder().header("Authorization", credentials).build();
                     }
                 }).build();
@@ -98,6 +97,7 @@ public class AirPlayControlClient implements ControlClient {
                 String body = response.body().string();
                 Logger.d(TAG, String.format("Load mediaData response: %s", body));
                 if (response.isSuccessful()) {
+                    onCommandCompleted(response);
                     startTimer();
                     Logger.d(TAG, "Load mediaData successful");
                 } else {
@@ -149,7 +149,9 @@ public class AirPlayControlClient implements ControlClient {
             @Override
             public void onResponse(Call call, Response response) throws IOException {
                 Logger.d(TAG, "Successful play request");
-                // Ignore, playback info will be obtained and so will the result
+                if (response.isSuccessful()) {
+                    onCommandCompleted(response);
+                }
             }
         });
     }
@@ -170,7 +172,9 @@ public class AirPlayControlClient implements ControlClient {
             @Override
             public void onResponse(Call call, Response response) throws IOException {
                 Logger.d(TAG, "Successful pause request");
-                // Ignore, playback info will be obtained and so will the result
+                if (response.isSuccessful()) {
+                    onCommandCompleted(response);
+                }
             }
         });
     }
@@ -196,7 +200,9 @@ public class AirPlayControlClient implements ControlClient {
             @Override
             public void onResponse(Call call, Response response) throws IOException {
                 Logger.d(TAG, "Successful seek request");
-                // Ignore, playback info will be obtained and so will the result
+                if (response.isSuccessful()) {
+                    onCommandCompleted(response);
+                }
             }
         });
     }
@@ -220,6 +226,7 @@ public class AirPlayControlClient implements ControlClient {
                 if (!response.isSuccessful()) {
                     //listener.onCommandFailed("stop", "Cannot stop");
                 } else {
+                    onCommandCompleted(response);
                     stopTimer();
                 }
             }
@@ -247,90 +254,21 @@ public class AirPlayControlClient implements ControlClient {
     }
 
     /**
-     * Generate MD5 for Digest Authentication
-     * @param input {@link java.lang.String}
-     * @return {@link java.lang.String}
+     * @param running Cleared once the call is done
      */
-    private String md5Digest(String input) {
-        byte[] source;
-        try {
-            source = input.getBytes("UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            source = input.getBytes();
-        }
-
-        String result = null;
-        char hexDigits[] = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
-
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            md.update(source);
-
-            byte temp[] = md.digest();
-            char str[] = new char[16 * 2];
-            int k = 0;
-            for (int i = 0; i < 16; i++) {
-                byte byte0 = temp[i];
-                str[k++] = hexDigits[byte0 >>> 4 & 0xf];
-                str[k++] = hexDigits[byte0 & 0xf];
-            }
-
-            result = new String(str);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return result;
-    }
-
-    /**
-     * Make Authorization header for HTTP request
-     * @param params {@link java.util.Map}
-     * @param method {@link java.lang.String}
-     * @param uri {@link java.lang.String}
-     * @return {@link java.lang.String}
-     */
-    private String makeAuthorizationHeader(Map params, String method, String uri) {
-        String realm = (String) params.get("realm");
-        String nonce = (String) params.get("nonce");
-        String ha1 = md5Digest(AUTH_USERNAME + ":" + realm + ":" + password);
-        String ha2 = md5Digest(method + ":" + uri);
-        String response = md5Digest(ha1 + ":" + nonce + ":" + ha2);
-        return "Digest username=\"" + AUTH_USERNAME + "\", "
-                + "realm=\"" + realm + "\", "
-                + "nonce=\"" + nonce + "\", "
-                + "uri=\"" + uri + "\", "
-                + "response=\"" + response + "\"";
-    }
-
-    private Map<String, String> getAuthParams(String authString) {
-        Map<String, String> params = new HashMap<>();
-        int firstSpace = authString.indexOf(' ');
-        String rest = authString.substring(firstSpace + 1).replaceAll("\r\n", " ");
-        String[] lines = rest.split("\", ");
-        for (int i = 0; i < lines.length; i++) {
-            int split = lines[i].indexOf("=\"");
-            String key = lines[i].substring(0, split);
-            String value = lines[i].substring(split + 2);
-            if (value.charAt(value.length() - 1) == '"') {
-                value = value.substring(0, value.length() - 1);
-            }
-            params.put(key, value);
-        }
-        return params;
-    }
-
-    private void getPlaybackInfo() {
+    private void getPlaybackInfo(final AtomicBoolean running) {
         Request infoRequest = requestBuilder("playback-info").build();
 
         httpClient.newCall(infoRequest).enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
+                running.set(false);
                 //listener.onCommandFailed("playback-info", e.getMessage());
             }
 
             @Override
             public void onResponse(Call call, Response response) throws IOException {
+                running.set(false);
                 if (response.isSuccessful()) {
                     try {
 
@@ -371,20 +309,38 @@ public class AirPlayControlClient implements ControlClient {
      */
     private void startTimer() {
         stopTimer();
-        timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
+        final AtomicBoolean running = new AtomicBoolean();
+        pollFuture = BeamScheduler.getInstance().scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
-                getPlaybackInfo();
+                // Skip a poll while the previous one is still waiting for the device
+                if (running.compareAndSet(false, true)) {
+                    getPlaybackInfo(running);
+                }
             }
-        }, 0, PLAYBACK_POLL_INTERVAL);
+        }, 0, PLAYBACK_POLL_INTERVAL, BeamScheduler.PRIORITY_NORMAL);
     }
 
     private void stopTimer() {
-        if (timer != null) {
-            timer.cancel();
+        if (pollFuture != null) {
+            pollFuture.cancel(false);
+        }
+        pollFuture = null;
+    }
+
+    /**
+     * Report how long the device took to answer a command, from sending the request until its own response
+     */
+    private void onCommandCompleted(Response response) {
+        AirPlayDevice device = currentDevice;
+        if (device == null) {
+            return;
+        }
+
+        long latency = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+        for (ControlClientListener listener : clientListeners) {
+            listener.onCommandCompleted(this, device, latency);
         }
-        timer = null;
     }
 
     private RequestBody getEmptyRequestBody() {
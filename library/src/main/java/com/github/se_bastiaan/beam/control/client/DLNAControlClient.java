@@ -1,51 +1,25 @@
 package com.github.se_bastiaan.beam.control.client;
 
 import android.content.Context;
-import android.text.Html;
-import android.util.Xml;
 
 import com.github.se_bastiaan.beam.MediaData;
-import com.github.se_bastiaan.beam.SubtitleData;
 import com.github.se_bastiaan.beam.control.ControlClient;
 import com.github.se_bastiaan.beam.control.ControlClientListener;
+import com.github.se_bastiaan.beam.control.dlna.DLNAEnvelopeTemplate;
+import com.github.se_bastiaan.beam.control.dlna.DLNAMessageBuilder;
+import com.github.se_bastiaan.beam.control.dlna.DLNAResponseParser;
 import com.github.se_bastiaan.beam.device.BeamDevice;
 import com.github.se_bastiaan.beam.device.DLNADevice;
 import com.github.se_bastiaan.beam.discovery.ssdp.Service;
 import com.github.se_bastiaan.beam.logger.Logger;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.xmlpull.v1.XmlPullParser;
+import com.github.se_bastiaan.beam.util.BeamScheduler;
 
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.io.UnsupportedEncodingException;
-import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.URL;
-import java.net.URLDecoder;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.CopyOnWriteArrayList;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import okhttp3.Call;
 import okhttp3.Callback;
@@ -66,23 +40,39 @@ public class DLNAControlClient implements ControlClient {
     private static final String RENDERING_CONTROL = "RenderingControl";
     private static final String GROUP_RENDERING_CONTROL = "GroupRenderingControl";
 
-    private static final String DEFAULT_SUBTITLE_MIMETYPE = "text/srt";
-    private static final String DEFAULT_SUBTITLE_TYPE = "srt";
-
     private static final MediaType XML_MIMETYPE = MediaType.parse("text/xml");
 
+    private static final DLNAEnvelopeTemplate SET_AV_TRANSPORT_URI = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN,
+            "SetAVTransportURI", "InstanceID", "CurrentURI", "CurrentURIMetaData");
+    private static final DLNAEnvelopeTemplate PLAY = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN, "Play",
+            "InstanceID", "Speed");
+    private static final DLNAEnvelopeTemplate PAUSE = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN, "Pause",
+            "InstanceID");
+    private static final DLNAEnvelopeTemplate SEEK = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN, "Seek",
+            "InstanceID", "Unit", "Target");
+    private static final DLNAEnvelopeTemplate STOP = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN, "Stop",
+            "InstanceID");
+    private static final DLNAEnvelopeTemplate GET_POSITION_INFO = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN,
+            "GetPositionInfo", "InstanceID");
+    private static final DLNAEnvelopeTemplate GET_TRANSPORT_INFO = DLNAEnvelopeTemplate.compile(AV_TRANSPORT_URN,
+            "GetTransportInfo", "InstanceID");
+    private static final DLNAEnvelopeTemplate SET_VOLUME = DLNAEnvelopeTemplate.compile(RENDERING_CONTROL_URN,
+            "SetVolume", "InstanceID", "Channel", "DesiredVolume");
+    private static final DLNAEnvelopeTemplate GET_VOLUME = DLNAEnvelopeTemplate.compile(RENDERING_CONTROL_URN,
+            "GetVolume", "InstanceID", "Channel");
+
     private CopyOnWriteArrayList<ControlClientListener> clientListeners;
 
     private String avTransportURL, renderingControlURL;
 
     private OkHttpClient httpClient;
 
-    private Timer timer;
+    private ScheduledFuture<?> pollFuture;
 
     private DLNADevice currentDevice;
 
     public DLNAControlClient(Context context) {
-        httpClient = new OkHttpClient.Builder().build();
+        httpClient = BeamScheduler.getInstance().getHttpClient();
 
         clientListeners = new CopyOnWriteArrayList<>();
     }
@@ -109,23 +99,22 @@ public class DLNAControlClient implements ControlClient {
             public void onResponse(Call call, Response response) throws IOException {
                 final String instanceId = "0";
                 String method = "SetAVTransportURI";
-                String metadata = getMetadata(mediaData.videoLocation, mediaData.subtitleData, response.header("Content-Type"), mediaData.title, mediaData.image);
+                String contentType = response.header("Content-Type");
+                response.close();
+
+                String metadata = DLNAMessageBuilder.getMetadata(mediaData.videoLocation, mediaData.subtitleData, contentType, mediaData.title, mediaData.image);
                 if (metadata == null) {
                     return;
                 }
 
-                Map<String, String> params = new LinkedHashMap<>();
+                RequestBody requestBody;
                 try {
-                    params.put("CurrentURI", encodeURL(mediaData.videoLocation));
+                    String currentURI = DLNAMessageBuilder.encodeURL(mediaData.videoLocation);
+                    requestBody = SET_AV_TRANSPORT_URI.toRequestBody(XML_MIMETYPE, instanceId, currentURI, metadata);
                 } catch (Exception e) {
                     e.printStackTrace();
                     return;
                 }
-                params.put("CurrentURIMetaData", metadata);
-
-                String payload = getMessageXml(AV_TRANSPORT_URN, method, instanceId, params);
-
-                RequestBody requestBody = RequestBody.create(XML_MIMETYPE, payload);
 
                 Request loadMediaRequest = requestBuilder(AV_TRANSPORT_URN, method)
                         .post(requestBody)
@@ -140,14 +129,17 @@ public class DLNAControlClient implements ControlClient {
                     @Override
                     public void onResponse(Call call, Response response) throws IOException {
                         Logger.d(TAG, "Successful loadMedia request");
-                        if (response.isSuccessful()) {
-                            startTimer();
-                            play();
+                        try {
+                            if (response.isSuccessful()) {
+                                onCommandCompleted(response);
+                                startTimer();
+                                play();
+                            }
+                        } finally {
+                            response.close();
                         }
                     }
                 });
-
-                response.close();
             }
         });
     }
@@ -182,12 +174,7 @@ public class DLNAControlClient implements ControlClient {
         String method = "Play";
         String instanceId = "0";
 
-        Map<String, String> parameters = new LinkedHashMap<>();
-        parameters.put("Speed", "1");
-
-        String payload = getMessageXml(AV_TRANSPORT_URN, method, instanceId, parameters);
-
-        RequestBody requestBody = RequestBody.create(XML_MIMETYPE, payload);
+        RequestBody requestBody = PLAY.toRequestBody(XML_MIMETYPE, instanceId, "1");
 
         Request playRequest = requestBuilder(AV_TRANSPORT_URN, method)
                 .post(requestBody)
@@ -202,6 +189,13 @@ public class DLNAControlClient implements ControlClient {
             @Override
             public void onResponse(Call call, Response response) throws IOException {
                 Logger.d(TAG, "Successful play request");
+                try {
+                    if (response.isSuccessful()) {
+                        onCommandCompleted(response);
+                    }
+                } finally {
+                    response.close();
+                }
             }
         });
     }
@@ -211,9 +205,7 @@ public class DLNAControlClient implements ControlClient {
         String method = "Pause";
         String instanceId = "0";
 
-        String payload = getMessageXml(AV_TRANSPORT_URN, method, instanceId, null);
-
-        RequestBody requestBody = RequestBody.create(XML_MIMETYPE, payload);
+        RequestBody requestBody = PAUSE.toRequestBody(XML_MIMETYPE, instanceId);
 
         Request pauseRequest = requestBuilder(AV_TRANSPORT_URN, method)
                 .post(requestBody)
@@ -228,6 +220,13 @@ public class DLNAControlClient implements ControlClient {
             @Override
             public void onResponse(Call call, Response response) throws IOException {
                 Logger.d(TAG, "Successful pause request");
+                try {
+                    if (response.isSuccessful()) {
+                        onCommandCompleted(response);
+                    }
+                } finally {
+                    response.close();
+                }
             }
         });
     }
@@ -242,13 +241,7 @@ public class DLNAControlClient implements ControlClient {
         String method = "Seek";
         String instanceId = "0";
 
-        Map<String, String> parameters = new LinkedHashMap<>();
-        parameters.put("Unit", "REL_TIME");
-        parameters.put("Target", time);
-
-        String payload = getMessageXml(AV_TRANSPORT_URN, method, instanceId, parameters);
-
-        RequestBody requestBody = RequestBody.create(XML_MIMETYPE, payload);
+        RequestBody requestBody = SEEK.toRequestBody(XML_MIMETYPE, instanceId, "REL_TIME", time);
 
         Request seekRequest = requestBuilder(AV_TRANSPORT_URN, method)
                 .post(requestBody)
@@ -263,6 +256,13 @@ public class DLNAControlClient implements ControlClient {
             @Override
             public void onResponse(Call call, Response response) throws IOException {
                 Logger.d(TAG, "Successful seek request");
+                try {
+                    if (response.isSuccessful()) {
+                        onCommandCompleted(response);
+                    }
+                } finally {
+                    response.close();
+                }
             }
         });
     }
@@ -274,9 +274,7 @@ public class DLNAControlClient implements ControlClient {
         String method = "Stop";
         String instanceId = "0";
 
-        String payload = getMessageXml(AV_TRANSPORT_URN, method, instanceId, null);
-
-        RequestBody requestBody = RequestBody.create(XML_MIMETYPE, payload);
+        RequestBody requestBody = STOP.toRequestBody(XML_MIMETYPE, instanceId);
 
         Request stopRequest = requestBuilder(AV_TRANSPORT_URN, method)
                 .post(requestBody)
@@ -291,6 +289,13 @@ public class DLNAControlClient implements ControlClient {
             @Override
             public void onResponse(Call call, Response response) throws IOException {
                 Logger.d(TAG, "Successful stop request");
+                try {
+                    if (response.isSuccessful()) {
+                        onCommandCompleted(response);
+                    }
+                } finally {
+                    response.close();
+                }
             }
         });
     }
@@ -302,13 +307,7 @@ public class DLNAControlClient implements ControlClient {
         String channel = "Master";
         String value = String.valueOf((int)(volume*100));
 
-        Map<String, String> params = new LinkedHashMap<>();
-        params.put("Channel", channel);
-        params.put("DesiredVolume", value);
-
-        String payload = getMessageXml(RENDERING_CONTROL_URN, method, instanceId, params);
-        
-        RequestBody requestBody = RequestBody.create(XML_MIMETYPE, payload);
+        RequestBody requestBody = SET_VOLUME.toRequestBody(XML_MIMETYPE, instanceId, channel, value);
 
         Request volumeRequest = requestBuilder(RENDERING_CONTROL_URN, method)
                 .post(requestBody)
@@ -323,6 +322,13 @@ public class DLNAControlClient implements ControlClient {
             @Override
             public void onResponse(Call call, Response response) throws IOException {
                 Logger.d(TAG, "Successful volume request");
+                try {
+                    if (response.isSuccessful()) {
+                        onCommandCompleted(response);
+                    }
+                } finally {
+                    response.close();
+                }
             }
         });
     }
@@ -342,13 +348,15 @@ public class DLNAControlClient implements ControlClient {
         clientListeners.remove(listener);
     }
 
-    private void getPositionInfo() {
+    /**
+     * Poll GetPositionInfo, followed by GetTransportInfo when it succeeds
+     * @param runningCalls Decremented once both calls are done
+     */
+    private void getPositionInfo(final AtomicInteger runningCalls) {
         String method = "GetPositionInfo";
         String instanceId = "0";
 
-        String payload = getMessageXml(AV_TRANSPORT_URN, method, instanceId, null);
-
-        RequestBody requestBody = RequestBody.create(XML_MIMETYPE, payload);
+        RequestBody requestBody = GET_POSITION_INFO.toRequestBody(XML_MIMETYPE, instanceId);
 
         Request positionInfoRequest = requestBuilder(AV_TRANSPORT_URN, method)
                 .post(requestBody)
@@ -358,71 +366,86 @@ public class DLNAControlClient implements ControlClient {
             @Override
             public void onFailure(Call call, IOException e) {
                 Logger.d(TAG, "Failure in position info request");
+                runningCalls.decrementAndGet();
             }
 
             @Override
             public void onResponse(Call call, Response response) throws IOException {
                 Logger.d(TAG, "Successful position info request");
-                if (response.isSuccessful()) {
-                    final String responseStr = response.body().string();
+                boolean chained = false;
+                try {
+                    if (response.isSuccessful()) {
+                        final String responseStr = response.body().string();
 
-                    String strDuration = parseData(responseStr, "TrackDuration");
-                    final long duration = convertStrTimeFormatToLong(strDuration);
+                        String strDuration = DLNAResponseParser.parseData(responseStr, "TrackDuration");
+                        final long duration = DLNAResponseParser.convertStrTimeFormatToLong(strDuration);
 
-                    String strPosition = parseData(responseStr, "RelTime");
-                    final long position = convertStrTimeFormatToLong(strPosition);
+                        String strPosition = DLNAResponseParser.parseData(responseStr, "RelTime");
+                        final long position = DLNAResponseParser.convertStrTimeFormatToLong(strPosition);
 
-                    String method = "GetTransportInfo";
-                    String instanceId = "0";
+                        getTransportInfo(position, duration, runningCalls);
+                        chained = true;
+                    }
+                } finally {
+                    response.close();
+                    if (!chained) {
+                        runningCalls.decrementAndGet();
+                    }
+                }
+            }
+        });
 
-                    String payload = getMessageXml(AV_TRANSPORT_URN, method, instanceId, null);
+    }
 
-                    RequestBody requestBody = RequestBody.create(XML_MIMETYPE, payload);
+    private void getTransportInfo(final long position, final long duration, final AtomicInteger runningCalls) {
+        String method = "GetTransportInfo";
+        String instanceId = "0";
 
-                    Request transportInfoRequest = requestBuilder(AV_TRANSPORT_URN, method)
-                            .post(requestBody)
-                            .build();
+        RequestBody requestBody = GET_TRANSPORT_INFO.toRequestBody(XML_MIMETYPE, instanceId);
 
-                    httpClient.newCall(transportInfoRequest).enqueue(new Callback() {
-                        @Override
-                        public void onFailure(Call call, IOException e) {
-                            Logger.d(TAG, "Failure in transport info request");
-                        }
+        Request transportInfoRequest = requestBuilder(AV_TRANSPORT_URN, method)
+                .post(requestBody)
+                .build();
 
-                        @Override
-                        public void onResponse(Call call, Response response) throws IOException {
-                            Logger.d(TAG, "Successful transport info request");
-                            if (response.isSuccessful()) {
-                                String transportState = parseData(response.body().string(), "CurrentTransportState");
-
-                                if (transportState.equals("STOPPED")) {
-                                    stopTimer();
-                                } else {
-                                    for (ControlClientListener listener : clientListeners) {
-                                        listener.onPlayBackChanged(DLNAControlClient.this, transportState.equals("PLAYING"), position, duration);
-                                    }
-                                }
+        httpClient.newCall(transportInfoRequest).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                Logger.d(TAG, "Failure in transport info request");
+                runningCalls.decrementAndGet();
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                Logger.d(TAG, "Successful transport info request");
+                try {
+                    if (response.isSuccessful()) {
+                        String transportState = DLNAResponseParser.parseData(response.body().string(), "CurrentTransportState");
+
+                        if (transportState.equals("STOPPED")) {
+                            stopTimer();
+                        } else {
+                            for (ControlClientListener listener : clientListeners) {
+                                listener.onPlayBackChanged(DLNAControlClient.this, transportState.equals("PLAYING"), position, duration);
                             }
                         }
-                    });
+                    }
+                } finally {
+                    response.close();
+                    runningCalls.decrementAndGet();
                 }
-
             }
         });
-
     }
 
-    private void getVolume() {
+    /**
+     * @param runningCalls Decremented once the call is done
+     */
+    private void getVolume(final AtomicInteger runningCalls) {
         String method = "GetVolume";
         String instanceId = "0";
         String channel = "Master";
 
-        Map<String, String> params = new LinkedHashMap<>();
-        params.put("Channel", channel);
-
-        String payload = getMessageXml(RENDERING_CONTROL_URN, method, instanceId, params);
-
-        RequestBody requestBody = RequestBody.create(XML_MIMETYPE, payload);
+        RequestBody requestBody = GET_VOLUME.toRequestBody(XML_MIMETYPE, instanceId, channel);
 
         Request volumeRequest = requestBuilder(RENDERING_CONTROL_URN, method)
                 .post(requestBody)
@@ -432,30 +455,51 @@ public class DLNAControlClient implements ControlClient {
             @Override
             public void onFailure(Call call, IOException e) {
                 Logger.d(TAG, "Failure in volume request");
+                runningCalls.decrementAndGet();
             }
 
             @Override
             public void onResponse(Call call, Response response) throws IOException {
                 Logger.d(TAG, "Successful volume request");
-                if (response.isSuccessful()) {
-                    String currentVolume = parseData(response.body().string(), "CurrentVolume");
-                    int iVolume = 0;
-                    try {
-                        //noinspection ResultOfMethodCallIgnored
-                        Integer.parseInt(currentVolume);
-                    } catch (RuntimeException ex) {
-                        ex.printStackTrace();
-                    }
-                    float fVolume = (float) (iVolume / 100.0);
+                try {
+                    if (response.isSuccessful()) {
+                        String currentVolume = DLNAResponseParser.parseData(response.body().string(), "CurrentVolume");
+                        int iVolume = 0;
+                        try {
+                            //noinspection ResultOfMethodCallIgnored
+                            Integer.parseInt(currentVolume);
+                        } catch (RuntimeException ex) {
+                            ex.printStackTrace();
+                        }
+                        float fVolume = (float) (iVolume / 100.0);
 
-                    for (ControlClientListener listener : clientListeners) {
-                        listener.onVolumeChanged(DLNAControlClient.this, fVolume, fVolume == 0);
+                        for (ControlClientListener listener : clientListeners) {
+                            listener.onVolumeChanged(DLNAControlClient.this, fVolume, fVolume == 0);
+                        }
                     }
+                } finally {
+                    response.close();
+                    runningCalls.decrementAndGet();
                 }
             }
         });
     }
 
+    /**
+     * Report how long the device took to answer a command, from sending the request until its own response
+     */
+    private void onCommandCompleted(Response response) {
+        DLNADevice device = currentDevice;
+        if (device == null) {
+            return;
+        }
+
+        long latency = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+        for (ControlClientListener listener : clientListeners) {
+            listener.onCommandCompleted(this, device, latency);
+        }
+    }
+
     private Request.Builder requestBuilder(String urn, String method) {
         String url;
 
@@ -500,219 +544,32 @@ public class DLNAControlClient implements ControlClient {
         return base + path;
     }
 
-    protected String getMessageXml(String serviceURN, String method, String instanceId, Map<String, String> params) {
-        try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            Document doc = db.newDocument();
-            doc.setXmlStandalone(true);
-            doc.setXmlVersion("1.0");
-
-            Element root = doc.createElement("s:Envelope");
-            Element bodyElement = doc.createElement("s:Body");
-            Element methodElement = doc.createElementNS(serviceURN, "u:" + method);
-            Element instanceElement = doc.createElement("InstanceID");
-
-            root.setAttribute("s:encodingStyle", "http://schemas.xmlsoap.org/soap/encoding/");
-            root.setAttribute("xmlns:s", "http://schemas.xmlsoap.org/soap/envelope/");
-
-            doc.appendChild(root);
-            root.appendChild(bodyElement);
-            bodyElement.appendChild(methodElement);
-            if (instanceId != null) {
-                instanceElement.setTextContent(instanceId);
-                methodElement.appendChild(instanceElement);
-            }
-
-            if (params != null) {
-                for (Map.Entry<String, String> entry : params.entrySet()) {
-                    String key = entry.getKey();
-                    String value = entry.getValue();
-                    Element element = doc.createElement(key);
-                    element.setTextContent(value);
-                    methodElement.appendChild(element);
-                }
-            }
-            return xmlToString(doc, true);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private String getMetadata(String mediaURL, SubtitleData subtitle, String mime, String title, String iconUrl) {
-        try {
-            String objectClass = "object.item.videoItem";
-
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            Document doc = db.newDocument();
-
-            Element didlRoot = doc.createElement("DIDL-Lite");
-            Element itemElement = doc.createElement("item");
-            Element titleElement = doc.createElement("dc:title");
-            Element resElement = doc.createElement("res");
-            Element albumArtElement = doc.createElement("upnp:albumArtURI");
-            Element classElement = doc.createElement("upnp:class");
-
-            didlRoot.appendChild(itemElement);
-            itemElement.appendChild(titleElement);
-            itemElement.appendChild(resElement);
-            if (iconUrl != null) {
-                itemElement.appendChild(albumArtElement);
-            }
-            itemElement.appendChild(classElement);
-
-            didlRoot.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns", "urn:schemas-upnp-org:metadata-1-0/DIDL-Lite/");
-            didlRoot.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:upnp", "urn:schemas-upnp-org:metadata-1-0/upnp/");
-            didlRoot.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:dc", "http://purl.org/dc/elements/1.1/");
-            didlRoot.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:sec", "http://www.sec.co.kr/");
-
-            titleElement.setTextContent(title);
-            resElement.setTextContent(encodeURL(mediaURL));
-            albumArtElement.setTextContent(encodeURL(iconUrl));
-            classElement.setTextContent(objectClass);
-
-            itemElement.setAttribute("id", "1000");
-            itemElement.setAttribute("parentID", "0");
-            itemElement.setAttribute("restricted", "0");
-
-            resElement.setAttribute("protocolInfo", "http-get:*:" + mime + ":DLNA.ORG_OP=01");
-
-            if (subtitle != null) {
-                String mimeType = (subtitle.getMimeType() == null) ? DEFAULT_SUBTITLE_TYPE : subtitle.getMimeType();
-                String type;
-                String[] typeParts =  mimeType.split("/");
-                if (typeParts.length == 2) {
-                    type = typeParts[1];
-                } else {
-                    mimeType = DEFAULT_SUBTITLE_MIMETYPE;
-                    type = DEFAULT_SUBTITLE_TYPE;
-                }
-
-                resElement.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:pv", "http://www.pv.com/pvns/");
-                resElement.setAttribute("pv:subtitleFileUri", subtitle.getUrl());
-                resElement.setAttribute("pv:subtitleFileType", type);
-
-                Element smiResElement = doc.createElement("res");
-                smiResElement.setAttribute("protocolInfo", "http-get:*:smi/caption");
-                smiResElement.setTextContent(subtitle.getUrl());
-                itemElement.appendChild(smiResElement);
-
-                Element srtResElement = doc.createElement("res");
-                srtResElement.setAttribute("protocolInfo", "http-get:*:"+mimeType+":");
-                srtResElement.setTextContent(subtitle.getUrl());
-                itemElement.appendChild(srtResElement);
-
-                Element captionInfoExElement = doc.createElement("sec:CaptionInfoEx");
-                captionInfoExElement.setAttribute("sec:type", type);
-                captionInfoExElement.setTextContent(subtitle.getUrl());
-                itemElement.appendChild(captionInfoExElement);
-
-                Element captionInfoElement = doc.createElement("sec:CaptionInfo");
-                captionInfoElement.setAttribute("sec:type", type);
-                captionInfoElement.setTextContent(subtitle.getUrl());
-                itemElement.appendChild(captionInfoElement);
-            }
-
-            doc.appendChild(didlRoot);
-            return xmlToString(doc, false);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private String encodeURL(String mediaURL) throws MalformedURLException, URISyntaxException, UnsupportedEncodingException {
-        if (mediaURL == null || mediaURL.isEmpty()) {
-            return "";
-        }
-        String decodedURL = URLDecoder.decode(mediaURL, "UTF-8");
-        if (decodedURL.equals(mediaURL)) {
-            URL url = new URL(mediaURL);
-            URI uri = new URI(url.getProtocol(), url.getUserInfo(), url.getHost(), url.getPort(), url.getPath(), url.getQuery(), url.getRef());
-            return uri.toASCIIString();
-        }
-        return mediaURL;
-    }
-
-    private String xmlToString(Node source, boolean xmlDeclaration) throws TransformerException {
-        DOMSource domSource = new DOMSource(source);
-        StringWriter writer = new StringWriter();
-        StreamResult result = new StreamResult(writer);
-        TransformerFactory tf = TransformerFactory.newInstance();
-        Transformer transformer = tf.newTransformer();
-        if (!xmlDeclaration) {
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-        }
-        transformer.transform(domSource, result);
-        return writer.toString();
-    }
-
-    private boolean isXmlEncoded(final String xml) {
-        if (xml == null || xml.length() < 4) {
-            return false;
-        }
-        return xml.trim().substring(0, 4).equals("&lt;");
-    }
-
-    private String parseData(String response, String key) {
-        if (isXmlEncoded(response)) {
-            response = Html.fromHtml(response).toString();
-        }
-        XmlPullParser parser = Xml.newPullParser();
-        try {
-            parser.setInput(new StringReader(response));
-            int event;
-            boolean isFound = false;
-            do {
-                event = parser.next();
-                if (event == XmlPullParser.START_TAG) {
-                    String tag = parser.getName();
-                    if (key.equals(tag)) {
-                        isFound = true;
-                    }
-                } else if (event == XmlPullParser.TEXT && isFound) {
-                    return parser.getText();
-                }
-            } while (event != XmlPullParser.END_DOCUMENT);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return "";
-    }
-
-    private long convertStrTimeFormatToLong(String strTime) {
-        long time = 0;
-        SimpleDateFormat df = new SimpleDateFormat("HH:mm:ss", Locale.ENGLISH);
-        try {
-            Date d = df.parse(strTime);
-            Date d2 = df.parse("00:00:00");
-            time = d.getTime() - d2.getTime();
-        } catch (ParseException e) {
-            Logger.w(TAG, "Invalid Time Format: " + strTime, e);
-        } catch (NullPointerException e) {
-            Logger.w(TAG, "Null time argument", e);
-        }
-
-        return time;
-    }
-
     private void startTimer() {
         stopTimer();
-        timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
+        final AtomicInteger runningCalls = new AtomicInteger();
+        pollFuture = BeamScheduler.getInstance().scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
-                getPositionInfo();
-                getVolume();
+                // Skip a poll while the previous one is still waiting for a slow renderer, polls would otherwise
+                // pile up in front of the commands of the user
+                boolean pollVolume = canControlVolume();
+                if (!runningCalls.compareAndSet(0, pollVolume ? 2 : 1)) {
+                    return;
+                }
+
+                getPositionInfo(runningCalls);
+                if (pollVolume) {
+                    getVolume(runningCalls);
+                }
             }
-        }, 0, PLAYBACK_POLL_INTERVAL);
+        }, 0, PLAYBACK_POLL_INTERVAL, BeamScheduler.PRIORITY_NORMAL);
     }
 
     private void stopTimer() {
-        if (timer != null) {
-            timer.cancel();
+        if (pollFuture != null) {
+            pollFuture.cancel(false);
         }
-        timer = null;
+        pollFuture = null;
     }
 
 }
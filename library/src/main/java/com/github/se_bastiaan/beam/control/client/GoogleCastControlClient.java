@@ -13,6 +13,7 @@ import com.github.se_bastiaan.beam.control.ControlClientListener;
 import com.github.se_bastiaan.beam.device.BeamDevice;
 import com.github.se_bastiaan.beam.device.GoogleCastDevice;
 import com.github.se_bastiaan.beam.logger.Logger;
+import com.github.se_bastiaan.beam.util.BeamScheduler;
 import com.google.android.gms.cast.Cast;
 import com.google.android.gms.cast.CastMediaControlIntent;
 import com.google.android.gms.cast.LaunchOptions;
@@ -27,9 +28,9 @@ import com.google.android.gms.common.api.Status;
 import com.google.android.gms.common.images.WebImage;
 
 import java.io.IOException;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class GoogleCastControlClient implements ControlClient {
 
@@ -44,7 +45,7 @@ public class GoogleCastControlClient implements ControlClient {
     private RemoteMediaPlayer remoteMediaPlayer;
     private boolean waitingForReconnect = false;
 
-    private Timer timer;
+    private ScheduledFuture<?> pollFuture;
 
     private GoogleCastDevice currentDevice;
 
@@ -178,12 +179,14 @@ public class GoogleCastControlClient implements ControlClient {
                     .build();
 
             try {
+                final long startTime = System.nanoTime();
                 remoteMediaPlayer.load(googleApiClient, mediaInfo, true)
                         .setResultCallback(new ResultCallback<RemoteMediaPlayer.MediaChannelResult>() {
                             @Override
                             public void onResult(@NonNull RemoteMediaPlayer.MediaChannelResult result) {
                                 if (result.getStatus().isSuccess()) {
                                     Logger.d(TAG, "Playback loaded successfully");
+                                    onCommandCompleted(startTime);
                                 }
                             }
                         });
@@ -234,7 +237,7 @@ public class GoogleCastControlClient implements ControlClient {
         if (currentDevice == null || googleApiClient == null || !googleApiClient.isConnected()) {
             throw new IllegalStateException("Not connected");
         }
-        remoteMediaPlayer.play(googleApiClient);
+        remoteMediaPlayer.play(googleApiClient).setResultCallback(commandCallback());
     }
 
     @Override
@@ -242,7 +245,7 @@ public class GoogleCastControlClient implements ControlClient {
         if (currentDevice == null || googleApiClient == null || !googleApiClient.isConnected()) {
             throw new IllegalStateException("Not connected");
         }
-        remoteMediaPlayer.pause(googleApiClient);
+        remoteMediaPlayer.pause(googleApiClient).setResultCallback(commandCallback());
     }
 
     @Override
@@ -250,7 +253,7 @@ public class GoogleCastControlClient implements ControlClient {
         if (currentDevice == null || googleApiClient == null || !googleApiClient.isConnected()) {
             throw new IllegalStateException("Not connected");
         }
-        remoteMediaPlayer.seek(googleApiClient, position);
+        remoteMediaPlayer.seek(googleApiClient, position).setResultCallback(commandCallback());
     }
 
     @Override
@@ -262,7 +265,7 @@ public class GoogleCastControlClient implements ControlClient {
 
         if(currentDevice != null && googleApiClient != null && googleApiClient.isConnected()) {
             try {
-                remoteMediaPlayer.stop(googleApiClient);
+                remoteMediaPlayer.stop(googleApiClient).setResultCallback(commandCallback());
             } catch (IllegalStateException e) {
                 // Not able to stop because there was nothing playing. Just leave it.
             }
@@ -303,6 +306,36 @@ public class GoogleCastControlClient implements ControlClient {
         clientListeners.remove(listener);
     }
 
+    /**
+     * @return Callback that reports how long the device took to answer the command that is sent right after
+     */
+    private ResultCallback<RemoteMediaPlayer.MediaChannelResult> commandCallback() {
+        final long startTime = System.nanoTime();
+        return new ResultCallback<RemoteMediaPlayer.MediaChannelResult>() {
+            @Override
+            public void onResult(@NonNull RemoteMediaPlayer.MediaChannelResult result) {
+                if (result.getStatus().isSuccess()) {
+                    onCommandCompleted(startTime);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param startTime Time the command was sent in ns
+     */
+    private void onCommandCompleted(long startTime) {
+        GoogleCastDevice device = currentDevice;
+        if (device == null) {
+            return;
+        }
+
+        long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        for (ControlClientListener listener : clientListeners) {
+            listener.onCommandCompleted(this, device, latency);
+        }
+    }
+
     private void attachMediaPlayer() {
         if (remoteMediaPlayer != null) {
             return;
@@ -362,8 +395,7 @@ public class GoogleCastControlClient implements ControlClient {
 
     private void startTimer() {
         stopTimer();
-        timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
+        pollFuture = BeamScheduler.getInstance().scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
                 boolean isPlaying = remoteMediaPlayer.getMediaStatus().getPlayerState() == MediaStatus.PLAYER_STATE_PLAYING;
@@ -371,14 +403,14 @@ public class GoogleCastControlClient implements ControlClient {
                     listener.onPlayBackChanged(GoogleCastControlClient.this, isPlaying, remoteMediaPlayer.getApproximateStreamPosition(), remoteMediaPlayer.getStreamDuration());
                 }
             }
-        }, PLAYBACK_POLL_INTERVAL, PLAYBACK_POLL_INTERVAL);
+        }, PLAYBACK_POLL_INTERVAL, PLAYBACK_POLL_INTERVAL, BeamScheduler.PRIORITY_NORMAL);
     }
 
     private void stopTimer() {
-        if (timer != null) {
-            timer.cancel();
+        if (pollFuture != null) {
+            pollFuture.cancel(false);
         }
-        timer = null;
+        pollFuture = null;
     }
 
 }
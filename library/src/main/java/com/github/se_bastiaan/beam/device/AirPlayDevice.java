@@ -19,6 +19,9 @@ package com.github.se_bastiaan.beam.device;
 import com.github.druk.rxdnssd.BonjourService;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,12 +34,36 @@ public class AirPlayDevice extends BeamDevice {
     public BonjourService service;
 
     private InetAddress ipAddress;
+    private List<InetAddress> ipAddresses = Collections.emptyList();
     private Integer port;
     private String srcvers;
     private String protovers;
     private Boolean pw = false;
 
     public AirPlayDevice(BonjourService service) {
+        this.id = service.getTxtRecords().get("deviceid");
+        update(service);
+    }
+
+    /**
+     * Restore a device without a {@link BonjourService}, e.g. from a snapshot of a previous session
+     */
+    public AirPlayDevice(String id, String name, String model, InetAddress ipAddress, Integer port, String srcvers, String protovers, boolean pw) {
+        this.id = id;
+        this.name = name;
+        this.model = model;
+        this.ipAddress = ipAddress;
+        this.port = port;
+        this.srcvers = srcvers;
+        this.protovers = protovers;
+        this.pw = pw;
+    }
+
+    /**
+     * Take over the address, port and TXT records of a service that announced itself again with changes
+     * @param service {@link BonjourService} of this device
+     */
+    public void update(BonjourService service) {
         this.service = service;
 
         this.port = service.getPort();
@@ -49,24 +76,56 @@ public class AirPlayDevice extends BeamDevice {
         }
 
         Map<String, String> records = service.getTxtRecords();
-        this.id = records.get("deviceid");
         this.model = records.get("model");
         this.srcvers = records.get("srcvers");
         this.protovers = records.containsKey("protovers") ? records.get("protovers") : null;
-
-        if (records.containsKey("pw") || records.containsKey("pin")) {
-            this.pw = true;
-        }
+        this.pw = records.containsKey("pw") || records.containsKey("pin");
     }
 
     public InetAddress getIpAddress() {
         return ipAddress;
     }
 
+    /**
+     * @return Every address the device was resolved to, the preferred address first
+     */
+    public List<InetAddress> getIpAddresses() {
+        return ipAddresses.isEmpty() && ipAddress != null ? Collections.singletonList(ipAddress) : ipAddresses;
+    }
+
+    /**
+     * @param ipAddresses Every address the device was resolved to, the first one is used to connect
+     */
+    public void setIpAddresses(List<InetAddress> ipAddresses) {
+        if (ipAddresses.isEmpty()) {
+            return;
+        }
+        this.ipAddresses = Collections.unmodifiableList(new ArrayList<>(ipAddresses));
+        this.ipAddress = ipAddresses.get(0);
+    }
+
     public Integer getPort() {
         return port;
     }
 
+    @Override
+    public String getHostAddress() {
+        return ipAddress != null ? ipAddress.getHostAddress() : null;
+    }
+
+    /**
+     * The deviceid in the TXT records is the MAC address of the device
+     */
+    @Override
+    public String getHardwareAddress() {
+        return normaliseHardwareAddress(id);
+    }
+
+    @Override
+    public String getSignature() {
+        return super.getSignature() + '\n' + ipAddress + ':' + port + '\n' + pw;
+    }
+
     public String getUrl() {
         return "http://" + ipAddress.getHostAddress() + ":" + port + "/";
     }
@@ -1,72 +0,0 @@
-/*
- * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.github.se_bastiaan.beam.device;
-
-public abstract class BeamDevice {
-    protected String id;
-    protected String name;
-    protected String model;
-    protected Long lastDetection;
-    protected boolean connected = false;
-
-    public String getId() {
-        return id;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public String getModel() {
-        return model;
-    }
-
-    public void setLastDetection(Long lastDetection) {
-        this.lastDetection = lastDetection;
-    }
-
-    public Long getLastDetection() {
-        return lastDetection;
-    }
-
-    public boolean isConnected() {
-        return connected;
-    }
-
-    public void setConnected(boolean connected) {
-        this.connected = connected;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if(o instanceof BeamDevice) {
-            BeamDevice device = (BeamDevice) o;
-            return device.id.equals(this.id);
-        }
-        return false;
-    }
-
-    @Override
-    public int hashCode() {
-        return id.hashCode();
-    }
-
-}
\ No newline at end of file
@@ -43,4 +43,17 @@ public class GoogleCastDevice extends BeamDevice {
         return device;
     }
 
+    @Override
+    public String getHostAddress() {
+        return device.getIpAddress() != null ? device.getIpAddress().getHostAddress() : null;
+    }
+
+    /**
+     * The receiver pushes media status updates
+     */
+    @Override
+    public boolean hasStatusEvents() {
+        return true;
+    }
+
 }
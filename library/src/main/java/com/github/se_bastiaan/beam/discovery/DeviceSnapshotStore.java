@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.beam.discovery;
+
+import com.github.se_bastiaan.beam.device.AirPlayDevice;
+import com.github.se_bastiaan.beam.device.BeamDevice;
+import com.github.se_bastiaan.beam.device.DLNADevice;
+import com.github.se_bastiaan.beam.discovery.ssdp.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.se_bastiaan.beam.util.IOUtil.closeQuietly;
+import static com.github.se_bastiaan.beam.util.IOUtil.readString;
+import static com.github.se_bastiaan.beam.util.IOUtil.writeString;
+
+/**
+ * Snapshot of the devices that were last seen on each network, so they can be shown before discovery finds them again.
+ * <p/>
+ * Only devices that can be controlled without a live discovery handle are stored. Google Cast devices need a
+ * {@link android.support.v7.media.MediaRouter.RouteInfo} and are left out.
+ */
+public class DeviceSnapshotStore {
+
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(7);
+    private static final int MAX_NETWORKS = 8;
+    private static final int VERSION = 1;
+
+    private static final int TYPE_DLNA = 1;
+    private static final int TYPE_AIRPLAY = 2;
+
+    private final File file;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    public DeviceSnapshotStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Restore the devices of a network. Does file IO the first time, so do not call this on the main thread.
+     * @param networkKey Network identifier, see {@link com.github.se_bastiaan.beam.util.NetworkUtil#getNetworkKey}
+     * @return {@link List} of new, unverified {@link BeamDevice} instances
+     */
+    public List<BeamDevice> get(String networkKey) {
+        load();
+
+        List<BeamDevice> devices = new ArrayList<>();
+        Entry entry = entries.get(networkKey);
+        if (entry == null || new Date().getTime() - entry.time > MAX_AGE) {
+            return devices;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.data));
+        try {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                BeamDevice device = readDevice(in);
+                if (device != null) {
+                    device.setVerified(false);
+                    devices.add(device);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            entries.remove(networkKey);
+        }
+
+        return devices;
+    }
+
+    /**
+     * Replace the snapshot of a network and write it to disk. Does file IO, so do not call this on the main thread.
+     * @param networkKey Network identifier
+     * @param devices Devices to store, unverified devices are skipped
+     */
+    public void put(String networkKey, Collection<BeamDevice> devices) {
+        load();
+
+        List<BeamDevice> storable = new ArrayList<>();
+        for (BeamDevice device : devices) {
+            if (isStorable(device)) {
+                storable.add(device);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(storable.size());
+            for (BeamDevice device : storable) {
+                writeDevice(out, device);
+            }
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        Entry entry = new Entry();
+        entry.time = new Date().getTime();
+        entry.data = bytes.toByteArray();
+        entries.put(networkKey, entry);
+
+        while (entries.size() > MAX_NETWORKS) {
+            evictOldest();
+        }
+
+        save();
+    }
+
+    private static boolean isStorable(BeamDevice device) {
+        if (!device.isVerified() || device.getId() == null) {
+            return false;
+        }
+
+        if (device instanceof AirPlayDevice) {
+            AirPlayDevice airPlayDevice = (AirPlayDevice) device;
+            return airPlayDevice.getIpAddress() != null && airPlayDevice.getPort() != null;
+        }
+
+        return device instanceof DLNADevice;
+    }
+
+    private void evictOldest() {
+        String oldestKey = null;
+        long oldestTime = Long.MAX_VALUE;
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().time < oldestTime) {
+                oldestTime = entry.getValue().time;
+                oldestKey = entry.getKey();
+            }
+        }
+
+        if (oldestKey != null) {
+            entries.remove(oldestKey);
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+                if (in.readInt() == VERSION) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String networkKey = in.readUTF();
+                        Entry entry = new Entry();
+                        entry.time = in.readLong();
+                        entry.data = new byte[in.readInt()];
+                        in.readFully(entry.data);
+                        entries.put(networkKey, entry);
+                    }
+                }
+            } catch (FileNotFoundException e) {
+                // No snapshot yet
+            } catch (IOException e) {
+                e.printStackTrace();
+                entries.clear();
+            } finally {
+                closeQuietly(in);
+            }
+
+            loaded = true;
+        }
+    }
+
+    private synchronized void save() {
+        File tempFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> entry : snapshot) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().time);
+                out.writeInt(entry.getValue().data.length);
+                out.write(entry.getValue().data);
+            }
+            out.close();
+            out = null;
+
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static BeamDevice readDevice(DataInputStream in) throws IOException {
+        int type = in.readByte();
+        String id = in.readUTF();
+        String name = readString(in);
+        String model = readString(in);
+
+        if (type == TYPE_DLNA) {
+            DLNADevice device = new DLNADevice(id);
+            device.setName(name);
+            device.setModel(model);
+            device.setIpAddress(readString(in));
+            int port = in.readInt();
+            device.setPort(port != -1 ? port : null);
+
+            List<Service> serviceList = new ArrayList<>();
+            int serviceCount = in.readInt();
+            for (int i = 0; i < serviceCount; i++) {
+                serviceList.add(Service.read(in));
+            }
+            device.setServiceList(serviceList);
+            return device;
+        } else if (type == TYPE_AIRPLAY) {
+            byte[] address = new byte[in.readInt()];
+            in.readFully(address);
+            int port = in.readInt();
+            String srcvers = readString(in);
+            String protovers = readString(in);
+            boolean pw = in.readBoolean();
+            return new AirPlayDevice(id, name, model, InetAddress.getByAddress(address), port, srcvers, protovers, pw);
+        }
+
+        throw new IOException("Unknown device type " + type);
+    }
+
+    private static void writeDevice(DataOutputStream out, BeamDevice device) throws IOException {
+        if (device instanceof DLNADevice) {
+            DLNADevice dlnaDevice = (DLNADevice) device;
+            out.writeByte(TYPE_DLNA);
+            writeHeader(out, device);
+            writeString(out, dlnaDevice.getIpAddress());
+            out.writeInt(dlnaDevice.getPort() != null ? dlnaDevice.getPort() : -1);
+
+            List<Service> serviceList = dlnaDevice.getServiceList();
+            if (serviceList == null) {
+                out.writeInt(0);
+            } else {
+                out.writeInt(serviceList.size());
+                for (Service service : serviceList) {
+                    service.write(out);
+                }
+            }
+        } else if (device instanceof AirPlayDevice) {
+            AirPlayDevice airPlayDevice = (AirPlayDevice) device;
+            out.writeByte(TYPE_AIRPLAY);
+            writeHeader(out, device);
+            byte[] address = airPlayDevice.getIpAddress().getAddress();
+            out.writeInt(address.length);
+            out.write(address);
+            out.writeInt(airPlayDevice.getPort());
+            writeString(out, airPlayDevice.getSourceVersion());
+            writeString(out, airPlayDevice.getProtocolVersion());
+            out.writeBoolean(airPlayDevice.isPasswordProtected());
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, BeamDevice device) throws IOException {
+        out.writeUTF(device.getId());
+        writeString(out, device.getName());
+        writeString(out, device.getModel());
+    }
+
+    private static class Entry {
+        long time;
+        byte[] data;
+    }
+
+}
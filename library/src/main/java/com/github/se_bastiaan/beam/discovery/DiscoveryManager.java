@@ -11,50 +11,102 @@ import android.net.wifi.WifiManager;
 
 import com.github.se_bastiaan.beam.control.ControlClient;
 import com.github.se_bastiaan.beam.device.BeamDevice;
+import com.github.se_bastiaan.beam.device.UnifiedDevice;
 import com.github.se_bastiaan.beam.discovery.client.AirPlayDiscoveryClient;
 import com.github.se_bastiaan.beam.discovery.client.GoogleCastDiscoveryClient;
 import com.github.se_bastiaan.beam.discovery.client.SSDPDiscoveryClient;
+import com.github.se_bastiaan.beam.logger.Logger;
+import com.github.se_bastiaan.beam.platform.AndroidPlatform;
+import com.github.se_bastiaan.beam.platform.Platform;
+import com.github.se_bastiaan.beam.util.BeamScheduler;
 import com.github.se_bastiaan.beam.util.Foreground;
+import com.github.se_bastiaan.beam.util.ListenerRegistry;
+import com.github.se_bastiaan.beam.util.NetworkUtil;
 import com.github.se_bastiaan.beam.util.ThreadUtil;
 
+import java.io.File;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
 
-public class DiscoveryManager implements DiscoveryClientListener, Foreground.Listener {
+public class DiscoveryManager implements DiscoveryClientListener, DeviceEventBatcher.Callback, Foreground.Listener {
 
+    private static final String TAG = "DiscoveryManager";
     private static final String MULTICAST_TAG = "BeamDiscoveryManager";
+    private static final String SNAPSHOT_FILE = "beam_device_snapshot";
+    private static final long VERIFY_TIMEOUT = 30000;
+    // In low power mode the multicast lock is held for a search window once every period
+    private static final long LOW_POWER_PERIOD = 60000;
+    private static final long LOW_POWER_WINDOW = 4000;
 
     private Context context;
+    private Platform platform;
 
     private ConcurrentHashMap<String, BeamDevice> devices;
 
     private CopyOnWriteArrayList<DiscoveryClient> discoveryClients;
-    private CopyOnWriteArrayList<DiscoveryManagerListener> discoveryListeners;
+    private ListenerRegistry<DiscoveryManagerListener> discoveryListeners;
+    private ListenerRegistry<DiscoveryManagerBatchListener> batchListeners;
+    private ListenerRegistry<DiscoveryManagerReadyListener> readyListeners;
+    private DiscoveryClientStartups startups;
+    private DeviceEventBatcher eventBatcher;
+    private DeviceUnifier unifier;
+    private volatile DeviceSnapshot snapshot = DeviceSnapshot.EMPTY;
+    private volatile boolean unifyDevices = false;
+    private CopyOnWriteArrayList<DiscoveryFilter> filters;
+
+    private DeviceSnapshotStore snapshotStore;
+    private volatile String networkKey;
+    // Network the devices were found on before the connection was lost, null while connected
+    private volatile String suspendedNetworkKey;
+    // Whether the clients were started and not stopped since, the sticky CONNECTED broadcast follows a start
+    private volatile boolean clientsStarted = false;
 
     private WifiManager.MulticastLock multicastLock;
     private BroadcastReceiver receiver;
 
     private boolean isBroadcastReceiverRegistered = false;
 
-    private boolean searching = false;
+    private volatile boolean searching = false;
+
+    private ScheduledFuture<?> statsDumpFuture;
+
+    private volatile DiscoveryPowerMode powerMode = DiscoveryPowerMode.NORMAL;
+    private DiscoveryPowerStats powerStats;
+    private ScheduledFuture<?> dutyCycleFuture;
+    private ScheduledFuture<?> lockReleaseFuture;
 
     public DiscoveryManager(Context context) {
         this.context = context;
+        this.platform = new AndroidPlatform(context);
         Foreground.init(((Application) this.context)).addListener(this);
 
         devices = new ConcurrentHashMap<>(8, 0.75f, 2);
 
         discoveryClients = new CopyOnWriteArrayList<>();
-        discoveryListeners = new CopyOnWriteArrayList<>();
+        discoveryListeners = new ListenerRegistry<>();
+        batchListeners = new ListenerRegistry<>();
+        readyListeners = new ListenerRegistry<>();
+        startups = new DiscoveryClientStartups(startupCallback);
+        eventBatcher = new DeviceEventBatcher(this);
+        unifier = new DeviceUnifier();
+        filters = new CopyOnWriteArrayList<>();
+
+        snapshotStore = new DeviceSnapshotStore(new File(context.getCacheDir(), SNAPSHOT_FILE));
 
         WifiManager wifiMgr = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
         multicastLock = wifiMgr.createMulticastLock(MULTICAST_TAG);
-        multicastLock.setReferenceCounted(true);
+        multicastLock.setReferenceCounted(false);
+        powerStats = new DiscoveryPowerStats(platform);
 
         receiver = new BroadcastReceiver() {
 
@@ -68,22 +120,15 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
                     switch (networkInfo.getState()) {
                         case CONNECTED:
                             if (searching) {
-                                for (DiscoveryClient provider : discoveryClients) {
-                                    provider.restart();
-                                }
+                                handleReconnect();
                             }
                             break;
 
                         case DISCONNECTED:
-                            for (DiscoveryClient provider : discoveryClients) {
-                                provider.reset();
-                            }
-
-                            for (BeamDevice device : devices.values()) {
-                                handleDeviceLoss(device);
+                            if (searching) {
+                                saveSnapshot();
+                                suspendDevices();
                             }
-
-                            devices.clear();
                             break;
                         case CONNECTING:
                             break;
@@ -144,11 +189,11 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
             }
 
             if (discoveryClient == null) {
-                Constructor<? extends DiscoveryClient> myConstructor = discoveryClass.getConstructor(Context.class);
-                Object myObj = myConstructor.newInstance(context);
-                discoveryClient = (DiscoveryClient) myObj;
+                discoveryClient = createDiscoveryClient(discoveryClass);
 
                 discoveryClient.addListener(this);
+                discoveryClient.setFilters(filters);
+                discoveryClient.setPowerMode(powerMode);
                 discoveryClients.add(discoveryClient);
             }
         } catch (NoSuchMethodException | IllegalAccessException | RuntimeException | InvocationTargetException | InstantiationException e) {
@@ -156,6 +201,20 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
         }
     }
 
+    /**
+     * Clients of beam-core are created with a {@link Platform}, Android clients with a {@link Context}
+     */
+    private DiscoveryClient createDiscoveryClient(Class<? extends DiscoveryClient> discoveryClass)
+            throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
+        Constructor<? extends DiscoveryClient> myConstructor;
+        try {
+            myConstructor = discoveryClass.getConstructor(Context.class);
+        } catch (NoSuchMethodException e) {
+            return discoveryClass.getConstructor(Platform.class).newInstance(platform);
+        }
+        return myConstructor.newInstance(context);
+    }
+
     /**
      * Unregisters a DiscoveryService with DiscoveryManager.
      *
@@ -181,6 +240,7 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
             }
 
             discoveryClients.remove(discoveryClient);
+            startups.remove(discoveryClient.getClass());
         } catch (SecurityException | IllegalArgumentException e) {
             e.printStackTrace();
         }
@@ -189,14 +249,35 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
     /**
      * Listener which should receive discovery updates. It is not necessary to set this listener property unless you are implementing your own device picker. Connect SDK provides a default DevicePicker which acts as a DiscoveryManagerListener, and should work for most cases.
      *
-     * If you have provided a capabilityFilters array, the listener will only receive update messages for ConnectableDevices which satisfy at least one of the CapabilityFilters. If no capabilityFilters array is provided, the listener will receive update messages for all ConnectableDevice objects that are discovered.
+     * If you have provided filters with {@link #setFilters(List)}, the listener will only receive update messages for devices which match at least one of the filters. If no filters are provided, the listener will receive update messages for all devices that are discovered.
      */
     public void addListener(DiscoveryManagerListener listener) {
-        // notify listener of all devices so far
-        for (BeamDevice device: devices.values()) {
-            listener.onDeviceAdded(this, device);
-        }
-        discoveryListeners.add(listener);
+        addListener(listener, ThreadUtil.mainThreadExecutor());
+    }
+
+    /**
+     * @param listener {@link DiscoveryManagerListener}
+     * @param executor {@link Executor} the callbacks run on, {@link ThreadUtil#directExecutor()} calls the listener
+     *                 on the thread that delivers the batch
+     */
+    public void addListener(final DiscoveryManagerListener listener, final Executor executor) {
+        // Between two batches, so the listener gets every batch after the snapshot and none of the batches in it
+        eventBatcher.deliver(new Runnable() {
+            @Override
+            public void run() {
+                // notify listener of all devices so far
+                final DeviceSnapshot current = snapshot;
+                ListenerRegistry.dispatch(listener, executor, new ListenerRegistry.Event<DiscoveryManagerListener>() {
+                    @Override
+                    public void dispatch(DiscoveryManagerListener listener) {
+                        for (int i = 0; i < current.size(); i++) {
+                            listener.onDeviceAdded(DiscoveryManager.this, current.get(i));
+                        }
+                    }
+                });
+                discoveryListeners.add(listener, executor);
+            }
+        });
     }
 
     /**
@@ -206,6 +287,84 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
         discoveryListeners.remove(listener);
     }
 
+    /**
+     * Listener which receives all changes of a batch window in one {@link DeviceDiff}. The devices found so far are
+     * delivered right away as one diff.
+     */
+    public void addBatchListener(DiscoveryManagerBatchListener listener) {
+        addBatchListener(listener, ThreadUtil.mainThreadExecutor());
+    }
+
+    /**
+     * @param listener {@link DiscoveryManagerBatchListener}
+     * @param executor {@link Executor} the callbacks run on
+     */
+    public void addBatchListener(final DiscoveryManagerBatchListener listener, final Executor executor) {
+        eventBatcher.deliver(new Runnable() {
+            @Override
+            public void run() {
+                DeviceSnapshot current = snapshot;
+                if (!current.isEmpty()) {
+                    List<BeamDevice> added = new ArrayList<>(current.size());
+                    for (int i = 0; i < current.size(); i++) {
+                        added.add(current.get(i));
+                    }
+                    final DeviceDiff diff = new DeviceDiff(added, new ArrayList<BeamDevice>(), new ArrayList<BeamDevice>());
+                    ListenerRegistry.dispatch(listener, executor, new ListenerRegistry.Event<DiscoveryManagerBatchListener>() {
+                        @Override
+                        public void dispatch(DiscoveryManagerBatchListener listener) {
+                            listener.onDevicesChanged(DiscoveryManager.this, diff);
+                        }
+                    });
+                }
+                batchListeners.add(listener, executor);
+            }
+        });
+    }
+
+    public void removeBatchListener(DiscoveryManagerBatchListener listener) {
+        batchListeners.remove(listener);
+    }
+
+    /**
+     * Only discover devices that match at least one of the filters. The filters are handed to every
+     * {@link DiscoveryClient}, so devices that do not match are rejected before they are looked up in detail. Devices
+     * that were found before are dropped and searched for again.
+     * @param filters {@link DiscoveryFilter}s, empty to discover every device
+     */
+    public void setFilters(List<DiscoveryFilter> filters) {
+        this.filters.clear();
+        this.filters.addAll(filters);
+        applyFilters();
+    }
+
+    public void addFilter(DiscoveryFilter filter) {
+        filters.add(filter);
+        applyFilters();
+    }
+
+    public void removeFilter(DiscoveryFilter filter) {
+        if (filters.remove(filter)) {
+            applyFilters();
+        }
+    }
+
+    public List<DiscoveryFilter> getFilters() {
+        return new ArrayList<>(filters);
+    }
+
+    private void applyFilters() {
+        for (DiscoveryClient provider : discoveryClients) {
+            provider.setFilters(filters);
+        }
+
+        if (!searching) {
+            return;
+        }
+
+        discoverAgain();
+    }
+
     /**
      * Start scanning for devices on the local network.
      */
@@ -223,23 +382,254 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
         }
 
         searching = true;
-        multicastLock.acquire();
+        startups.open();
+        powerStats.start(powerMode);
+        applyPowerMode();
+
+        startClients();
+        restoreSnapshot();
+    }
+
+    /**
+     * Start the clients side by side on background threads, see {@link #getReadiness(Class)}
+     */
+    private void startClients() {
+        ConnectivityManager connManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo networkInfo = connManager.getActiveNetworkInfo();
+
+        if (networkInfo == null || networkInfo.getType() != ConnectivityManager.TYPE_WIFI) {
+            return;
+        }
+
+        // Does nothing once stop() closed the session, e.g. when it ran during a reconnect
+        clientsStarted = startups.startAll(discoveryClients);
+    }
+
+    /**
+     * Stop the clients. A startup that did not run yet is cancelled so it can not start the client after it was stopped,
+     * after {@link #stop()} a client that is still starting on a worker is stopped once its start() returned.
+     */
+    private void stopClients() {
+        clientsStarted = false;
+        cancelStartups();
+        for (DiscoveryClient provider : discoveryClients) {
+            provider.stop();
+        }
+    }
 
-        ThreadUtil.runOnMainThread(new Runnable() {
+    private void cancelStartups() {
+        startups.cancel();
+    }
+
+    private final DiscoveryClientStartup.Callback startupCallback = new DiscoveryClientStartup.Callback() {
+        @Override
+        public void onReady(DiscoveryClientStartup startup, final Throwable error) {
+            final DiscoveryClient client = startup.getClient();
+            if (error != null) {
+                Logger.e(TAG, client.getClass().getSimpleName() + " failed to start", error);
+            } else {
+                Logger.d(TAG, client.getClass().getSimpleName() + " started in " + startup.getStartupTime() + " ms");
+            }
+
+            readyListeners.dispatch(new ListenerRegistry.Event<DiscoveryManagerReadyListener>() {
+                @Override
+                public void dispatch(DiscoveryManagerReadyListener listener) {
+                    listener.onClientReady(DiscoveryManager.this, client, error);
+                }
+            });
+        }
+    };
+
+    /**
+     * @param discoveryClass Class of a registered {@link DiscoveryClient}
+     * @return {@link Future} that completes when the client was last started, null when it was not started
+     */
+    public Future<DiscoveryClient> getReadiness(Class<? extends DiscoveryClient> discoveryClass) {
+        return startups.get(discoveryClass);
+    }
+
+    /**
+     * Add a listener that is called on the main thread when a client finished starting
+     */
+    public void addReadyListener(DiscoveryManagerReadyListener listener) {
+        addReadyListener(listener, ThreadUtil.mainThreadExecutor());
+    }
+
+    public void addReadyListener(DiscoveryManagerReadyListener listener, Executor executor) {
+        readyListeners.add(listener, executor);
+    }
+
+    public void removeReadyListener(DiscoveryManagerReadyListener listener) {
+        readyListeners.remove(listener);
+    }
+
+    /**
+     * Keep the devices while the connection is down, they are suspect until they are found again. Roaming between
+     * access points of one network should not make the devices disappear.
+     */
+    private void suspendDevices() {
+        if (suspendedNetworkKey == null) {
+            suspendedNetworkKey = networkKey != null ? networkKey : "";
+        }
+
+        stopClients();
+
+        for (BeamDevice device : devices.values()) {
+            if (!device.isConnected() && device.isVerified()) {
+                device.setVerified(false);
+                eventBatcher.put(device);
+            }
+        }
+    }
 
+    /**
+     * Check the suspect devices when the connection is back on the same network, start over on another network
+     */
+    private void handleReconnect() {
+        final String suspendedKey = suspendedNetworkKey;
+        if (suspendedKey == null) {
+            if (!clientsStarted) {
+                // Started without Wi-Fi, the clients were never started
+                startClients();
+                restoreSnapshot();
+                return;
+            }
+
+            ThreadUtil.runInBackground(new Runnable() {
+                @Override
+                public void run() {
+                    // The sticky broadcast right after a start, the clients already run on this network. The key is
+                    // still null while restoreSnapshot() looks it up, that also means the clients were just started.
+                    String key = NetworkUtil.getNetworkKey(context);
+                    String startedKey = networkKey;
+                    if (key != null && startedKey != null && !key.equals(startedKey) && suspendedNetworkKey == null) {
+                        Logger.d(TAG, "Connected to another network, discovering devices again");
+                        discoverAgain();
+                    }
+                }
+            });
+            return;
+        }
+
+        ThreadUtil.runInBackground(new Runnable() {
             @Override
             public void run() {
-                ConnectivityManager connManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+                String key = NetworkUtil.getNetworkKey(context);
+                if (!searching) {
+                    // Stopped while the key was looked up, the next start() begins a new session
+                    return;
+                }
+                suspendedNetworkKey = null;
 
-                if (connManager.getActiveNetworkInfo().getType() == ConnectivityManager.TYPE_WIFI) {
+                if (key != null && key.equals(suspendedKey)) {
+                    Logger.d(TAG, "Reconnected to the same network, revalidating devices");
                     for (DiscoveryClient provider : discoveryClients) {
-                        provider.start();
+                        provider.revalidate();
                     }
+                    startClients();
+
+                    BeamScheduler.getInstance().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            evictUnverified();
+                        }
+                    }, VERIFY_TIMEOUT, BeamScheduler.PRIORITY_LOW);
+                } else {
+                    Logger.d(TAG, "Connected to another network, discovering devices again");
+                    discoverAgain();
                 }
             }
         });
     }
 
+    /**
+     * Drop the devices that were found and start the clients over, e.g. on another network
+     */
+    private void discoverAgain() {
+        cancelStartups();
+        for (DiscoveryClient provider : discoveryClients) {
+            provider.reset();
+        }
+
+        for (BeamDevice device : devices.values()) {
+            if (!device.isConnected() && devices.remove(device.getId(), device)) {
+                handleDeviceLoss(device);
+            }
+        }
+
+        startClients();
+        restoreSnapshot();
+    }
+
+    /**
+     * Publish the devices that were last seen on the current network as unverified devices. They are verified when
+     * a {@link DiscoveryClient} finds them again, or removed when that does not happen within {@link #VERIFY_TIMEOUT}.
+     */
+    private void restoreSnapshot() {
+        ThreadUtil.runInBackground(new Runnable() {
+            @Override
+            public void run() {
+                final String key = NetworkUtil.getNetworkKey(context);
+                networkKey = key;
+                if (key == null) {
+                    return;
+                }
+
+                final List<BeamDevice> snapshot = snapshotStore.get(key);
+                if (snapshot.isEmpty()) {
+                    return;
+                }
+
+                if (!searching || !key.equals(networkKey)) {
+                    return;
+                }
+
+                for (BeamDevice device : snapshot) {
+                    if (!DiscoveryFilter.matches(filters, device.getClass(), null, null, device.getModel(), null)) {
+                        continue;
+                    }
+
+                    if (devices.putIfAbsent(device.getId(), device) == null) {
+                        eventBatcher.put(device);
+                    }
+                }
+
+                BeamScheduler.getInstance().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        evictUnverified();
+                    }
+                }, VERIFY_TIMEOUT, BeamScheduler.PRIORITY_LOW);
+            }
+        });
+    }
+
+    private void evictUnverified() {
+        for (BeamDevice device : devices.values()) {
+            if (!device.isVerified() && !device.isConnected() && devices.remove(device.getId(), device)) {
+                handleDeviceLoss(device);
+            }
+        }
+    }
+
+    /**
+     * Store the verified devices of the current network for the next session
+     */
+    private void saveSnapshot() {
+        final String key = networkKey;
+        if (key == null) {
+            return;
+        }
+
+        final List<BeamDevice> snapshot = new ArrayList<>(devices.values());
+        BeamScheduler.getInstance().execute(new Runnable() {
+            @Override
+            public void run() {
+                snapshotStore.put(key, snapshot);
+            }
+        }, BeamScheduler.PRIORITY_LOW);
+    }
+
     /**
      * Stop scanning for devices.
      */
@@ -249,13 +639,13 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
 
         searching = false;
 
-        for (DiscoveryClient provider : discoveryClients) {
-            provider.stop();
-        }
+        startups.close();
+        stopClients();
 
-        if (multicastLock.isHeld()) {
-            multicastLock.release();
-        }
+        stopDutyCycle();
+        releaseMulticastLock();
+
+        saveSnapshot();
 
         for (String key : devices.keySet()) {
             BeamDevice device = devices.get(key);
@@ -266,32 +656,153 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
         }
     }
 
-    private void handleDeviceAdd(BeamDevice device) {
+    private void handleDeviceUpdate(BeamDevice device) {
+        if (device.getId() == null) {
+            return;
+        }
+
         devices.put(device.getId(), device);
+        eventBatcher.put(device);
+    }
+
+    private void handleDeviceLoss(BeamDevice device) {
+        eventBatcher.remove(device);
+    }
 
-        for (DiscoveryManagerListener listener: discoveryListeners) {
-            listener.onDeviceAdded(this, device);
+    /**
+     * Deliver a batch of changes, listeners of single devices get one callback per device
+     */
+    @Override
+    public void onBatch(DeviceDiff diff) {
+        DiscoveryStats stats = DiscoveryStats.getInstance();
+        for (BeamDevice device : diff.getAdded()) {
+            stats.onNotified(device);
         }
+        for (BeamDevice device : diff.getChanged()) {
+            stats.onNotified(device);
+        }
+
+        DeviceDiff deliveredDiff = unifyDevices ? unifier.apply(diff) : diff;
+        publishSnapshot();
+        dispatch(deliveredDiff);
     }
 
-    private void handleDeviceUpdate(BeamDevice device) {
-        if (device.getId() != null && devices.containsKey(device.getId())) {
-            for (DiscoveryManagerListener listener: discoveryListeners) {
-                listener.onDeviceUpdated(this, device);
+    private void dispatch(final DeviceDiff diff) {
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        batchListeners.dispatch(new ListenerRegistry.Event<DiscoveryManagerBatchListener>() {
+            @Override
+            public void dispatch(DiscoveryManagerBatchListener listener) {
+                listener.onDevicesChanged(DiscoveryManager.this, diff);
             }
+        });
+
+        discoveryListeners.dispatch(new ListenerRegistry.Event<DiscoveryManagerListener>() {
+            @Override
+            public void dispatch(DiscoveryManagerListener listener) {
+                for (BeamDevice device : diff.getRemoved()) {
+                    listener.onDeviceRemoved(DiscoveryManager.this, device);
+                }
+                for (BeamDevice device : diff.getAdded()) {
+                    listener.onDeviceAdded(DiscoveryManager.this, device);
+                }
+                for (BeamDevice device : diff.getChanged()) {
+                    listener.onDeviceUpdated(DiscoveryManager.this, device);
+                }
+            }
+        });
+    }
+
+    /**
+     * Report a device that is discovered by more than one protocol once, as a {@link UnifiedDevice}. Connecting to it
+     * through the {@link com.github.se_bastiaan.beam.control.ControlManager} uses the fastest protocol. The listeners
+     * are told to replace the devices they know.
+     * @param unifyDevices true to report {@link UnifiedDevice}s, false to report the device of every protocol
+     */
+    public void setUnifyDevices(final boolean unifyDevices) {
+        // Delivered in order with the batches, the replacement must not overlap a batch
+        eventBatcher.deliver(new Runnable() {
+            @Override
+            public void run() {
+                replaceUnifiedDevices(unifyDevices);
+            }
+        });
+    }
+
+    private void replaceUnifiedDevices(boolean unifyDevices) {
+        if (this.unifyDevices == unifyDevices) {
+            return;
+        }
+
+        // The devices as delivered, pending changes follow in the next batch
+        List<BeamDevice> current = eventBatcher.getPublished();
+        List<BeamDevice> none = new ArrayList<>();
+
+        this.unifyDevices = unifyDevices;
+
+        if (unifyDevices) {
+            unifier.clear();
+            List<BeamDevice> unified = unifier.apply(new DeviceDiff(current, none, none)).getAdded();
+            publishSnapshot();
+            dispatch(new DeviceDiff(new ArrayList<>(unified), none, current));
         } else {
-            handleDeviceAdd(device);
+            List<BeamDevice> unified = new ArrayList<BeamDevice>(unifier.getDevices());
+            unifier.clear();
+            publishSnapshot();
+            dispatch(new DeviceDiff(current, none, unified));
         }
     }
 
-    private void handleDeviceLoss(BeamDevice device) {
-        for (DiscoveryManagerListener listener : discoveryListeners) {
-            listener.onDeviceRemoved(this, device);
-        }
+    public boolean isUnifyingDevices() {
+        return unifyDevices;
     }
 
+    /**
+     * @return Devices of every protocol merged per physical device, empty when devices are not unified
+     */
+    public List<UnifiedDevice> getUnifiedDevices() {
+        return unifyDevices ? unifier.getDevices() : new ArrayList<UnifiedDevice>();
+    }
+
+    /**
+     * @return Unmodifiable map of the devices after the last batch of changes, see {@link #getSnapshot()}
+     */
     public Map<String, BeamDevice> getDevices() {
-        return devices;
+        return snapshot.asMap();
+    }
+
+    /**
+     * The snapshot is replaced after every batch of changes, before the listeners are called. Reading it does not lock
+     * or copy anything.
+     * @return {@link DeviceSnapshot} of the devices after the last batch of changes
+     */
+    public DeviceSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Build the snapshot from the devices as they were delivered, changes that are still pending in the batcher are
+     * not in it. Connected devices are kept while they are not found, as they are in {@link #devices}. Only called
+     * while delivering.
+     */
+    private synchronized void publishSnapshot() {
+        List<BeamDevice> current = new ArrayList<BeamDevice>(unifyDevices ? unifier.getDevices() : eventBatcher.getPublished());
+
+        Set<String> ids = new HashSet<>();
+        for (BeamDevice device : current) {
+            ids.add(device.getId());
+        }
+
+        for (BeamDevice device : devices.values()) {
+            if (device.isConnected() && !ids.contains(device.getId())
+                    && (!unifyDevices || unifier.getUnifiedDevice(device) == null)) {
+                current.add(device);
+            }
+        }
+
+        snapshot = new DeviceSnapshot(snapshot.getVersion() + 1, current);
     }
 
     public Context getContext() {
@@ -302,6 +813,145 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
         return new ArrayList<>(discoveryClients);
     }
 
+    /**
+     * @return {@link DiscoveryStats} with the discovery timings of every protocol
+     */
+    public DiscoveryStats getStats() {
+        return DiscoveryStats.getInstance();
+    }
+
+    /**
+     * Trade discovery speed for power, e.g. for a picker that is open for hours
+     * @param mode {@link DiscoveryPowerMode}
+     */
+    public synchronized void setPowerMode(DiscoveryPowerMode mode) {
+        if (powerMode == mode) {
+            return;
+        }
+
+        powerMode = mode;
+        for (DiscoveryClient provider : discoveryClients) {
+            provider.setPowerMode(mode);
+        }
+
+        if (searching) {
+            powerStats.start(mode);
+            applyPowerMode();
+        }
+    }
+
+    public DiscoveryPowerMode getPowerMode() {
+        return powerMode;
+    }
+
+    /**
+     * @return {@link DiscoveryPowerStats} of the current power mode since discovery started or the mode changed
+     */
+    public DiscoveryPowerStats getPowerStats() {
+        return powerStats;
+    }
+
+    private synchronized void applyPowerMode() {
+        stopDutyCycle();
+
+        if (powerMode == DiscoveryPowerMode.LOW_POWER) {
+            releaseMulticastLock();
+            dutyCycleFuture = BeamScheduler.getInstance().scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    openSearchWindow();
+                }
+            }, 0, LOW_POWER_PERIOD, BeamScheduler.PRIORITY_LOW);
+        } else {
+            acquireMulticastLock();
+        }
+    }
+
+    /**
+     * Hold the multicast lock and search for a short while, so multicast answers and announcements are received
+     */
+    private synchronized void openSearchWindow() {
+        if (!searching || powerMode != DiscoveryPowerMode.LOW_POWER) {
+            return;
+        }
+
+        // A single search per window, rescan() would start a burst of searches and restart some clients
+        acquireMulticastLock();
+        for (DiscoveryClient provider : discoveryClients) {
+            provider.searchOnce();
+        }
+
+        lockReleaseFuture = BeamScheduler.getInstance().schedule(new Runnable() {
+            @Override
+            public void run() {
+                closeSearchWindow();
+            }
+        }, LOW_POWER_WINDOW, BeamScheduler.PRIORITY_LOW);
+    }
+
+    private synchronized void closeSearchWindow() {
+        lockReleaseFuture = null;
+        if (powerMode == DiscoveryPowerMode.LOW_POWER) {
+            releaseMulticastLock();
+        }
+    }
+
+    private synchronized void stopDutyCycle() {
+        if (dutyCycleFuture != null) {
+            dutyCycleFuture.cancel(false);
+            dutyCycleFuture = null;
+        }
+        if (lockReleaseFuture != null) {
+            lockReleaseFuture.cancel(false);
+            lockReleaseFuture = null;
+        }
+    }
+
+    private synchronized void acquireMulticastLock() {
+        if (!multicastLock.isHeld()) {
+            multicastLock.acquire();
+            powerStats.onLockAcquired();
+        }
+    }
+
+    private synchronized void releaseMulticastLock() {
+        if (multicastLock.isHeld()) {
+            multicastLock.release();
+            powerStats.onLockReleased();
+        }
+    }
+
+    /**
+     * Periodically log the {@link DiscoveryStats}, {@link DiscoveryPowerStats} and the SSDP receive counters
+     * @param interval Interval in ms, 0 to stop logging
+     */
+    public synchronized void setStatsDumpInterval(long interval) {
+        if (statsDumpFuture != null) {
+            statsDumpFuture.cancel(false);
+            statsDumpFuture = null;
+        }
+
+        if (interval <= 0) {
+            return;
+        }
+
+        statsDumpFuture = BeamScheduler.getInstance().scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                Logger.i(TAG, DiscoveryStats.getInstance().toString());
+                Logger.i(TAG, powerStats.toString());
+                for (DiscoveryClient provider : discoveryClients) {
+                    if (provider instanceof SSDPDiscoveryClient) {
+                        SSDPDiscoveryClient ssdp = (SSDPDiscoveryClient) provider;
+                        Logger.i(TAG, "SSDP packets: " + ssdp.getReceivedPacketCount() + " received, "
+                                + ssdp.getTruncatedPacketCount() + " truncated, "
+                                + ssdp.getDroppedPacketCount() + " dropped by the rate limiter");
+                    }
+                }
+            }
+        }, interval, interval, BeamScheduler.PRIORITY_LOW);
+    }
+
     @Override
     public void onDeviceAdded(DiscoveryClient client, BeamDevice device) {
         BeamDevice foundDevice = devices.get(device.getId());
@@ -310,6 +960,12 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
 
         if (isNew) {
             foundDevice = device;
+        } else if (!foundDevice.isVerified()) {
+            // Replace the restored or suspect device with the live one
+            device.setConnected(foundDevice.isConnected());
+            device.setVerified(true);
+            devices.put(device.getId(), device);
+            foundDevice = device;
         } else {
             if (!foundDevice.getName().equals(device.getName())) {
                 foundDevice.setName(device.getName());
@@ -326,7 +982,7 @@ public class DiscoveryManager implements DiscoveryClientListener, Foreground.Lis
         if (devices.containsKey(removedDevice.getId())) {
             final BeamDevice device = devices.get(removedDevice.getId());
 
-            if (device != null) {
+            if (device != null && (device.isConnected() || devices.remove(device.getId(), device))) {
                 handleDeviceLoss(device);
             }
         }
@@ -0,0 +1,27 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.se_bastiaan.beam.discovery;
+
+public interface DiscoveryManagerReadyListener {
+
+    /**
+     * @param manager {@link DiscoveryManager}
+     * @param client {@link DiscoveryClient} that finished starting
+     * @param error Exception thrown while starting or null when the client is searching
+     */
+    void onClientReady(DiscoveryManager manager, DiscoveryClient client, Throwable error);
+
+}
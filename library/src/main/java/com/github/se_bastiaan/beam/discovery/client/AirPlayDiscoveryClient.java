@@ -24,15 +24,30 @@ import com.github.druk.rxdnssd.RxDnssdEmbedded;
 import com.github.se_bastiaan.beam.device.AirPlayDevice;
 import com.github.se_bastiaan.beam.discovery.DiscoveryClient;
 import com.github.se_bastiaan.beam.discovery.DiscoveryClientListener;
-import com.github.se_bastiaan.beam.util.ThreadUtil;
-
+import com.github.se_bastiaan.beam.discovery.DiscoveryFilter;
+import com.github.se_bastiaan.beam.discovery.DiscoveryPowerMode;
+import com.github.se_bastiaan.beam.discovery.DiscoveryStats;
+import com.github.se_bastiaan.beam.discovery.dnssd.DNSSDServiceIndex;
+import com.github.se_bastiaan.beam.util.BeamScheduler;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
 import rx.Subscription;
 import rx.android.schedulers.AndroidSchedulers;
 import rx.functions.Action1;
+import rx.functions.Func1;
 import rx.schedulers.Schedulers;
 
 /**
@@ -46,9 +61,11 @@ public class AirPlayDiscoveryClient implements DiscoveryClient {
     private RxDnssd dnssd;
 
     private ConcurrentHashMap<String, AirPlayDevice> foundDevices;
+    private DNSSDServiceIndex serviceIndex = new DNSSDServiceIndex();
     private CopyOnWriteArrayList<DiscoveryClientListener> clientListeners;
+    private volatile List<DiscoveryFilter> filters = Collections.emptyList();
 
-    private boolean isRunning = false;
+    private volatile boolean isRunning = false;
 
     public AirPlayDiscoveryClient(Context context) {
         foundDevices = new ConcurrentHashMap<>(8, 0.75f, 2);
@@ -59,13 +76,32 @@ public class AirPlayDiscoveryClient implements DiscoveryClient {
     }
 
     @Override
-    public void start() {
+    public synchronized void start() {
         if (isRunning)
             return;
 
+        if (!DiscoveryFilter.matchesProtocol(filters, AirPlayDevice.class))
+            return;
+
         isRunning = true;
 
+        DiscoveryStats.getInstance().onStarted(AirPlayDevice.class);
+
         subscription = dnssd.browse(SERVICE_TYPE, "local.")
+                .doOnNext(new Action1<BonjourService>() {
+                    @Override
+                    public void call(BonjourService bonjourService) {
+                        if (!bonjourService.isLost()) {
+                            DiscoveryStats.getInstance().onPacket(AirPlayDevice.class, bonjourService.getServiceName());
+                        }
+                    }
+                })
+                .filter(new Func1<BonjourService, Boolean>() {
+                    @Override
+                    public Boolean call(BonjourService bonjourService) {
+                        return needsResolve(bonjourService);
+                    }
+                })
                 .compose(dnssd.resolve())
                 .compose(dnssd.queryRecords())
                 .subscribeOn(Schedulers.io())
@@ -88,7 +124,7 @@ public class AirPlayDiscoveryClient implements DiscoveryClient {
     }
 
     @Override
-    public void stop() {
+    public synchronized void stop() {
         isRunning = false;
 
         if (subscription != null && !subscription.isUnsubscribed()) {
@@ -107,6 +143,50 @@ public class AirPlayDiscoveryClient implements DiscoveryClient {
     public void reset() {
         stop();
         foundDevices.clear();
+        serviceIndex.clear();
+    }
+
+    @Override
+    public void revalidate() {
+        for (AirPlayDevice device : foundDevices.values()) {
+            probe(device);
+        }
+    }
+
+    /**
+     * Check that a found device still answers HTTP requests, any response will do. Remove it when it does not.
+     */
+    private void probe(final AirPlayDevice device) {
+        if (device.getIpAddress() == null) {
+            return;
+        }
+
+        Request request = new Request.Builder()
+                .url(device.getUrl() + "server-info")
+                .build();
+
+        BeamScheduler.getInstance().getDiscoveryHttpClient().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (foundDevices.remove(device.getId(), device)) {
+                    serviceIndex.removeDevice(device.getId());
+                    for (DiscoveryClientListener listener : clientListeners) {
+                        listener.onDeviceRemoved(AirPlayDiscoveryClient.this, device);
+                    }
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                response.close();
+                if (foundDevices.get(device.getId()) == device) {
+                    device.setLastDetection(new Date().getTime());
+                    for (DiscoveryClientListener listener : clientListeners) {
+                        listener.onDeviceAdded(AirPlayDiscoveryClient.this, device);
+                    }
+                }
+            }
+        });
     }
 
     @Override
@@ -114,6 +194,13 @@ public class AirPlayDiscoveryClient implements DiscoveryClient {
         restart();
     }
 
+    /**
+     * The browse keeps querying by itself, restarting it would drop the services it found and the discovery timings
+     */
+    @Override
+    public void searchOnce() {
+    }
+
     @Override
     public void addListener(DiscoveryClientListener listener) {
         clientListeners.add(listener);
@@ -124,29 +211,51 @@ public class AirPlayDiscoveryClient implements DiscoveryClient {
         clientListeners.remove(listener);
     }
 
+    @Override
+    public void setFilters(List<DiscoveryFilter> filters) {
+        this.filters = new ArrayList<>(filters);
+    }
+
+    /**
+     * The mDNS responder backs off its queries by itself, answers only arrive while the multicast lock is held
+     */
+    @Override
+    public void setPowerMode(DiscoveryPowerMode mode) {
+    }
+
     private void handleServiceFound(BonjourService service) {
         String name = service.getServiceName();
+        Map<String, String> records = service.getTxtRecords();
+        String deviceId = records.containsKey("deviceid") ? records.get("deviceid") : name;
 
-        String key = getServiceKey(service);
-        AirPlayDevice foundDevice = foundDevices.get(key);
+        InetAddress address = service.getInet4Address() != null ? service.getInet4Address() : service.getInet6Address();
+        long now = new Date().getTime();
+        DNSSDServiceIndex.Update update = serviceIndex.put(getServiceKey(service), deviceId, service.getPort(), records, address, now);
+
+        AirPlayDevice foundDevice = foundDevices.get(deviceId);
 
-        boolean isNew = foundDevice == null;
         boolean listUpdateFlag = false;
 
-        if (isNew) {
+        if (foundDevice == null) {
+            // Devices that did not match the filters stay in the index, check again only when their records change
+            if (update == DNSSDServiceIndex.Update.UNCHANGED || !matchesTxtRecords(service)) {
+                return;
+            }
+
             foundDevice = new AirPlayDevice(service);
             listUpdateFlag = true;
-        }
-        else {
-            if (!foundDevice.getName().equals(name)) {
-                foundDevice.setName(name);
-                listUpdateFlag = true;
-            }
+
+            DiscoveryStats.getInstance().onResolved(AirPlayDevice.class, name, foundDevice.getId());
+        } else if (update == DNSSDServiceIndex.Update.CHANGED) {
+            // Update the instance that was reported before, listeners and the DiscoveryManager keep that one
+            foundDevice.update(service);
+            listUpdateFlag = true;
         }
 
-        foundDevice.setLastDetection(new Date().getTime());
+        foundDevice.setIpAddresses(serviceIndex.getAddresses(deviceId));
+        foundDevice.setLastDetection(now);
 
-        foundDevices.put(key, foundDevice);
+        foundDevices.put(deviceId, foundDevice);
 
         if (listUpdateFlag) {
             for (DiscoveryClientListener listener: clientListeners) {
@@ -155,29 +264,56 @@ public class AirPlayDiscoveryClient implements DiscoveryClient {
         }
     }
 
+    /**
+     * A device that announces itself again with records that are still fresh does not have to be resolved again
+     * @return true when the browse result has to be resolved
+     */
+    private boolean needsResolve(BonjourService service) {
+        if (service.isLost()) {
+            return true;
+        }
+
+        long now = new Date().getTime();
+        String key = getServiceKey(service);
+        if (!serviceIndex.isFresh(key, now)) {
+            return true;
+        }
+
+        String deviceId = serviceIndex.getDeviceId(key);
+        AirPlayDevice device = deviceId != null ? foundDevices.get(deviceId) : null;
+        if (device != null) {
+            device.setLastDetection(now);
+        }
+        return false;
+    }
+
+    /**
+     * Check the model in the TXT record before a device is created
+     */
+    private boolean matchesTxtRecords(BonjourService service) {
+        return DiscoveryFilter.matches(filters, AirPlayDevice.class, null, null, service.getTxtRecords().get("model"), null);
+    }
+
     private void handleServiceLost(BonjourService service) {
-        final AirPlayDevice device = foundDevices.get(getServiceKey(service));
+        String deviceId = serviceIndex.remove(getServiceKey(service));
+        if (deviceId == null) {
+            return;
+        }
+
+        AirPlayDevice device = foundDevices.remove(deviceId);
 
         if (device != null) {
-            ThreadUtil.runOnMainThread(new Runnable() {
-                @Override
-                public void run() {
-                    for (DiscoveryClientListener listener : clientListeners) {
-                        listener.onDeviceRemoved(AirPlayDiscoveryClient.this, device);
-                    }
-                }
-            });
+            for (DiscoveryClientListener listener : clientListeners) {
+                listener.onDeviceRemoved(AirPlayDiscoveryClient.this, device);
+            }
         }
     }
 
+    /**
+     * Key of a single announcement of a service, a device announces itself once on every interface
+     */
     private String getServiceKey(BonjourService service) {
-        String key = "";
-        if (service.getInet4Address() != null) {
-            key += service.getInet4Address().getHostAddress();
-        } else if (service.getInet6Address() != null) {
-            key += service.getInet6Address().getHostAddress();
-        }
-        return key;
+        return service.getServiceName() + '%' + service.getIfIndex();
     }
 
-}
\ No newline at end of file
+}
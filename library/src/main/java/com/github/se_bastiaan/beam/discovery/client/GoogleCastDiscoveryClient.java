@@ -24,16 +24,23 @@ import android.support.v7.media.MediaRouter.RouteInfo;
 import com.github.se_bastiaan.beam.device.GoogleCastDevice;
 import com.github.se_bastiaan.beam.discovery.DiscoveryClient;
 import com.github.se_bastiaan.beam.discovery.DiscoveryClientListener;
+import com.github.se_bastiaan.beam.discovery.DiscoveryFilter;
+import com.github.se_bastiaan.beam.discovery.DiscoveryPowerMode;
+import com.github.se_bastiaan.beam.discovery.DiscoveryStats;
+import com.github.se_bastiaan.beam.util.BeamScheduler;
 import com.github.se_bastiaan.beam.util.ThreadUtil;
 import com.google.android.gms.cast.CastDevice;
 import com.google.android.gms.cast.CastMediaControlIntent;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
 
 public class GoogleCastDiscoveryClient implements DiscoveryClient {
 
@@ -46,10 +53,12 @@ public class GoogleCastDiscoveryClient implements DiscoveryClient {
     private List<String> removedUUID = new CopyOnWriteArrayList<String>();
     protected ConcurrentHashMap<String, GoogleCastDevice> foundDevices;
     protected CopyOnWriteArrayList<DiscoveryClientListener> clientListeners;
+    private volatile List<DiscoveryFilter> filters = Collections.emptyList();
 
-    private Timer removeRoutesTimer;
+    private volatile ScheduledFuture<?> removeRoutesFuture;
 
-    private boolean isRunning = false;
+    private volatile boolean isRunning = false;
+    private volatile boolean passive = false;
 
     public GoogleCastDiscoveryClient(Context context) {
         context = context.getApplicationContext();
@@ -65,12 +74,17 @@ public class GoogleCastDiscoveryClient implements DiscoveryClient {
     }
 
     @Override
-    public void start() {
+    public synchronized void start() {
         if (isRunning) 
             return;
 
+        if (!DiscoveryFilter.matchesProtocol(filters, GoogleCastDevice.class))
+            return;
+
         isRunning = true;
 
+        DiscoveryStats.getInstance().onStarted(GoogleCastDevice.class);
+
         if (mediaRouteSelector == null) {
             mediaRouteSelector = new MediaRouteSelector.Builder()
                     .addControlCategory(CastMediaControlIntent.categoryForCast(CastMediaControlIntent.DEFAULT_MEDIA_RECEIVER_APPLICATION_ID))
@@ -81,12 +95,12 @@ public class GoogleCastDiscoveryClient implements DiscoveryClient {
     }
 
     @Override
-    public void stop() {
+    public synchronized void stop() {
         isRunning = false;
 
-        if (removeRoutesTimer != null) {
-            removeRoutesTimer.cancel();
-            removeRoutesTimer = null;
+        if (removeRoutesFuture != null) {
+            removeRoutesFuture.cancel(false);
+            removeRoutesFuture = null;
         }
 
         if (mediaRouter != null) {
@@ -111,6 +125,40 @@ public class GoogleCastDiscoveryClient implements DiscoveryClient {
         foundDevices.clear();
     }
 
+    /**
+     * The media router keeps its routes while the network is down, devices that no longer have a route are gone
+     */
+    @Override
+    public void revalidate() {
+        ThreadUtil.runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                Set<String> routedDevices = new HashSet<>();
+                if (mediaRouteSelector != null) {
+                    for (RouteInfo route : mediaRouter.getRoutes()) {
+                        CastDevice castDevice = CastDevice.getFromBundle(route.getExtras());
+                        if (castDevice != null && route.matchesSelector(mediaRouteSelector)) {
+                            routedDevices.add(castDevice.getDeviceId());
+                        }
+                    }
+                }
+
+                for (GoogleCastDevice device : foundDevices.values()) {
+                    if (routedDevices.contains(device.getId())) {
+                        device.setLastDetection(new Date().getTime());
+                        for (DiscoveryClientListener listener : clientListeners) {
+                            listener.onDeviceAdded(GoogleCastDiscoveryClient.this, device);
+                        }
+                    } else if (foundDevices.remove(device.getId(), device)) {
+                        for (DiscoveryClientListener listener : clientListeners) {
+                            listener.onDeviceRemoved(GoogleCastDiscoveryClient.this, device);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
     @Override
     public void rescan() {
         ThreadUtil.runOnMainThread(new Runnable() {
@@ -118,11 +166,21 @@ public class GoogleCastDiscoveryClient implements DiscoveryClient {
             @Override
             public void run() {
                 mediaRouter.addCallback(mediaRouteSelector, mediaRouterCallback,
-                        MediaRouter.CALLBACK_FLAG_REQUEST_DISCOVERY);
+                        passive ? 0 : MediaRouter.CALLBACK_FLAG_REQUEST_DISCOVERY);
             }
         });
     }
 
+    /**
+     * Ask the media router for a discovery pass, the callback is replaced so nothing is reset
+     */
+    @Override
+    public void searchOnce() {
+        if (isRunning) {
+            rescan();
+        }
+    }
+
     @Override
     public void addListener(DiscoveryClientListener listener) {
         clientListeners.add(listener);
@@ -133,6 +191,35 @@ public class GoogleCastDiscoveryClient implements DiscoveryClient {
         clientListeners.remove(listener);
     }
 
+    @Override
+    public void setFilters(List<DiscoveryFilter> filters) {
+        this.filters = new ArrayList<>(filters);
+    }
+
+    /**
+     * In {@link DiscoveryPowerMode#PASSIVE} the media router does not request discovery, routes found by other apps
+     * and Google Play services are still reported
+     */
+    @Override
+    public void setPowerMode(DiscoveryPowerMode mode) {
+        boolean passive = mode == DiscoveryPowerMode.PASSIVE;
+        if (this.passive == passive) {
+            return;
+        }
+
+        this.passive = passive;
+        if (isRunning) {
+            rescan();
+        }
+    }
+
+    /**
+     * Check the model of a new route before a device is created
+     */
+    private boolean matchesRoute(CastDevice castDevice) {
+        return DiscoveryFilter.matches(filters, GoogleCastDevice.class, null, null, castDevice.getModelName(), null);
+    }
+
     private class MediaRouterCallback extends MediaRouter.Callback {
 
         @Override
@@ -149,9 +236,17 @@ public class GoogleCastDiscoveryClient implements DiscoveryClient {
             boolean isNew = foundDevice == null;
             boolean listUpdateFlag = false;
 
+            if (isNew && !matchesRoute(castDevice)) {
+                return;
+            }
+
             if (isNew) {
                 foundDevice = new GoogleCastDevice(route);
                 listUpdateFlag = true;
+
+                // The media router only reports resolved routes, the first packet is not visible
+                DiscoveryStats.getInstance().onPacket(GoogleCastDevice.class, uuid);
+                DiscoveryStats.getInstance().onResolved(GoogleCastDevice.class, uuid, foundDevice.getId());
             } else {
                 if (!foundDevice.getName().equals(castDevice.getFriendlyName())) {
                     foundDevice.setName(castDevice.getFriendlyName());
@@ -182,9 +277,17 @@ public class GoogleCastDiscoveryClient implements DiscoveryClient {
             boolean isNew = foundDevice == null;
             boolean listUpdateFlag = false;
 
+            if (isNew && !matchesRoute(castDevice)) {
+                return;
+            }
+
             if (isNew) {
                 foundDevice = new GoogleCastDevice(route);
                 listUpdateFlag = true;
+
+                // The media router only reports resolved routes, the first packet is not visible
+                DiscoveryStats.getInstance().onPacket(GoogleCastDevice.class, uuid);
+                DiscoveryStats.getInstance().onResolved(GoogleCastDevice.class, uuid, foundDevice.getId());
             } else {
                 if (!foundDevice.getName().equals(castDevice.getFriendlyName())) {
                     foundDevice.setName(castDevice.getFriendlyName());
@@ -213,14 +316,14 @@ public class GoogleCastDiscoveryClient implements DiscoveryClient {
 
             // Prevent immediate removing. There are some cases when service is removed and added
             // again after a second.
-            if (removeRoutesTimer == null) {
-                removeRoutesTimer = new Timer();
-                removeRoutesTimer.schedule(new TimerTask() {
+            if (removeRoutesFuture == null) {
+                removeRoutesFuture = BeamScheduler.getInstance().schedule(new Runnable() {
                     @Override
                     public void run() {
+                        removeRoutesFuture = null;
                         removeDevices(route);
                     }
-                }, ROUTE_REMOVE_INTERVAL);
+                }, ROUTE_REMOVE_INTERVAL, BeamScheduler.PRIORITY_NORMAL);
             }
         }
 
@@ -0,0 +1,44 @@
+package com.github.se_bastiaan.beam.platform;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+
+import com.github.se_bastiaan.beam.util.NetworkUtil;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * {@link Platform} backed by the Wi-Fi connection and cache directory of the app
+ */
+public class AndroidPlatform implements Platform {
+
+    private final Context context;
+
+    public AndroidPlatform(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public InetAddress getIpAddress() throws UnknownHostException {
+        return NetworkUtil.getIpAddress(context);
+    }
+
+    @Override
+    public File getCacheDir() {
+        return context.getCacheDir();
+    }
+
+    @Override
+    public boolean hasMulticastChannels() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+    }
+
+    @Override
+    public long getCpuTime() {
+        return Process.getElapsedCpuTime();
+    }
+
+}
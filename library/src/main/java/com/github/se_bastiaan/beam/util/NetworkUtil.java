@@ -12,6 +12,9 @@ import java.util.concurrent.TimeUnit;
 
 public class NetworkUtil {
 
+    private static final String UNKNOWN_SSID = "<unknown ssid>";
+    private static final String UNKNOWN_BSSID = "02:00:00:00:00:00";
+
     public static long getTime() {
         return TimeUnit.MILLISECONDS.toSeconds(new Date().getTime());
     }
@@ -29,6 +32,31 @@ public class NetworkUtil {
         }
     }
 
+    /**
+     * Identify the current Wi-Fi network by its SSID, or by its BSSID when the SSID is hidden from the app
+     * @param context {@link Context}
+     * @return {@link String} or null when no network can be identified
+     */
+    public static String getNetworkKey(Context context) {
+        WifiManager wifiMgr = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+        WifiInfo wifiInfo = wifiMgr.getConnectionInfo();
+        if (wifiInfo == null || wifiInfo.getIpAddress() == 0) {
+            return null;
+        }
+
+        String ssid = wifiInfo.getSSID();
+        if (ssid != null && !ssid.isEmpty() && !ssid.equals(UNKNOWN_SSID)) {
+            return ssid;
+        }
+
+        String bssid = wifiInfo.getBSSID();
+        if (bssid != null && !bssid.equals(UNKNOWN_BSSID)) {
+            return bssid;
+        }
+
+        return null;
+    }
+
     private static byte[] convertIpAddress(int ip) {
         return new byte[]{
                 (byte) (ip & 0xFF),
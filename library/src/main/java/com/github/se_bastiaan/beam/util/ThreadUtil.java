@@ -5,36 +5,29 @@ import android.os.Looper;
 import android.support.annotation.NonNull;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 
 public class ThreadUtil {
 
     private static Handler handler = new Handler(Looper.getMainLooper());
-    private static final int NUM_OF_THREADS = 20;
 
-    private static Executor executor;
-
-    static {
-        createExecutor();
-    }
-
-    static void createExecutor() {
-        executor = Executors.newFixedThreadPool(NUM_OF_THREADS, new ThreadFactory() {
-            @Override
-            public Thread newThread(@NonNull Runnable r) {
-                return new Thread(r);
-            }
-        });
-    }
+    private static final Executor MAIN_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            runOnMainThread(command);
+        }
+    };
 
     public static void runOnMainThread(Runnable runnable) {
         handler.post(runnable);
     }
 
+    public static void runOnMainThread(Runnable runnable, long delayMillis) {
+        handler.postDelayed(runnable, delayMillis);
+    }
+
     public static void runInBackground(Runnable runnable, boolean forceNewThread) {
         if (forceNewThread || isMain()) {
-            executor.execute(runnable);
+            BeamScheduler.getInstance().execute(runnable);
         } else {
             runnable.run();
         }
@@ -45,8 +38,25 @@ public class ThreadUtil {
         runInBackground(runnable, false);
     }
 
+    /**
+     * @return {@link Executor} that runs on the {@link BeamScheduler} workers
+     */
     public static Executor getExecutor() {
-        return executor;
+        return BeamScheduler.getInstance().asExecutorService(BeamScheduler.PRIORITY_NORMAL);
+    }
+
+    /**
+     * @return {@link Executor} that posts to the main thread
+     */
+    public static Executor mainThreadExecutor() {
+        return MAIN_EXECUTOR;
+    }
+
+    /**
+     * @return {@link Executor} that runs on the calling thread
+     */
+    public static Executor directExecutor() {
+        return ListenerRegistry.directExecutor();
     }
 
     private static boolean isMain() {
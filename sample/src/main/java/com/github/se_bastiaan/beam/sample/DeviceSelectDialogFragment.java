@@ -11,9 +11,7 @@ import android.widget.EditText;
 
 import com.github.se_bastiaan.beam.BeamManager;
 import com.github.se_bastiaan.beam.device.BeamDevice;
-
-import java.util.ArrayList;
-import java.util.List;
+import com.github.se_bastiaan.beam.discovery.DeviceSnapshot;
 
 public class DeviceSelectDialogFragment extends DialogFragment {
 
@@ -24,10 +22,10 @@ public class DeviceSelectDialogFragment extends DialogFragment {
     public Dialog onCreateDialog(Bundle savedInstanceState) {
         AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
 
-        final BeamManager manager = BeamManager.getInstance();
+        final DeviceSnapshot snapshot = BeamManager.getInstance().getDeviceSnapshot();
         final ArrayAdapter<String> arrayAdapter = new ArrayAdapter<>(getActivity(), android.R.layout.select_dialog_singlechoice);
-        for (BeamDevice device : manager.getDevices().values()) {
-            arrayAdapter.add(device.getName());
+        for (int i = 0; i < snapshot.size(); i++) {
+            arrayAdapter.add(snapshot.get(i).getName());
         }
 
         builder.setNegativeButton(
@@ -42,7 +40,7 @@ public class DeviceSelectDialogFragment extends DialogFragment {
         builder.setAdapter(arrayAdapter, new DialogInterface.OnClickListener() {
                     @Override
                     public void onClick(DialogInterface dialog, int which) {
-                        listener.onResult(new ArrayList<>(manager.getDevices().values()).get(which));
+                        listener.onResult(snapshot.get(which));
                     }
                 });
 
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.se_bastiaan.beam.emulator;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * A single emulated UPnP MediaRenderer, knows its SSDP messages and device description
+ */
+public class EmulatedRenderer {
+
+    public static final String DEVICE_TYPE = "urn:schemas-upnp-org:device:MediaRenderer:1";
+    public static final String ROOT_DEVICE = "upnp:rootdevice";
+    public static final String[] SERVICE_TYPES = {
+            "urn:schemas-upnp-org:service:AVTransport:1",
+            "urn:schemas-upnp-org:service:RenderingControl:1",
+            "urn:schemas-upnp-org:service:ConnectionManager:1"
+    };
+
+    static final String NEWLINE = "\r\n";
+    static final String SERVER = "Linux/4.4 UPnP/1.0 BeamEmulator/1.0";
+
+    private final int index;
+    private final String uuid;
+    private final InetAddress address;
+    private final String location;
+    private final int maxAge;
+    private int bootId = 1;
+    private final int configId = 1;
+
+    /**
+     * @param index Number of the renderer within the swarm
+     * @param address Address the renderer sends from and is reachable on
+     * @param httpPort Port of the description server
+     * @param maxAge CACHE-CONTROL max-age in seconds
+     */
+    public EmulatedRenderer(int index, InetAddress address, int httpPort, int maxAge) {
+        this.index = index;
+        this.uuid = UUID.nameUUIDFromBytes(("beam-emulator-" + index).getBytes()).toString();
+        this.address = address;
+        this.location = "http://" + address.getHostAddress() + ":" + httpPort + "/" + index + "/description.xml";
+        this.maxAge = maxAge;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public InetAddress getAddress() {
+        return address;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * A rebooted device announces a new BOOTID.UPNP.ORG
+     */
+    public synchronized void reboot() {
+        bootId++;
+    }
+
+    /**
+     * @return Every NT this renderer announces: the root device, its uuid, the device type and every service type
+     */
+    public List<String> getNotificationTypes() {
+        List<String> types = new ArrayList<>(3 + SERVICE_TYPES.length);
+        types.add(ROOT_DEVICE);
+        types.add("uuid:" + uuid);
+        types.add(DEVICE_TYPE);
+        for (String serviceType : SERVICE_TYPES) {
+            types.add(serviceType);
+        }
+        return types;
+    }
+
+    /**
+     * @param searchTarget ST of an M-SEARCH
+     * @return The types this renderer responds with, empty when it does not match
+     */
+    public List<String> getMatchingTypes(String searchTarget) {
+        List<String> types = getNotificationTypes();
+        if ("ssdp:all".equals(searchTarget)) {
+            return types;
+        }
+
+        List<String> matching = new ArrayList<>(1);
+        for (String type : types) {
+            if (type.equalsIgnoreCase(searchTarget)) {
+                matching.add(type);
+            }
+        }
+        return matching;
+    }
+
+    private String getUsn(String type) {
+        return type.startsWith("uuid:") ? type : "uuid:" + uuid + "::" + type;
+    }
+
+    public synchronized String getSearchResponse(String searchTarget) {
+        return "HTTP/1.1 200 OK" + NEWLINE +
+                "CACHE-CONTROL: max-age=" + maxAge + NEWLINE +
+                "EXT:" + NEWLINE +
+                "LOCATION: " + location + NEWLINE +
+                "SERVER: " + SERVER + NEWLINE +
+                "ST: " + searchTarget + NEWLINE +
+                "USN: " + getUsn(searchTarget) + NEWLINE +
+                "BOOTID.UPNP.ORG: " + bootId + NEWLINE +
+                "CONFIGID.UPNP.ORG: " + configId + NEWLINE +
+                NEWLINE;
+    }
+
+    public synchronized String getAliveMessage(String type, String host) {
+        return "NOTIFY * HTTP/1.1" + NEWLINE +
+                "HOST: " + host + NEWLINE +
+                "CACHE-CONTROL: max-age=" + maxAge + NEWLINE +
+                "LOCATION: " + location + NEWLINE +
+                "NT: " + type + NEWLINE +
+                "NTS: ssdp:alive" + NEWLINE +
+                "SERVER: " + SERVER + NEWLINE +
+                "USN: " + getUsn(type) + NEWLINE +
+                "BOOTID.UPNP.ORG: " + bootId + NEWLINE +
+                "CONFIGID.UPNP.ORG: " + configId + NEWLINE +
+                NEWLINE;
+    }
+
+    public synchronized String getByeByeMessage(String type, String host) {
+        return "NOTIFY * HTTP/1.1" + NEWLINE +
+                "HOST: " + host + NEWLINE +
+                "NT: " + type + NEWLINE +
+                "NTS: ssdp:byebye" + NEWLINE +
+                "USN: " + getUsn(type) + NEWLINE +
+                "BOOTID.UPNP.ORG: " + bootId + NEWLINE +
+                "CONFIGID.UPNP.ORG: " + configId + NEWLINE +
+                NEWLINE;
+    }
+
+    public String getDescription() {
+        StringBuilder sb = new StringBuilder(2048);
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        sb.append("<root xmlns=\"urn:schemas-upnp-org:device-1-0\">\n");
+        sb.append("  <specVersion><major>1</major><minor>0</minor></specVersion>\n");
+        sb.append("  <device>\n");
+        sb.append("    <deviceType>").append(DEVICE_TYPE).append("</deviceType>\n");
+        sb.append("    <friendlyName>").append(String.format(Locale.US, "Emulated Renderer %05d", index)).append("</friendlyName>\n");
+        sb.append("    <manufacturer>Beam</manufacturer>\n");
+        sb.append("    <modelDescription>Emulated UPnP MediaRenderer</modelDescription>\n");
+        sb.append("    <modelName>BeamEmulator</modelName>\n");
+        sb.append("    <modelNumber>1</modelNumber>\n");
+        sb.append("    <UDN>uuid:").append(uuid).append("</UDN>\n");
+        sb.append("    <serviceList>\n");
+        for (String serviceType : SERVICE_TYPES) {
+            String name = serviceType.substring("urn:schemas-upnp-org:service:".length(), serviceType.lastIndexOf(':'));
+            sb.append("      <service>\n");
+            sb.append("        <serviceType>").append(serviceType).append("</serviceType>\n");
+            sb.append("        <serviceId>urn:upnp-org:serviceId:").append(name).append("</serviceId>\n");
+            sb.append("        <SCPDURL>/").append(index).append('/').append(name).append("/scpd.xml</SCPDURL>\n");
+            sb.append("        <controlURL>/").append(index).append('/').append(name).append("/control</controlURL>\n");
+            sb.append("        <eventSubURL>/").append(index).append('/').append(name).append("/event</eventSubURL>\n");
+            sb.append("      </service>\n");
+        }
+        sb.append("    </serviceList>\n");
+        sb.append("  </device>\n");
+        sb.append("</root>\n");
+        return sb.toString();
+    }
+
+}
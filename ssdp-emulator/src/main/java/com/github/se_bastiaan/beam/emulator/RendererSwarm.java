@@ -0,0 +1,534 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.se_bastiaan.beam.emulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Emulates a network full of UPnP MediaRenderers, for load testing discovery.
+ * <ul>
+ *     <li>M-SEARCH requests are answered by every matching renderer, after a random delay of at most MX seconds,
+ *     capped by {@link Builder#maxJitter(long)}</li>
+ *     <li>ssdp:alive and ssdp:byebye NOTIFYs are sent for the root device, uuid, device type and every service</li>
+ *     <li>Device descriptions are served by an embedded HTTP server</li>
+ * </ul>
+ * On loopback the renderers can be spread over several source addresses (127.0.0.1, 127.0.0.2, ...), so they look
+ * like separate hosts to the receiver. Use a private multicast group or port to stay off the real SSDP network.
+ */
+public class RendererSwarm {
+
+    public static final String DEFAULT_GROUP = "239.255.255.250";
+    public static final int DEFAULT_PORT = 1900;
+
+    static final Charset ASCII_CHARSET = Charset.forName("US-ASCII");
+    static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
+
+    private final int count;
+    private final InetSocketAddress group;
+    private final InetAddress interfaceAddress;
+    private final int sourceAddresses;
+    private final long maxJitter;
+    private final int maxAge;
+    private final long notifyInterval;
+    private final long notifySpread;
+    private final long descriptionDelay;
+    private final boolean announceOnStart;
+
+    private final List<EmulatedRenderer> renderers = new ArrayList<>();
+    private final List<MulticastSocket> sendSockets = new ArrayList<>();
+    private final Random random = new Random();
+
+    private HttpServer httpServer;
+    private ExecutorService httpExecutor;
+    private ScheduledExecutorService scheduler;
+    private MulticastSocket searchSocket;
+    private Thread searchThread;
+    private volatile boolean running = false;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong notifications = new AtomicLong();
+    private final AtomicLong descriptions = new AtomicLong();
+
+    private RendererSwarm(Builder builder) {
+        count = builder.count;
+        group = builder.group;
+        interfaceAddress = builder.interfaceAddress;
+        sourceAddresses = builder.sourceAddresses;
+        maxJitter = builder.maxJitter;
+        maxAge = builder.maxAge;
+        notifyInterval = builder.notifyInterval;
+        notifySpread = builder.notifySpread;
+        descriptionDelay = builder.descriptionDelay;
+        announceOnStart = builder.announceOnStart;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        running = true;
+
+        NetworkInterface networkInterface = NetworkInterface.getByInetAddress(interfaceAddress);
+        scheduler = Executors.newScheduledThreadPool(2, new NamedThreadFactory("SwarmScheduler"));
+
+        httpExecutor = Executors.newFixedThreadPool(8, new NamedThreadFactory("SwarmHttp"));
+        httpServer = HttpServer.create(new InetSocketAddress(0), 256);
+        httpServer.createContext("/", new DescriptionHandler());
+        httpServer.setExecutor(httpExecutor);
+        httpServer.start();
+        int httpPort = httpServer.getAddress().getPort();
+
+        InetAddress address = interfaceAddress;
+        for (int i = 0; i < sourceAddresses; i++) {
+            if (i > 0) {
+                address = nextAddress(address);
+            }
+            MulticastSocket socket = new MulticastSocket(new InetSocketAddress(address, 0));
+            socket.setNetworkInterface(networkInterface);
+            socket.setTimeToLive(4);
+            sendSockets.add(socket);
+        }
+
+        for (int i = 0; i < count; i++) {
+            InetAddress source = sendSockets.get(i % sourceAddresses).getLocalAddress();
+            renderers.add(new EmulatedRenderer(i, source, httpPort, maxAge));
+        }
+
+        searchSocket = new MulticastSocket(group.getPort());
+        searchSocket.joinGroup(group, networkInterface);
+        searchThread = new Thread(new SearchLoop(), "SwarmSearch");
+        searchThread.setDaemon(true);
+        searchThread.start();
+
+        if (announceOnStart) {
+            announce();
+        }
+
+        if (notifyInterval > 0) {
+            scheduler.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    announce();
+                }
+            }, notifyInterval, notifyInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        scheduler.shutdownNow();
+        httpServer.stop(0);
+        httpExecutor.shutdownNow();
+
+        try {
+            searchSocket.leaveGroup(group, NetworkInterface.getByInetAddress(interfaceAddress));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        searchSocket.close();
+
+        for (MulticastSocket socket : sendSockets) {
+            socket.close();
+        }
+        sendSockets.clear();
+        renderers.clear();
+    }
+
+    public List<EmulatedRenderer> getRenderers() {
+        return Collections.unmodifiableList(renderers);
+    }
+
+    /**
+     * Send ssdp:alive for every renderer, spread over the notify spread
+     */
+    public void announce() {
+        for (final EmulatedRenderer renderer : renderers) {
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    for (String type : renderer.getNotificationTypes()) {
+                        send(renderer, renderer.getAliveMessage(type, getHost()), group);
+                        notifications.incrementAndGet();
+                    }
+                }
+            }, spreadDelay(renderer), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Send ssdp:byebye for every renderer, spread over the notify spread
+     */
+    public void byebye() {
+        for (EmulatedRenderer renderer : renderers) {
+            byebye(renderer);
+        }
+    }
+
+    public void byebye(final EmulatedRenderer renderer) {
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                for (String type : renderer.getNotificationTypes()) {
+                    send(renderer, renderer.getByeByeMessage(type, getHost()), group);
+                    notifications.incrementAndGet();
+                }
+            }
+        }, spreadDelay(renderer), TimeUnit.MILLISECONDS);
+    }
+
+    private long spreadDelay(EmulatedRenderer renderer) {
+        return count > 1 ? notifySpread * renderer.getIndex() / (count - 1) : 0;
+    }
+
+    private String getHost() {
+        return group.getAddress().getHostAddress() + ":" + group.getPort();
+    }
+
+    private void send(EmulatedRenderer renderer, String message, SocketAddress target) {
+        if (!running) {
+            return;
+        }
+
+        byte[] bytes = message.getBytes(ASCII_CHARSET);
+        try {
+            sendSockets.get(renderer.getIndex() % sourceAddresses).send(new DatagramPacket(bytes, bytes.length, target));
+        } catch (IOException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void handleSearch(String message, final SocketAddress sender) {
+        final String searchTarget = getHeader(message, "ST");
+        if (searchTarget == null) {
+            return;
+        }
+
+        searches.incrementAndGet();
+
+        long maxDelay = maxJitter;
+        try {
+            String mx = getHeader(message, "MX");
+            if (mx != null) {
+                maxDelay = Math.min(maxDelay, TimeUnit.SECONDS.toMillis(Integer.parseInt(mx)));
+            }
+        } catch (NumberFormatException e) {
+            // Keep the jitter cap
+        }
+
+        for (final EmulatedRenderer renderer : renderers) {
+            for (final String type : renderer.getMatchingTypes(searchTarget)) {
+                long delay = maxDelay > 0 ? (long) (random.nextDouble() * maxDelay) : 0;
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        send(renderer, renderer.getSearchResponse(type), sender);
+                        responses.incrementAndGet();
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    static String getHeader(String message, String name) {
+        for (String line : message.split("\r?\n")) {
+            int index = line.indexOf(':');
+            if (index > 0 && line.substring(0, index).trim().equalsIgnoreCase(name)) {
+                return line.substring(index + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The next IPv4 address, e.g. 127.0.0.2 after 127.0.0.1. Addresses ending in .0 or .255 are skipped.
+     */
+    static InetAddress nextAddress(InetAddress address) throws UnknownHostException {
+        byte[] bytes = address.getAddress();
+        int value = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+        do {
+            value++;
+        } while ((value & 0xFF) == 0 || (value & 0xFF) == 0xFF);
+        return InetAddress.getByAddress(new byte[] {
+                (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value
+        });
+    }
+
+    public long getSearchCount() {
+        return searches.get();
+    }
+
+    public long getResponseCount() {
+        return responses.get();
+    }
+
+    public long getNotificationCount() {
+        return notifications.get();
+    }
+
+    public long getDescriptionCount() {
+        return descriptions.get();
+    }
+
+    private class SearchLoop implements Runnable {
+        @Override
+        public void run() {
+            byte[] buffer = new byte[2048];
+            while (running) {
+                DatagramPacket dp = new DatagramPacket(buffer, buffer.length);
+                try {
+                    searchSocket.receive(dp);
+                } catch (IOException e) {
+                    if (running) {
+                        e.printStackTrace();
+                    }
+                    return;
+                }
+
+                String message = new String(dp.getData(), dp.getOffset(), dp.getLength(), ASCII_CHARSET);
+                if (message.startsWith("M-SEARCH")) {
+                    handleSearch(message, dp.getSocketAddress());
+                }
+            }
+        }
+    }
+
+    private class DescriptionHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            EmulatedRenderer renderer = null;
+            if (path.length == 3 && "description.xml".equals(path[2])) {
+                try {
+                    int index = Integer.parseInt(path[1]);
+                    if (index >= 0 && index < renderers.size()) {
+                        renderer = renderers.get(index);
+                    }
+                } catch (NumberFormatException e) {
+                    // Not a renderer
+                }
+            }
+
+            if (renderer == null) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+
+            if (descriptionDelay > 0) {
+                try {
+                    Thread.sleep(descriptionDelay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            byte[] body = renderer.getDescription().getBytes(UTF8_CHARSET);
+            exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=\"utf-8\"");
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream out = exchange.getResponseBody();
+            try {
+                out.write(body);
+            } finally {
+                out.close();
+            }
+            descriptions.incrementAndGet();
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static class Builder {
+        private int count = 100;
+        private InetSocketAddress group = new InetSocketAddress(DEFAULT_GROUP, DEFAULT_PORT);
+        private InetAddress interfaceAddress;
+        private int sourceAddresses = 1;
+        private long maxJitter = 1000;
+        private int maxAge = 1800;
+        private long notifyInterval = 0;
+        private long notifySpread = 1000;
+        private long descriptionDelay = 0;
+        private boolean announceOnStart = true;
+
+        public Builder() {
+            try {
+                interfaceAddress = InetAddress.getByName("127.0.0.1");
+            } catch (UnknownHostException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * @param count Number of renderers
+         */
+        public Builder count(int count) {
+            this.count = count;
+            return this;
+        }
+
+        /**
+         * @param group Multicast group and port, e.g. a private group to stay off the real SSDP network
+         */
+        public Builder group(InetSocketAddress group) {
+            this.group = group;
+            return this;
+        }
+
+        /**
+         * @param interfaceAddress Address of the interface the swarm runs on, 127.0.0.1 by default
+         */
+        public Builder interfaceAddress(InetAddress interfaceAddress) {
+            this.interfaceAddress = interfaceAddress;
+            return this;
+        }
+
+        /**
+         * @param sourceAddresses Number of consecutive addresses, starting at the interface address, that the
+         *                        renderers are spread over. Only works on loopback, where every 127.x.x.x address
+         *                        is local.
+         */
+        public Builder sourceAddresses(int sourceAddresses) {
+            this.sourceAddresses = Math.max(1, sourceAddresses);
+            return this;
+        }
+
+        /**
+         * @param maxJitter Maximum delay in ms of a search response, the MX of the search caps it further
+         */
+        public Builder maxJitter(long maxJitter) {
+            this.maxJitter = maxJitter;
+            return this;
+        }
+
+        /**
+         * @param maxAge CACHE-CONTROL max-age in seconds
+         */
+        public Builder maxAge(int maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * @param notifyInterval Interval in ms of ssdp:alive rounds, 0 to only announce on start
+         */
+        public Builder notifyInterval(long notifyInterval) {
+            this.notifyInterval = notifyInterval;
+            return this;
+        }
+
+        /**
+         * @param notifySpread Time in ms over which the renderers of one announcement round are spread
+         */
+        public Builder notifySpread(long notifySpread) {
+            this.notifySpread = notifySpread;
+            return this;
+        }
+
+        /**
+         * @param descriptionDelay Delay in ms before a description is served, to emulate slow devices
+         */
+        public Builder descriptionDelay(long descriptionDelay) {
+            this.descriptionDelay = descriptionDelay;
+            return this;
+        }
+
+        /**
+         * @param announceOnStart Whether ssdp:alive is sent when the swarm starts
+         */
+        public Builder announceOnStart(boolean announceOnStart) {
+            this.announceOnStart = announceOnStart;
+            return this;
+        }
+
+        public RendererSwarm build() {
+            return new RendererSwarm(this);
+        }
+    }
+
+    /**
+     * Run a swarm until the process is stopped: RendererSwarm [count] [interface address] [group:port]
+     */
+    public static void main(String[] args) throws Exception {
+        Builder builder = new Builder();
+        if (args.length > 0) {
+            builder.count(Integer.parseInt(args[0]));
+        }
+        if (args.length > 1) {
+            builder.interfaceAddress(InetAddress.getByName(args[1]));
+        }
+        if (args.length > 2) {
+            String[] group = args[2].split(":");
+            builder.group(new InetSocketAddress(group[0], Integer.parseInt(group[1])));
+        }
+        builder.notifyInterval(TimeUnit.SECONDS.toMillis(30));
+
+        RendererSwarm swarm = builder.build();
+        swarm.start();
+        System.out.println("Emulating " + swarm.getRenderers().size() + " renderers");
+
+        while (true) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            System.out.println(String.format("searches: %d, responses: %d, notifications: %d, descriptions: %d",
+                    swarm.getSearchCount(), swarm.getResponseCount(), swarm.getNotificationCount(),
+                    swarm.getDescriptionCount()));
+        }
+    }
+
+}